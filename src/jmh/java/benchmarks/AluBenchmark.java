@@ -0,0 +1,104 @@
+package benchmarks;
+
+import cpu.EmulatorState;
+import cpu.disassembler.Instruction;
+import cpu.disassembler.instruction_args.Register8;
+import cpu.disassembler.instructions.ArithmeticInstructions;
+import cpu.disassembler.instructions.BitwiseInstructions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures executing common ArithmeticInstructions and BitwiseInstructions on
+ * registers. Each benchmark returns A and F so that the flags are computed
+ * even when they're evaluated lazily.
+ */
+@State(Scope.Thread)
+public class AluBenchmark {
+    private EmulatorState _state;
+
+    private Instruction _add;
+    private Instruction _adc;
+    private Instruction _sub;
+    private Instruction _cp;
+    private Instruction _inc;
+    private Instruction _and;
+    private Instruction _xor;
+    private Instruction _rlc;
+    private Instruction _swap;
+    private Instruction _bit;
+
+    @Setup
+    public void setup() {
+        _state = BenchmarkUtil.createState();
+        Register8.B.setInt(_state, 0x3B);
+
+        _add = new ArithmeticInstructions.Add8Instruction(Register8.B);
+        _adc = new ArithmeticInstructions.AdcInstruction(Register8.B);
+        _sub = new ArithmeticInstructions.SubInstruction(Register8.B);
+        _cp = new ArithmeticInstructions.CpInstruction(Register8.B);
+        _inc = new ArithmeticInstructions.Inc8Instruction(Register8.A);
+        _and = new BitwiseInstructions.AndInstruction(Register8.B);
+        _xor = new BitwiseInstructions.XorInstruction(Register8.B);
+        _rlc = new BitwiseInstructions.RlcInstruction(Register8.A);
+        _swap = new BitwiseInstructions.SwapInstruction(Register8.A);
+        _bit = new BitwiseInstructions.BitInstruction(3, Register8.A);
+    }
+
+    private int run(Instruction instruction) {
+        instruction.execute(_state);
+        return _state.registerState.getR16Int(0);
+    }
+
+    @Benchmark
+    public int add() {
+        return run(_add);
+    }
+
+    @Benchmark
+    public int adc() {
+        return run(_adc);
+    }
+
+    @Benchmark
+    public int sub() {
+        return run(_sub);
+    }
+
+    @Benchmark
+    public int cp() {
+        return run(_cp);
+    }
+
+    @Benchmark
+    public int inc() {
+        return run(_inc);
+    }
+
+    @Benchmark
+    public int and() {
+        return run(_and);
+    }
+
+    @Benchmark
+    public int xor() {
+        return run(_xor);
+    }
+
+    @Benchmark
+    public int rlc() {
+        return run(_rlc);
+    }
+
+    @Benchmark
+    public int swap() {
+        return run(_swap);
+    }
+
+    @Benchmark
+    public int bit() {
+        return run(_bit);
+    }
+}
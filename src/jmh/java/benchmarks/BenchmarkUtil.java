@@ -0,0 +1,38 @@
+package benchmarks;
+
+import cpu.EmulatorState;
+import memory.CartridgeHeader;
+import memory.components.memory_bank_controllers.MemoryBankController1;
+import util.Util;
+
+import java.io.IOException;
+
+/**
+ * Setup shared by the benchmarks. ROM names refer to files in
+ * src/test/resources, so benchmarks must be run from the project root.
+ */
+class BenchmarkUtil {
+    private final static String ROM_DIRECTORY = "src/test/resources/";
+
+    private final static int NUM_ROM_BANKS = 4;
+    private final static int BANK_SIZE = 0x4000;
+    private final static int RAM_KB = 8;
+
+    static byte[] loadRom(String name) throws IOException {
+        return Util.bytesFromFile(ROM_DIRECTORY + name + ".gb");
+    }
+
+    /*
+     * Returns an emulator with a blank MBC1 cartridge that has RAM, which is
+     * enabled, so that every region of memory can be read and written.
+     */
+    static EmulatorState createState() {
+        byte[] rom = new byte[NUM_ROM_BANKS * BANK_SIZE];
+        EmulatorState state = new EmulatorState(new CartridgeHeader("BENCHMARK", false,
+                (byte)0, false, true, new MemoryBankController1(rom, RAM_KB),
+                NUM_ROM_BANKS, RAM_KB, false, (byte)0, (byte)0, (byte)0, (short)0));
+
+        state.memory.writeByte((short)0x0000, (byte)0x0A);
+        return state;
+    }
+}
@@ -0,0 +1,32 @@
+package benchmarks;
+
+import memory.CartridgeHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+/**
+ * Measures CartridgeHeader.parse(), which includes creating the cartridge's
+ * MemoryBankController.
+ */
+@State(Scope.Thread)
+public class CartridgeHeaderBenchmark {
+    @Param({ "Tetris", "SuperMarioLand", "KirbyDreamLand" })
+    public String rom;
+
+    private byte[] _bytes;
+
+    @Setup
+    public void setup() throws IOException {
+        _bytes = BenchmarkUtil.loadRom(rom);
+    }
+
+    @Benchmark
+    public CartridgeHeader parse() {
+        return CartridgeHeader.parse(_bytes);
+    }
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import cpu.disassembler.Instruction;
+import cpu.disassembler.InstructionDecoder;
+import cpu.disassembler.RootInstructionDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import util.ByteScanner;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Measures RootInstructionDecoder.decodeNext() over the instructions of real
+ * ROMs, found by decoding each ROM from start to end (skipping bytes that
+ * aren't instructions).
+ */
+@State(Scope.Thread)
+public class DecoderBenchmark {
+    @Param({ "Tetris", "SuperMarioLand" })
+    public String rom;
+
+    private InstructionDecoder _decoder;
+    private ByteScanner _scanner;
+
+    // The start of every instruction in the ROM.
+    private int[] _offsets;
+    private int _next;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] bytes = BenchmarkUtil.loadRom(rom);
+
+        _decoder = new RootInstructionDecoder();
+        _scanner = new ByteScanner(bytes);
+
+        int[] offsets = new int[bytes.length];
+        int count = 0;
+
+        // Leave room for the longest instruction at the end.
+        while (_scanner.getIndex() < bytes.length - 3) {
+            int offset = _scanner.getIndex();
+            if (!_decoder.canDecode(_scanner)) {
+                _scanner.seek(offset + 1);
+                continue;
+            }
+
+            _decoder.decodeNext(_scanner);
+            offsets[count++] = offset;
+        }
+
+        _offsets = Arrays.copyOf(offsets, count);
+        _next = 0;
+    }
+
+    @Benchmark
+    public Instruction decodeNext() {
+        _scanner.seek(_offsets[_next]);
+        _next = _next + 1 == _offsets.length ? 0 : _next + 1;
+
+        return _decoder.decodeNext(_scanner);
+    }
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import cpu.EmulatorState;
+import memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures Memory.readByte() and writeByte() in each region of the address
+ * space. Writes to ROM go to the MBC's RAM-enable register, which is the only
+ * ROM write that doesn't change the memory map. MMIO uses SCY, a register
+ * that just stores its value.
+ */
+@State(Scope.Thread)
+public class MemoryBenchmark {
+    @Param({
+            "ROM0",
+            "ROMX",
+            "VRAM",
+            "CART_RAM",
+            "WRAM",
+            "ECHO",
+            "OAM",
+            "MMIO",
+            "HRAM",
+            "IE"
+    })
+    public String region;
+
+    private Memory _memory;
+    private short _address;
+    private byte _value;
+
+    private static int addressOf(String region) {
+        switch (region) {
+            case "ROM0": return 0x0100;
+            case "ROMX": return 0x4100;
+            case "VRAM": return 0x8100;
+            case "CART_RAM": return 0xA100;
+            case "WRAM": return 0xC100;
+            case "ECHO": return 0xE100;
+            case "OAM": return 0xFE10;
+            case "MMIO": return 0xFF42;
+            case "HRAM": return 0xFF90;
+            case "IE": return 0xFFFF;
+            default: throw new IllegalArgumentException("Unknown region " + region);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        EmulatorState state = BenchmarkUtil.createState();
+        _memory = state.memory;
+        _address = (short)addressOf(region);
+
+        // Keeps RAM enabled when written to ROM.
+        _value = (byte)0x0A;
+    }
+
+    @Benchmark
+    public byte readByte() {
+        return _memory.readByte(_address);
+    }
+
+    @Benchmark
+    public void writeByte() {
+        _memory.writeByte(_address, _value);
+    }
+}
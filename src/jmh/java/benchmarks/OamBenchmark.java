@@ -0,0 +1,51 @@
+package benchmarks;
+
+import memory.components.graphics.OamRam;
+import memory.components.graphics.Sprite;
+import memory.components.hardware_registers.graphics.LcdControllerRegister;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import util.ByteScanner;
+
+import java.util.Random;
+
+/**
+ * Measures OamRam.getSpriteRow() for every visible row, with all 40 sprites
+ * scattered across the screen.
+ */
+@State(Scope.Thread)
+public class OamBenchmark {
+    private final static int NUM_SPRITES = 40;
+    private final static int BYTES_PER_SPRITE = 4;
+    private final static int SCREEN_HEIGHT = 144;
+
+    private OamRam _oam;
+    private int _y;
+
+    @Setup
+    public void setup() {
+        LcdControllerRegister lcdc = new LcdControllerRegister();
+        lcdc.objOn.set(true);
+
+        // Fixed seed so that every run measures the same layout.
+        Random random = new Random(0);
+        byte[] bytes = new byte[NUM_SPRITES * BYTES_PER_SPRITE];
+        for (int i = 0; i < NUM_SPRITES; i++) {
+            bytes[i * BYTES_PER_SPRITE] = (byte)(16 + random.nextInt(SCREEN_HEIGHT));
+            bytes[i * BYTES_PER_SPRITE + 1] = (byte)(8 + random.nextInt(160));
+            bytes[i * BYTES_PER_SPRITE + 2] = (byte)random.nextInt(256);
+        }
+
+        _oam = new OamRam(lcdc);
+        _oam.loadFromByteScanner(new ByteScanner(bytes));
+        _y = 0;
+    }
+
+    @Benchmark
+    public Sprite[] getSpriteRow() {
+        _y = _y + 1 == SCREEN_HEIGHT ? 0 : _y + 1;
+        return _oam.getSpriteRow(_y);
+    }
+}
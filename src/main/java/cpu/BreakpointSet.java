@@ -0,0 +1,117 @@
+package cpu;
+
+import memory.components.memory_bank_controllers.MemoryBankController;
+import util.Util;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A set of breakpoint addresses that can be checked before every instruction
+ * without slowing the emulator down much.
+ *
+ * Breakpoints are kept in bitsets with one bit per address. A breakpoint
+ * either applies whatever is mapped at its address, or only while a
+ * particular ROM bank is mapped to the switchable bank (0x4000..0x7FFF), in
+ * which case it's kept in a bitset for that bank. A summary bitset over the
+ * whole address space has a bit set wherever there's a breakpoint of either
+ * kind, so contains() is a single bit test for every address without one.
+ */
+public class BreakpointSet {
+    private final static int ADDRESS_SPACE_SIZE = 0x10000;
+
+    private final static int ROMX_START = 0x4000;
+    private final static int ROMX_END = 0x8000;
+
+    // Null if there's no cartridge, in which case there are no banks.
+    private final MemoryBankController _mbc;
+
+    // Whether there's a breakpoint of either kind at each address.
+    private final long[] _summary;
+
+    // Breakpoints that apply regardless of bank.
+    private final long[] _unbanked;
+
+    // Breakpoints in each ROM bank, indexed by address - ROMX_START. A bank's
+    // bitset is allocated the first time a breakpoint is added to it.
+    private final long[][] _banks;
+
+    public BreakpointSet(MemoryBankController mbc) {
+        _mbc = mbc;
+        _summary = new long[ADDRESS_SPACE_SIZE / Long.SIZE];
+        _unbanked = new long[ADDRESS_SPACE_SIZE / Long.SIZE];
+        _banks = new long[mbc == null ? 0 : mbc.getNumRomBanks()][];
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index, boolean value) {
+        if (value)
+            bits[index >>> 6] |= 1L << index;
+        else
+            bits[index >>> 6] &= ~(1L << index);
+    }
+
+    private static boolean isRomxAddress(int address) {
+        return address >= ROMX_START && address < ROMX_END;
+    }
+
+    // Recomputes the summary bit of the given address from the others.
+    private void updateSummary(int address) {
+        boolean any = get(_unbanked, address);
+
+        if (!any && isRomxAddress(address))
+            for (long[] bank : _banks)
+                if (bank != null && get(bank, address - ROMX_START))
+                    any = true;
+
+        set(_summary, address, any);
+    }
+
+    // Breaks at the address whatever is mapped there.
+    public void add(short address) {
+        set(_unbanked, address & 0xFFFF, true);
+        set(_summary, address & 0xFFFF, true);
+    }
+
+    public void remove(short address) {
+        set(_unbanked, address & 0xFFFF, false);
+        updateSummary(address & 0xFFFF);
+    }
+
+    private long[] bankBits(int bank, short address) {
+        checkElementIndex(bank, _banks.length, "ROM bank");
+        checkArgument(isRomxAddress(address & 0xFFFF),
+                "Only addresses in the switchable ROM bank are banked: %s",
+                Util.shortToHexString(address));
+
+        if (_banks[bank] == null)
+            _banks[bank] = new long[(ROMX_END - ROMX_START) / Long.SIZE];
+        return _banks[bank];
+    }
+
+    // Breaks at the address only while the given bank is mapped there.
+    public void add(int bank, short address) {
+        set(bankBits(bank, address), (address & 0xFFFF) - ROMX_START, true);
+        set(_summary, address & 0xFFFF, true);
+    }
+
+    public void remove(int bank, short address) {
+        set(bankBits(bank, address), (address & 0xFFFF) - ROMX_START, false);
+        updateSummary(address & 0xFFFF);
+    }
+
+    // Whether execution should break at the address with the current mapping.
+    public boolean contains(short address) {
+        int index = address & 0xFFFF;
+        if (!get(_summary, index))
+            return false;
+
+        if (get(_unbanked, index))
+            return true;
+
+        long[] bank = _banks[_mbc.getMappedRomBank(address)];
+        return bank != null && get(bank, index - ROMX_START);
+    }
+}
@@ -4,6 +4,10 @@ package cpu;
  * Represents a class that can "debug" the Emulator. It is allowed to define
  * when the emulator should break, and what should happen when the emulator
  * does break for it.
+ *
+ * While no attached debugger is stepping, the emulator may still execute
+ * whole basic blocks, so it only asks shouldBreak(state) at the start of each
+ * block and at instructions whose addresses are in a debugger's breakpoints.
  */
 public interface Debugger {
     /*
@@ -16,4 +20,17 @@ public interface Debugger {
      * then returns to executing.
      */
     public void onBreak(EmulatorState state);
+
+    /*
+     * The addresses other than block starts at which shouldBreak(state) may
+     * return true, or null if there are none. Blocks that run past one of
+     * them aren't executed as a whole.
+     */
+    public BreakpointSet getBreakpoints();
+
+    /*
+     * Whether shouldBreak(state) may return true at any instruction. While
+     * it does, the emulator executes one instruction at a time.
+     */
+    public boolean isStepping();
 }
@@ -1,37 +1,118 @@
 package cpu;
 
+import cpu.blocks.BasicBlock;
+import cpu.blocks.BasicBlockCache;
+import cpu.disassembler.DecodeCache;
+import cpu.disassembler.DecodedInstruction;
 import cpu.disassembler.Instruction;
 import cpu.disassembler.InstructionDecoder;
 import cpu.disassembler.RootInstructionDecoder;
 import cpu.disassembler.instruction_args.Register16;
 import memory.CartridgeHeader;
 import memory.Memory;
-import memory.MemoryByteSource;
+import memory.components.hardware_registers.HardwareRegister;
+import memory.components.hardware_registers.ReadonlyRegister;
+import memory.components.hardware_registers.graphics.StatRegister;
 import memory.components.memory_bank_controllers.MemoryBankController;
-import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 import util.ByteScanner;
 import util.DumpUtil;
 
+import static com.google.common.base.Preconditions.*;
+
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * All state information for the currently running ROM/emulation.
+ *
+ * Time is kept as a count of cycles since the emulator started. Rather than
+ * sleeping after every instruction, the emulator only syncs up with the host
+ * once per emulated frame. A frame is counted as completed when VBlank
+ * starts (at the end of the scanline that takes LY to 144), so a host that
+ * runs a frame at a time gets control back while the frame buffer and OAM
+ * can be read.
+ *
+ * Debuggers are only consulted when at least one is attached: the run loops
+ * check once, when they start, and then run either the normal loop or the
+ * debug loop, which asks every debugger before each block or instruction. A
+ * run without a debugger doesn't pay anything for them. The debug loop still
+ * executes whole basic blocks, except ones that would run past one of a
+ * debugger's breakpoints, and only interprets one instruction at a time
+ * while a debugger is stepping.
+ *
+ * Interrupts are dispatched by the InterruptController at instruction
+ * boundaries (or between basic blocks, which like events may make them up to
+ * a block late).
+ *
+ * While the CPU is halted nothing executes until an enabled interrupt is
+ * requested, and interrupts are only requested by scheduled events. So
+ * rather than stepping through the halt, the cycle counter jumps straight to
+ * the next scheduled event (or the end of the run, if that's sooner).
+ *
+ * The same goes for idle loops, i.e., basic blocks that poll memory until a
+ * scheduled event changes it (see BasicBlock.isIdleLoop()). Once such a block
+ * has jumped back to its own start, the iterations that would run before the
+ * next event are skipped by advancing the cycle counter, so events still run
+ * on exactly the same cycles. This can be turned off with
+ * setIdleLoopSkipping().
  */
-public class EmulatorState {
-    // 1000 nanoseconds in a microsecond; each cycle takes 0.2384
-    // microseconds or 238.4 nanoseconds
-    private final static double NANO_SECONDS_PER_CYCLE = 238.4;
+public class EmulatorState implements Scheduler.EventHandler, HardwareRegister.WriteListener {
+    // Each scanline takes 456 cycles, and there are 154 of them per frame
+    // (144 visible, followed by 10 lines of VBlank).
+    public final static int CYCLES_PER_SCANLINE = 456;
+    public final static int SCANLINES_PER_FRAME = 154;
+    public final static int CYCLES_PER_FRAME = CYCLES_PER_SCANLINE * SCANLINES_PER_FRAME;
+
+    // VBlank starts when LY reaches 144, and requests the VBlank interrupt.
+    private final static int VBLANK_SCANLINE = 144;
+
+    // The number of times a basic block has to run before it's compiled in
+    // the COMPILED_BLOCKS execution mode.
+    private final static int COMPILE_THRESHOLD = 1000;
+
+    // Passed as the target PC when a run doesn't stop at any particular PC.
+    private final static int NO_TARGET_PC = -1;
 
-    public boolean interruptsEnabled;
+    public final InterruptController interrupts;
     public final RegisterState registerState;
+    public final Scheduler scheduler;
+    public final Timer timer;
     public final Memory memory;
 
     private final List<Debugger> _debuggers;
 
+    // The number of cycles executed since the emulator started.
+    private long _cycles;
+
+    // The number of frames completed since the emulator started, i.e., the
+    // number of times VBlank has started.
+    private long _frames;
+
+    // The number of instructions executed since the emulator started.
+    private long _instructions;
+
+    private final FramePacer _pacer;
+
+    // Whether a HALT instruction is waiting for an interrupt.
+    private boolean _halted;
+
+    private boolean _idleLoopSkipping;
+
+    // The cycles and iterations of idle loops that were skipped rather than
+    // executed.
+    private long _idleCyclesSkipped;
+    private long _idleIterationsSkipped;
+
     private final ByteScanner _scanner;
     private final InstructionDecoder _decoder;
 
+    // Null unless enabled through setDecodeCacheEnabled().
+    private DecodeCache _decodeCache;
+
+    private ExecutionMode _executionMode;
+
+    // Null when the execution mode is INTERPRETER.
+    private BasicBlockCache _blockCache;
 
     // This constructor is only used for testing. Using this while trying to
     // actually run the emulator will likely result in a null pointer exception.
@@ -44,65 +125,408 @@ public class EmulatorState {
     }
 
     private EmulatorState(MemoryBankController mbc) {
-        interruptsEnabled = true;
+        interrupts = new InterruptController();
         registerState = new RegisterState();
 
+        // The timer needs the scheduler, and memory needs the timer.
+        scheduler = new Scheduler();
+        timer = new Timer(this);
         memory = new Memory(this, mbc);
 
         _debuggers = new ArrayList<Debugger>();
-        _scanner = new ByteScanner(new MemoryByteSource(memory));
+        _scanner = new ByteScanner(new FetchUnit(memory));
         _decoder = new RootInstructionDecoder();
+        _executionMode = ExecutionMode.INTERPRETER;
+        _idleLoopSkipping = true;
+
+        _cycles = 0;
+        _pacer = new FramePacer(CYCLES_PER_FRAME);
+
+        scheduler.setHandler(Scheduler.SCANLINE_END, this);
+        scheduler.schedule(Scheduler.SCANLINE_END, CYCLES_PER_SCANLINE);
+
+        memory.regs.lyc.setWriteListener(this);
+        updateLyMatch();
+    }
+
+    public long getCycles() {
+        return _cycles;
+    }
+
+    public long getFrames() {
+        return _frames;
+    }
+
+    public long getInstructions() {
+        return _instructions;
+    }
+
+    public boolean isHalted() {
+        return _halted;
+    }
+
+    /*
+     * Whether idle loops are skipped (the default). They're only detected in
+     * the block execution modes, and never while a debugger is attached.
+     * Skipping doesn't change when anything happens, but the skipped
+     * instructions aren't counted by getInstructions().
+     */
+    public void setIdleLoopSkipping(boolean enabled) {
+        _idleLoopSkipping = enabled;
     }
 
+    public long getIdleCyclesSkipped() {
+        return _idleCyclesSkipped;
+    }
+
+    public long getIdleIterationsSkipped() {
+        return _idleIterationsSkipped;
+    }
+
+    /*
+     * Pacing can be changed at any time, including while run() is running on
+     * another thread; the new pacing takes effect at the end of the current
+     * frame.
+     */
+    public void setPacingMode(PacingMode mode) {
+        _pacer.setMode(mode);
+    }
+
+    public PacingMode getPacingMode() {
+        return _pacer.getMode();
+    }
+
+    // See FramePacer.setMultiplier().
+    public void setSpeedMultiplier(double multiplier) {
+        _pacer.setMultiplier(multiplier);
+    }
+
+    /*
+     * When enabled, instructions in the cartridge ROM are decoded once and
+     * then reused every time they're executed. Requires a cartridge.
+     */
+    public void setDecodeCacheEnabled(boolean enabled) {
+        _decodeCache = enabled
+                ? new DecodeCache(_decoder, _scanner, memory.mbc)
+                : null;
+    }
+
+    public void setExecutionMode(ExecutionMode mode) {
+        if (mode == _executionMode)
+            return;
+
+        _executionMode = mode;
+        switch (mode) {
+            case BASIC_BLOCKS:
+                _blockCache = new BasicBlockCache(_decoder, _scanner, memory);
+                break;
+            case COMPILED_BLOCKS:
+                _blockCache = new BasicBlockCache(_decoder, _scanner, memory,
+                        COMPILE_THRESHOLD);
+                break;
+            default:
+                memory.setWriteWatcher(null);
+                _blockCache = null;
+                break;
+        }
+    }
+
+    /*
+     * Debuggers attached while a run is in progress (e.g., from another
+     * debugger's onBreak()) are only consulted once the next run starts.
+     */
     public void addDebugger(Debugger debugger) {
         _debuggers.add(debugger);
     }
 
     public void run() {
         Register16.PC.set(this, (short)0x100);
+        _pacer.reset();
 
         try {
             while (true)
-                executeNextInstruction();
+                runUntilFrame();
         } catch (RuntimeException e) {
             DumpUtil.printEmulatorState(this);
             throw e;
         }
     }
 
-    private void executeNextInstruction() {
-        for (Debugger debugger : _debuggers)
+    /*
+     * Runs for at least the given number of cycles. Since instructions aren't
+     * interrupted, the run may go over by part of an instruction.
+     */
+    public RunResult runForCycles(long cycles) {
+        checkArgument(cycles >= 0);
+        return runUntil(cycles, false, NO_TARGET_PC);
+    }
+
+    // Runs until the next VBlank starts, i.e., until LY reaches 144.
+    public RunResult runUntilFrame() {
+        return runUntil(Long.MAX_VALUE, true, NO_TARGET_PC);
+    }
+
+    /*
+     * Runs until PC is the given address or the cycle budget is used up,
+     * whichever comes first. Returns immediately if PC is already there.
+     */
+    public RunResult runUntilPc(short pc, long maxCycles) {
+        checkArgument(maxCycles >= 0);
+        return runUntil(maxCycles, false, pc & 0xFFFF);
+    }
+
+    private RunResult runUntil(long maxCycles, boolean untilFrame, int targetPc) {
+        long startCycles = _cycles;
+        long startFrames = _frames;
+
+        // Saturate rather than overflow for huge budgets.
+        long endCycles = maxCycles > Long.MAX_VALUE - startCycles
+                ? Long.MAX_VALUE
+                : startCycles + maxCycles;
+
+        RunResult.Status status;
+        if (_debuggers.isEmpty()) {
+            while ((status = stopStatus(startFrames, untilFrame, targetPc, endCycles)) == null)
+                step(targetPc, endCycles - _cycles);
+        } else {
+            while ((status = stopStatus(startFrames, untilFrame, targetPc, endCycles)) == null)
+                debugStep(targetPc, endCycles - _cycles);
+        }
+
+        return new RunResult(status, _cycles - startCycles);
+    }
+
+    // Why a run should stop now, or null if it should keep going.
+    private RunResult.Status stopStatus(long startFrames, boolean untilFrame, int targetPc,
+                                        long endCycles) {
+        if (untilFrame && _frames != startFrames)
+            return RunResult.Status.FRAME_COMPLETED;
+        if (registerState.getPC() == targetPc)
+            return RunResult.Status.PC_REACHED;
+        if (_cycles >= endCycles)
+            return RunResult.Status.CYCLES_EXHAUSTED;
+        return null;
+    }
+
+    /*
+     * If a debugger is attached, gives the debuggers a chance to break first.
+     * Then executes the basic block at PC if the execution mode allows it, a
+     * block can be built there and no debugger is stepping, or else the next
+     * instruction.
+     */
+    public void step() {
+        if (_debuggers.isEmpty())
+            step(NO_TARGET_PC, Long.MAX_VALUE);
+        else
+            debugStep(NO_TARGET_PC, Long.MAX_VALUE);
+    }
+
+    private void debugStep(int stopPc, long maxCycles) {
+        if (interrupts.needsService() && serviceInterrupts())
+            return;
+
+        if (_halted) {
+            skipHalt(maxCycles);
+            return;
+        }
+
+        boolean stepping = false;
+        for (int i = 0; i < _debuggers.size(); i++) {
+            Debugger debugger = _debuggers.get(i);
             if (debugger.shouldBreak(this))
                 debugger.onBreak(this);
+            stepping |= debugger.isStepping();
+        }
+
+        if (stepping || !executeBlock(stopPc, maxCycles, true))
+            executeNextInstruction();
+    }
+
+    // Like step() without a debugger, but never runs a block that would
+    // execute past stopPc without stopping there, or one that would take more
+    // than maxCycles.
+    private void step(int stopPc, long maxCycles) {
+        if (interrupts.needsService() && serviceInterrupts())
+            return;
+
+        if (_halted) {
+            skipHalt(maxCycles);
+            return;
+        }
+
+        if (!executeBlock(stopPc, maxCycles, false))
+            executeNextInstruction();
+    }
+
+    // Executes the basic block at PC, unless the execution mode doesn't use
+    // blocks, no block can be built there, or the block would run past stopPc
+    // or (while debugging) a breakpoint. Returns whether it did.
+    private boolean executeBlock(int stopPc, long maxCycles, boolean debugging) {
+        if (_blockCache == null)
+            return false;
+
+        BasicBlock block = _blockCache.lookup((short)registerState.getPC());
+        if (block == null || block.getTotalMinimumCycles() > maxCycles ||
+                block.hasInteriorInstructionAt(stopPc))
+            return false;
+
+        if (debugging) {
+            for (int i = 0; i < _debuggers.size(); i++) {
+                BreakpointSet breakpoints = _debuggers.get(i).getBreakpoints();
+                if (breakpoints != null && block.hasInteriorInstructionIn(breakpoints))
+                    return false;
+            }
+        }
+
+        long nextEventCycle = scheduler.getNextEventCycle();
+
+        int cycles = block.execute(this);
+        _instructions += block.getLastExecutedInstructions();
+        addCycles(cycles);
 
-        int oldPc = Register16.PC.get(this);
-        _scanner.seek(oldPc);
+        // An idle loop that went around once without any event running will
+        // go around the same way until the next one, unless an interrupt is
+        // about to be dispatched (e.g., because an EI before the loop just
+        // took effect). Debuggers get to break at the start of every
+        // iteration, so nothing is skipped while debugging.
+        int start = block.startAddress & 0xFFFF;
+        if (block.isIdleLoop() && _idleLoopSkipping && !debugging &&
+                registerState.getPC() == start && start != stopPc &&
+                _cycles < nextEventCycle && !interrupts.needsService())
+            skipIdleLoop(cycles, maxCycles - cycles);
 
-        // TODO(ddoucet): Honestly the startNs should probably go before the
-        // decoder as well. I'm a little worried about the timing, though.
-        // Need to check this out once things are more stable/working.
+        return true;
+    }
+
+    private void executeNextInstruction() {
+        short oldPc = (short)registerState.getPC();
 
-        int cycles = _decoder.getMinimumCycles(_scanner);
+        Instruction instr;
+        int cycles;
+        int nextPc;
+
+        if (_decodeCache != null && _decodeCache.isCacheable(oldPc)) {
+            DecodedInstruction decoded = _decodeCache.lookup(oldPc);
+            instr = decoded.instruction;
+            cycles = decoded.minimumCycles;
+            nextPc = (oldPc & 0xFFFF) + decoded.length;
+        } else {
+            _scanner.seek(oldPc & 0xFFFF);
+            instr = _decoder.decodeNext(_scanner);
+            cycles = _decoder.getLastMinimumCycles();
+            nextPc = _scanner.getIndex();
+        }
 
-        Instruction instr = _decoder.decodeNext(_scanner);
         cycles += instr.getAdditionalCycles(this);
 
-        long startNanoSeconds = System.nanoTime();
         instr.execute(this);
-        sleep(startNanoSeconds, cycles);
 
-        if (Register16.PC.get(this) == oldPc)
-            Register16.PC.set(this, (short)_scanner.getIndex());
+        if (registerState.getPC() == (oldPc & 0xFFFF))
+            registerState.setPC(nextPc);
+
+        _instructions++;
+        addCycles(cycles);
     }
 
-    // Sleep so that the amount of time the instruction required on hardware
-    // is actually spent.
-    private void sleep(long start, int instructionCycles) {
-        Clock.waitUntil(start, (long)(instructionCycles * NANO_SECONDS_PER_CYCLE));
+    // Advances the cycle counter, running any events that are now due. A
+    // basic block's cycles are added all at once, so events may run up to a
+    // block late.
+    private void addCycles(long cycles) {
+        _cycles += cycles;
+
+        if (_cycles >= scheduler.getNextEventCycle())
+            scheduler.runDueEvents(_cycles);
+    }
+
+    /*
+     * Skips as many iterations of the idle loop at PC, each of which takes
+     * the given number of cycles, as can run without reaching the next event
+     * or going over maxCycles. The iteration that reaches the next event
+     * still runs, so the event runs on the same cycle it would have.
+     */
+    private void skipIdleLoop(int cycles, long maxCycles) {
+        long untilEvent = scheduler.getNextEventCycle() - _cycles;
+        long iterations = Math.min(untilEvent - 1, maxCycles) / cycles;
+        if (iterations <= 0)
+            return;
+
+        _idleIterationsSkipped += iterations;
+        _idleCyclesSkipped += iterations * cycles;
+        addCycles(iterations * cycles);
+    }
+
+    // Returns whether an interrupt was dispatched, which counts as a step. A
+    // dispatch also ends a halt.
+    private boolean serviceInterrupts() {
+        int cycles = interrupts.service(this);
+        if (cycles == 0)
+            return false;
+
+        _halted = false;
+        addCycles(cycles);
+        return true;
+    }
+
+    /*
+     * Called instead of executing an instruction while halted. Leaves the
+     * halt if an enabled interrupt has been requested; otherwise skips ahead
+     * to the next scheduled event, or by maxCycles if that's sooner.
+     */
+    private void skipHalt(long maxCycles) {
+        if (interrupts.isRequested()) {
+            _halted = false;
+            return;
+        }
+
+        long cycles = scheduler.getNextEventCycle() - _cycles;
+        addCycles(Math.min(cycles, maxCycles));
+    }
+
+    /*
+     * Sets STAT's coincidence flag to whether LY equals LYC. When they start
+     * to match, requests the STAT interrupt if STAT asks for it.
+     */
+    private void updateLyMatch() {
+        StatRegister stat = memory.regs.statRegister;
+        boolean match = memory.regs.ly.value == memory.regs.lyc.value;
+
+        if (match && !stat.lyMatch.get() && stat.lyMatchInterruptDesired.get())
+            interrupts.request(InterruptController.LCD_STAT);
+        stat.lyMatch.set(match);
+    }
+
+    // Called when the CPU writes to LYC, the only register listened to.
+    @Override
+    public void onWrite(HardwareRegister register) {
+        updateLyMatch();
+    }
+
+    @Override
+    public void onEvent(int event, long cycle) {
+        switch (event) {
+            case Scheduler.SCANLINE_END:
+                ReadonlyRegister ly = memory.regs.ly;
+                ly.value = (byte)(((ly.value & 0xFF) + 1) % SCANLINES_PER_FRAME);
+                if ((ly.value & 0xFF) == VBLANK_SCANLINE) {
+                    interrupts.request(InterruptController.VBLANK);
+                    _frames++;
+                    _pacer.endFrame();
+                }
+                updateLyMatch();
+                scheduler.schedule(Scheduler.SCANLINE_END, cycle + CYCLES_PER_SCANLINE);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected event " + event);
+        }
     }
 
+    /*
+     * Stops executing instructions until an enabled interrupt is requested.
+     * If IME is set the interrupt is then dispatched, and its handler returns
+     * to the instruction after the HALT; otherwise execution just continues
+     * there.
+     */
     public void halt() {
-        // TODO(ddoucet)
-        throw new NotImplementedException();
+        _halted = true;
     }
 }
@@ -0,0 +1,19 @@
+package cpu;
+
+/**
+ * How EmulatorState executes code.
+ */
+public enum ExecutionMode {
+    // Decode and execute one instruction at a time, polling debuggers before
+    // each one.
+    INTERPRETER,
+
+    // Execute cached basic blocks (see cpu.blocks.BasicBlockCache) where
+    // possible, falling back to the interpreter elsewhere. Only used while no
+    // debuggers are attached, since blocks don't stop between instructions.
+    BASIC_BLOCKS,
+
+    // Like BASIC_BLOCKS, but blocks that run often are compiled to JVM
+    // bytecode (see cpu.blocks.BlockCompiler).
+    COMPILED_BLOCKS
+}
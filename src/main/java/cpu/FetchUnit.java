@@ -0,0 +1,87 @@
+package cpu;
+
+import memory.Memory;
+import memory.components.memory_bank_controllers.MemoryBankController;
+import util.ByteSource;
+
+/**
+ * The ByteSource the CPU decodes its instructions from.
+ *
+ * Rather than going through Memory.readByte() for every opcode and
+ * immediate, the fetch unit keeps the bytes backing the page of the last
+ * fetch and reads straight from them. That covers ROM bank 0 and RAM, which
+ * Memory exposes through getReadPage(), and the switchable ROM bank, which is
+ * read from the cartridge's bytes at the MemoryBankController's current bank
+ * offset. The pointer is only refreshed when a fetch lands in a different
+ * page, or when the MBC has mapped a different bank since the last fetch
+ * from the switchable bank.
+ *
+ * Fetches from anywhere else (e.g., HRAM or cartridge RAM) go through
+ * Memory.readByte() as before.
+ */
+public class FetchUnit implements ByteSource {
+    private final static int ADDRESS_SPACE_SIZE = 0x10000;
+
+    private final static int ROMX_START = 0x4000;
+    private final static int ROMX_END = 0x8000;
+
+    private final Memory _memory;
+
+    // Null if there's no cartridge.
+    private final MemoryBankController _mbc;
+    private final byte[] _romBytes;
+
+    // The page of the last fetch, or -1 before the first one.
+    private int _page;
+
+    // The bytes backing _page and the index of its first byte in them, or
+    // null if fetches from _page go through Memory.
+    private byte[] _pageBytes;
+    private int _pageOffset;
+
+    // The MBC's bank offset when _page was mapped, if _page is in the
+    // switchable ROM bank; -1 otherwise.
+    private int _romBankOffset;
+
+    public FetchUnit(Memory memory) {
+        _memory = memory;
+        _mbc = memory.mbc;
+        _romBytes = _mbc == null ? null : _mbc.getRomBytes();
+
+        _page = -1;
+        _romBankOffset = -1;
+    }
+
+    @Override
+    public int length() {
+        return ADDRESS_SPACE_SIZE;
+    }
+
+    @Override
+    public byte get(int index) {
+        int page = index / Memory.PAGE_SIZE;
+        if (page != _page || (_romBankOffset >= 0 && _romBankOffset != _mbc.getRomBankOffset()))
+            mapPage(page);
+
+        if (_pageBytes == null)
+            return _memory.readByte((short)index);
+
+        return _pageBytes[_pageOffset + (index & (Memory.PAGE_SIZE - 1))];
+    }
+
+    private void mapPage(int page) {
+        int pageStart = page * Memory.PAGE_SIZE;
+
+        _page = page;
+        _pageBytes = _memory.getReadPage(page);
+        _pageOffset = _memory.getReadPageOffset(page);
+        _romBankOffset = -1;
+
+        if (_pageBytes == null && _romBytes != null &&
+                pageStart >= ROMX_START && pageStart < ROMX_END) {
+            _romBankOffset = _mbc.getRomBankOffset();
+            _pageBytes = _romBytes;
+            _pageOffset = _romBankOffset + pageStart - ROMX_START;
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package cpu;
 
-import util.Util;
-
 /**
  * Manages the four flags in the hidden F register.
+ *
+ * Most instructions set all four flags, and most flags are overwritten by the
+ * next such instruction before anything reads them. So in lazy mode (the
+ * default), the ALU operations below only record the kind of operation and
+ * its operands; the flags are computed ("materialized") into F the first time
+ * anything reads them: a get*() call (conditional jumps, ADC/SBC, the
+ * debugger), a read of F or AF through the RegisterState, or a set*() call
+ * that only changes some of the flags.
+ *
+ * In eager mode every operation is materialized immediately, which is how
+ * the flags always used to behave.
  */
 public class Flags {
     // Which 8-bit register the flags register is
-    private final static int FLAGS_REG = 1;
+    final static int FLAGS_REG = 1;
 
     // Which bit index each flag is in the 8-bit flags register
     private final static int Z_INDEX = 7;
@@ -15,23 +24,147 @@ public class Flags {
     private final static int H_INDEX = 5;
     private final static int C_INDEX = 4;
 
+    // The bits of F that hold flags; the low nibble is left untouched.
+    private final static int FLAG_BITS = 0xF0;
+
+    // The kinds of pending operations.
+    private final static int PENDING_NONE = 0;
+    private final static int PENDING_ADD8 = 1;
+    private final static int PENDING_SUB8 = 2;
+    private final static int PENDING_LOGIC = 3;
+    private final static int PENDING_SHIFT = 4;
+
     private final RegisterState _state;
 
+    private boolean _lazy;
+
+    // The last operation whose flags haven't been materialized yet, along
+    // with its operands. What the operands mean depends on the kind; see the
+    // set*() methods that record them.
+    private int _pending;
+    private int _operand1;
+    private int _operand2;
+    private int _operand3;
+
     public Flags(RegisterState state) {
         _state = state;
+        _lazy = true;
+        _pending = PENDING_NONE;
+    }
+
+    public void setLazy(boolean lazy) {
+        materialize();
+        _lazy = lazy;
+    }
+
+    public boolean isLazy() {
+        return _lazy;
+    }
+
+    private static int bit(boolean value, int index) {
+        return value ? 1 << index : 0;
+    }
+
+    /*
+     * Computes the flags of the pending operation, if there is one, and
+     * stores them in F.
+     */
+    void materialize() {
+        int flags;
+        int a = _operand1;
+        int b = _operand2;
+        int carry = _operand3;
+
+        switch (_pending) {
+            case PENDING_NONE:
+                return;
+            case PENDING_ADD8:
+                flags = bit(((a + b + carry) & 0xFF) == 0, Z_INDEX) |
+                        bit((a & 0xF) + (b & 0xF) + carry > 0xF, H_INDEX) |
+                        bit(a + b + carry > 0xFF, C_INDEX);
+                break;
+            case PENDING_SUB8:
+                flags = bit(((a - b - carry) & 0xFF) == 0, Z_INDEX) |
+                        (1 << N_INDEX) |
+                        bit((a & 0xF) < (b & 0xF) + carry, H_INDEX) |
+                        bit(a < b + carry, C_INDEX);
+                break;
+            case PENDING_LOGIC:
+                // a is the result, b the half-carry flag
+                flags = bit(a == 0, Z_INDEX) | (b << H_INDEX);
+                break;
+            case PENDING_SHIFT:
+                // a is the result, b the carry flag
+                flags = bit(a == 0, Z_INDEX) | (b << C_INDEX);
+                break;
+            default:
+                throw new IllegalStateException("Unknown pending operation " + _pending);
+        }
+
+        _pending = PENDING_NONE;
+        _state.setRawR8(FLAGS_REG, (_state.getRawR8(FLAGS_REG) & ~FLAG_BITS) | flags);
     }
 
-    private byte getFlags() {
-        return _state.getR8(FLAGS_REG);
+    // Called when F is overwritten directly (e.g., POP AF), which replaces
+    // whatever the pending operation would have produced.
+    void discardPending() {
+        _pending = PENDING_NONE;
+    }
+
+    private void record(int kind, int operand1, int operand2, int operand3) {
+        _pending = kind;
+        _operand1 = operand1;
+        _operand2 = operand2;
+        _operand3 = operand3;
+
+        if (!_lazy)
+            materialize();
+    }
+
+    /*
+     * Sets the flags for the 8-bit addition a + b + carry, where a and b are
+     * unsigned bytes and carry is 0 or 1: Z, N = 0, H and C.
+     */
+    public void setAdd8(int a, int b, int carry) {
+        record(PENDING_ADD8, a, b, carry);
+    }
+
+    /*
+     * Sets the flags for the 8-bit subtraction a - b - carry, where a and b
+     * are unsigned bytes and carry is 0 or 1: Z, N = 1, and H and C as
+     * borrows.
+     */
+    public void setSub8(int a, int b, int carry) {
+        record(PENDING_SUB8, a, b, carry);
+    }
+
+    /*
+     * Sets the flags for AND, OR and XOR: Z from the (unsigned byte) result,
+     * N = 0, H = halfCarry and C = 0.
+     */
+    public void setLogic(int result, int halfCarry) {
+        record(PENDING_LOGIC, result, halfCarry, 0);
+    }
+
+    /*
+     * Sets the flags for rotates and shifts: Z from the (unsigned byte)
+     * result, N = 0, H = 0, and C = carry.
+     */
+    public void setShift(int result, int carry) {
+        record(PENDING_SHIFT, result, carry, 0);
     }
 
     private void setFlag(int bitIndex, int value) {
-        byte newFlags = Util.setBit(getFlags(), bitIndex, value);
-        _state.setR8(FLAGS_REG, newFlags);
+        materialize();
+
+        int flags = _state.getRawR8(FLAGS_REG);
+        flags = (flags & ~(1 << bitIndex)) | (value << bitIndex);
+        _state.setRawR8(FLAGS_REG, flags);
     }
 
     private int getFlag(int bitIndex) {
-        return Util.getBit(getFlags(), bitIndex);
+        materialize();
+        return (_state.getRawR8(FLAGS_REG) >> bitIndex) & 1;
     }
 
     public void setZ(int value) {
@@ -0,0 +1,123 @@
+package cpu;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps emulation in step with the host's clock by waiting at the end of each
+ * emulated frame until the host has caught up.
+ *
+ * Frame deadlines are computed from the previous deadline rather than from
+ * when the previous wait returned, so the time lost to oversleeping on one
+ * frame is made up on the next ones. If emulation falls more than MAX_LAG
+ * frames behind (e.g., the host was busy or a debugger paused it), the pacer
+ * gives up on catching up and starts over from the current time rather than
+ * running unthrottled until it has.
+ *
+ * The mode and multiplier may be changed from another thread while the
+ * emulator is running; the change is picked up at the end of the current
+ * frame.
+ */
+public class FramePacer {
+    // 1000 nanoseconds in a microsecond; each cycle takes 0.2384
+    // microseconds or 238.4 nanoseconds
+    public final static double NANO_SECONDS_PER_CYCLE = 238.4;
+
+    private final static int MAX_LAG = 4;
+
+    private final long _nanoSecondsPerFrame;
+
+    private volatile PacingMode _mode;
+    private volatile double _multiplier;
+
+    // Set by reset(), possibly from another thread, and handled by the
+    // emulator's thread at the end of the next frame.
+    private volatile boolean _resetRequested;
+
+    // The host time at which the current frame should end. Only used by the
+    // emulator's thread.
+    private long _deadline;
+
+    public FramePacer(int cyclesPerFrame) {
+        checkArgument(cyclesPerFrame > 0);
+
+        _nanoSecondsPerFrame = (long)(cyclesPerFrame * NANO_SECONDS_PER_CYCLE);
+        _mode = PacingMode.REAL_TIME;
+        _multiplier = 1;
+        _deadline = System.nanoTime();
+    }
+
+    public PacingMode getMode() {
+        return _mode;
+    }
+
+    public void setMode(PacingMode mode) {
+        _mode = checkNotNull(mode);
+        reset();
+    }
+
+    public double getMultiplier() {
+        return _multiplier;
+    }
+
+    /*
+     * Sets how many times faster than hardware to run in the MULTIPLIER mode.
+     * Values below 1 slow emulation down.
+     */
+    public void setMultiplier(double multiplier) {
+        checkArgument(multiplier > 0, "Multiplier must be positive: %s", multiplier);
+
+        _multiplier = multiplier;
+        reset();
+    }
+
+    /*
+     * Starts pacing over from the end of the current frame. Called whenever
+     * the pacing changes or emulation resumes after a pause, so that the time
+     * spent not emulating isn't treated as lag.
+     */
+    public void reset() {
+        _resetRequested = true;
+    }
+
+    private long getFrameNanoSeconds() {
+        switch (_mode) {
+            case MULTIPLIER:
+                return (long)(_nanoSecondsPerFrame / _multiplier);
+            case REAL_TIME:
+                return _nanoSecondsPerFrame;
+            default:
+                return 0;
+        }
+    }
+
+    /*
+     * Called at the end of each emulated frame. Waits until the frame's
+     * deadline unless the pacing mode is UNTHROTTLED.
+     */
+    public void endFrame() {
+        if (_resetRequested) {
+            _resetRequested = false;
+            _deadline = System.nanoTime();
+            return;
+        }
+
+        if (_mode == PacingMode.UNTHROTTLED)
+            return;
+
+        long frameNanoSeconds = getFrameNanoSeconds();
+        _deadline += frameNanoSeconds;
+
+        long remaining = _deadline - System.nanoTime();
+        if (remaining < -MAX_LAG * frameNanoSeconds) {
+            _deadline = System.nanoTime();
+            return;
+        }
+
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = _deadline - System.nanoTime();
+        }
+    }
+}
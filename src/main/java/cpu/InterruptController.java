@@ -0,0 +1,170 @@
+package cpu;
+
+import cpu.disassembler.instructions.MemoryInstructions;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Owns the interrupt registers: IF (0xFF0F, which interrupts have been
+ * requested), IE (0xFFFF, which ones are enabled) and the CPU's master enable
+ * flag (IME, set by EI and RETI and cleared by DI).
+ *
+ * The CPU asks needsService() at every instruction (or block) boundary, which
+ * is a single test of a field that's recomputed whenever IF, IE or IME
+ * change. It's nonzero when an enabled interrupt has been requested while
+ * IME is set, or when an EI is waiting to take effect, and only then does
+ * service() do any work.
+ *
+ * Interrupts are only requested by scheduled events (or by the CPU writing
+ * to IF), so the CPU can skip ahead to the scheduler's next event while
+ * halted or idle without missing one.
+ */
+public class InterruptController {
+    // Interrupts, as bit indices into IF and IE. Lower bits have priority.
+    public final static int VBLANK = 0;
+    public final static int LCD_STAT = 1;
+    public final static int TIMER = 2;
+    public final static int SERIAL = 3;
+    public final static int JOYPAD = 4;
+
+    private final static int NUM_INTERRUPTS = 5;
+    private final static int INTERRUPT_BITS = 0x1F;
+
+    // The upper bits of IF aren't used and always read as 1.
+    private final static int UNUSED_FLAG_BITS = 0xE0;
+
+    // Set in _pending (alongside the interrupt bits) while an EI is waiting
+    // to take effect.
+    private final static int ENABLE_PENDING = 0x100;
+
+    // Interrupt n jumps to FIRST_VECTOR + n * VECTOR_SPACING.
+    private final static int FIRST_VECTOR = 0x40;
+    private final static int VECTOR_SPACING = 8;
+
+    // Pushing PC and jumping to the vector takes as long as a CALL.
+    public final static int DISPATCH_CYCLES = 20;
+
+    private int _flags;
+    private byte _enabled;
+    private boolean _masterEnable;
+    private boolean _enablePending;
+
+    // The interrupts that would be dispatched at the next boundary, plus
+    // ENABLE_PENDING if an EI is waiting to take effect.
+    private int _pending;
+
+    // The number of interrupts dispatched since the emulator started.
+    private long _dispatched;
+
+    public InterruptController() {
+        _flags = 0;
+        _enabled = 0;
+        _masterEnable = false;
+        _enablePending = false;
+        update();
+    }
+
+    private void update() {
+        int dispatchable = _masterEnable ? _flags & _enabled & INTERRUPT_BITS : 0;
+        _pending = dispatchable | (_enablePending ? ENABLE_PENDING : 0);
+    }
+
+    // Sets the interrupt's bit in IF.
+    public void request(int interrupt) {
+        checkElementIndex(interrupt, NUM_INTERRUPTS);
+
+        _flags |= 1 << interrupt;
+        update();
+    }
+
+    public byte readFlags() {
+        return (byte)(_flags | UNUSED_FLAG_BITS);
+    }
+
+    public void writeFlags(byte value) {
+        _flags = value & INTERRUPT_BITS;
+        update();
+    }
+
+    public byte readEnabled() {
+        return _enabled;
+    }
+
+    public void writeEnabled(byte value) {
+        _enabled = value;
+        update();
+    }
+
+    public boolean isMasterEnabled() {
+        return _masterEnable;
+    }
+
+    /*
+     * Sets IME after the next instruction has executed, like EI. In the block
+     * execution modes that's after the next block instead.
+     */
+    public void enableAfterNextInstruction() {
+        if (!_masterEnable) {
+            _enablePending = true;
+            update();
+        }
+    }
+
+    // Sets IME immediately, like RETI.
+    public void enable() {
+        _masterEnable = true;
+        _enablePending = false;
+        update();
+    }
+
+    // Clears IME, along with any EI that hasn't taken effect yet.
+    public void disable() {
+        _masterEnable = false;
+        _enablePending = false;
+        update();
+    }
+
+    // Whether an enabled interrupt has been requested, regardless of IME.
+    // This is what wakes the CPU from HALT.
+    public boolean isRequested() {
+        return (_flags & _enabled & INTERRUPT_BITS) != 0;
+    }
+
+    // Whether service() has anything to do at this boundary.
+    public boolean needsService() {
+        return _pending != 0;
+    }
+
+    public long getDispatchCount() {
+        return _dispatched;
+    }
+
+    /*
+     * Called at an instruction boundary when needsService(). If an EI is
+     * waiting, it takes effect now (so the instruction after it still runs
+     * first). Otherwise dispatches the highest priority interrupt that's
+     * enabled and requested: clears its bit in IF and IME, pushes PC and
+     * jumps to its vector. Returns the number of cycles taken, which is 0 if
+     * nothing was dispatched.
+     */
+    public int service(EmulatorState state) {
+        if (_enablePending) {
+            enable();
+            return 0;
+        }
+
+        int interrupt = Integer.numberOfTrailingZeros(_pending);
+        if (interrupt >= NUM_INTERRUPTS)
+            return 0;
+
+        _flags &= ~(1 << interrupt);
+        _masterEnable = false;
+        update();
+
+        MemoryInstructions.push(state, (short)state.registerState.getPC());
+        state.registerState.setPC(FIRST_VECTOR + interrupt * VECTOR_SPACING);
+
+        _dispatched++;
+        return DISPATCH_CYCLES;
+    }
+}
@@ -0,0 +1,17 @@
+package cpu;
+
+/**
+ * How EmulatorState paces emulation against the host's clock. See FramePacer.
+ */
+public enum PacingMode {
+    // Run as fast as the host allows, never sleeping. Used for batch work
+    // such as tests and benchmarks.
+    UNTHROTTLED,
+
+    // Run at a fixed multiple of hardware speed (see
+    // EmulatorState.setSpeedMultiplier()).
+    MULTIPLIER,
+
+    // Run at hardware speed.
+    REAL_TIME
+}
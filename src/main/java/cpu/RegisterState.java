@@ -1,7 +1,5 @@
 package cpu;
 
-import util.Util;
-
 /**
  * Holds the register state of the CPU.
  *
@@ -18,39 +16,126 @@ import util.Util;
  *       SP        -       -
  *       PC        -       -
  *
- * All values in this class are stored in terms of the 8-bit components (even
- * the ones that aren't public-facing). Thus the register AF (16-bit index 0)
- * is composed of A (8-bit index 0) and another register with 8-bit index 1.
- * Similarly, HL (16-bit index 3) is composed of H (8-bit index 6) and L (8-bit
- * index 7).
+ * Values are stored as 16-bit pairs: AF, BC, DE and HL in an int array
+ * (16-bit indices 0..3) and SP and PC (16-bit indices 4 and 5) as plain int
+ * fields, so 16-bit accesses never split or join bytes. The 8-bit registers
+ * are the halves of the pairs: 8-bit index i is the high byte of pair i / 2
+ * when i is even and the low byte when it's odd. Thus the register AF (16-bit
+ * index 0) is composed of A (8-bit index 0) and another register with 8-bit
+ * index 1. Similarly, HL (16-bit index 3) is composed of H (8-bit index 6)
+ * and L (8-bit index 7).
  */
 public class RegisterState {
-    private final static int MAX_8BIT_REGS = 12;
+    private final static int NUM_PAIRS = 4;
+    private final static int AF_INDEX = 0;
+    private final static int SP_INDEX = 4;
+    private final static int PC_INDEX = 5;
+
+    // AF, BC, DE, HL, each in the range 0..0xFFFF.
+    private final int[] _pairs;
+    private int _sp;
+    private int _pc;
 
-    private final byte[] _r8Values;
     public final Flags flags;
 
     public RegisterState() {
-        _r8Values = new byte[MAX_8BIT_REGS];
+        _pairs = new int[NUM_PAIRS];
         flags = new Flags(this);
     }
 
+    public int getPC() {
+        return _pc;
+    }
+
+    public void setPC(int value) {
+        _pc = value & 0xFFFF;
+    }
+
+    public int getSP() {
+        return _sp;
+    }
+
+    public void setSP(int value) {
+        _sp = value & 0xFFFF;
+    }
+
+    // Returns the pair without materializing the flags.
+    private int getRawR16(int r16index) {
+        if (r16index < NUM_PAIRS)
+            return _pairs[r16index];
+
+        return r16index == SP_INDEX ? _sp : _pc;
+    }
+
+    private void setRawR16(int r16index, int value) {
+        value &= 0xFFFF;
+
+        if (r16index < NUM_PAIRS)
+            _pairs[r16index] = value;
+        else if (r16index == SP_INDEX)
+            _sp = value;
+        else
+            _pc = value;
+    }
+
+    // Used by Flags to access F without materializing or discarding.
+    int getRawR8(int r8index) {
+        int pair = getRawR16(r8index >> 1);
+        return (r8index & 1) == 0 ? pair >>> 8 : pair & 0xFF;
+    }
+
+    void setRawR8(int r8index, int value) {
+        int pair = getRawR16(r8index >> 1);
+        int newPair = (r8index & 1) == 0
+                ? ((value & 0xFF) << 8) | (pair & 0xFF)
+                : (pair & 0xFF00) | (value & 0xFF);
+
+        setRawR16(r8index >> 1, newPair);
+    }
+
+    // Reading F (or AF) materializes any pending flags first; writing it
+    // discards them. See Flags.
+    public int getR8Int(int r8index) {
+        if (r8index == Flags.FLAGS_REG)
+            flags.materialize();
+
+        return getRawR8(r8index);
+    }
+
+    public void setR8Int(int r8index, int value) {
+        if (r8index == Flags.FLAGS_REG)
+            flags.discardPending();
+
+        setRawR8(r8index, value);
+    }
+
+    public int getR16Int(int r16index) {
+        if (r16index == AF_INDEX)
+            flags.materialize();
+
+        return getRawR16(r16index);
+    }
+
+    public void setR16Int(int r16index, int value) {
+        if (r16index == AF_INDEX)
+            flags.discardPending();
+
+        setRawR16(r16index, value);
+    }
+
     public byte getR8(int r8index) {
-        return _r8Values[r8index];
+        return (byte)getR8Int(r8index);
     }
 
     public void setR8(int r8index, byte value) {
-        _r8Values[r8index] = value;
+        setR8Int(r8index, value);
     }
 
     public short getR16(int r16index) {
-        byte high = _r8Values[r16index * 2];
-        byte low = _r8Values[r16index * 2 + 1];
-        return Util.shortFromBytes(high, low);
+        return (short)getR16Int(r16index);
     }
 
     public void setR16(int r16index, short value) {
-        _r8Values[r16index * 2] = Util.shortToHighByte(value);
-        _r8Values[r16index * 2 + 1] = Util.shortToLowByte(value);
+        setR16Int(r16index, value);
     }
 }
@@ -0,0 +1,33 @@
+package cpu;
+
+/**
+ * What a bounded run of the emulator (e.g., EmulatorState.runForCycles())
+ * stopped for and how long it ran.
+ */
+public class RunResult {
+    public enum Status {
+        // The cycle budget was used up.
+        CYCLES_EXHAUSTED,
+
+        // An emulated frame ended, i.e., VBlank started.
+        FRAME_COMPLETED,
+
+        // PC reached the requested address.
+        PC_REACHED
+    }
+
+    public final Status status;
+
+    // The number of cycles executed during the run.
+    public final long cycles;
+
+    public RunResult(Status status, long cycles) {
+        this.status = status;
+        this.cycles = cycles;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s after %d cycles", status, cycles);
+    }
+}
@@ -0,0 +1,195 @@
+package cpu;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of the hardware events that happen at known points in time
+ * (measured in cycles since the emulator started) and runs them once the
+ * CPU's cycle counter reaches them.
+ *
+ * There's a small, fixed set of event kinds, and each kind is scheduled at
+ * most once at a time, so the queue is a binary min-heap of event ids over
+ * primitive arrays. Each event's position in the heap is tracked as well so
+ * that rescheduling or cancelling an event doesn't require a search.
+ *
+ * The CPU only needs to compare its cycle counter against
+ * getNextEventCycle() after each instruction; everything else happens when
+ * an event is actually due.
+ */
+public class Scheduler {
+    public final static int SCANLINE_END = 0;
+    public final static int TIMER_OVERFLOW = 1;
+
+    private final static int NUM_EVENTS = 2;
+
+    // Returned by getNextEventCycle() when nothing is scheduled.
+    public final static long NEVER = Long.MAX_VALUE;
+
+    public interface EventHandler {
+        /*
+         * Called when the event is due. cycle is the cycle the event was
+         * scheduled for, which may be slightly before the CPU's current cycle
+         * since instructions aren't interrupted. Periodic events should
+         * reschedule themselves relative to it so they don't drift.
+         */
+        void onEvent(int event, long cycle);
+    }
+
+    // The cycle each event is scheduled for, indexed by event id.
+    private final long[] _cycles;
+
+    // The heap of scheduled event ids, ordered by _cycles. Only the first
+    // _size entries are used.
+    private final int[] _heap;
+
+    // The index of each event in _heap, or -1 if it isn't scheduled.
+    private final int[] _positions;
+
+    private final EventHandler[] _handlers;
+    private final int _numEvents;
+    private int _size;
+
+    public Scheduler() {
+        this(NUM_EVENTS);
+    }
+
+    // Allows event ids 0..numEvents-1, so that tests can exercise the queue
+    // with more kinds of events than the emulator has.
+    Scheduler(int numEvents) {
+        _cycles = new long[numEvents];
+        _heap = new int[numEvents];
+        _positions = new int[numEvents];
+        _handlers = new EventHandler[numEvents];
+        _numEvents = numEvents;
+        _size = 0;
+
+        Arrays.fill(_positions, -1);
+    }
+
+    public void setHandler(int event, EventHandler handler) {
+        checkElementIndex(event, _numEvents);
+        _handlers[event] = handler;
+    }
+
+    /*
+     * Schedules the event for the given cycle, replacing the cycle it was
+     * previously scheduled for, if any.
+     */
+    public void schedule(int event, long cycle) {
+        checkElementIndex(event, _numEvents);
+
+        _cycles[event] = cycle;
+
+        int position = _positions[event];
+        if (position < 0) {
+            position = _size++;
+            _heap[position] = event;
+            _positions[event] = position;
+        }
+
+        // Only one of these will actually move the event.
+        siftUp(position);
+        siftDown(_positions[event]);
+    }
+
+    public void cancel(int event) {
+        checkElementIndex(event, _numEvents);
+
+        int position = _positions[event];
+        if (position < 0)
+            return;
+
+        _positions[event] = -1;
+        _size--;
+        if (position == _size)
+            return;
+
+        // Move the last event into the hole and restore the heap.
+        int last = _heap[_size];
+        _heap[position] = last;
+        _positions[last] = position;
+        siftUp(position);
+        siftDown(_positions[last]);
+    }
+
+    public boolean isScheduled(int event) {
+        checkElementIndex(event, _numEvents);
+        return _positions[event] >= 0;
+    }
+
+    // Returns the cycle the event is scheduled for. The event must be
+    // scheduled.
+    public long getEventCycle(int event) {
+        checkState(isScheduled(event), "Event %s is not scheduled", event);
+        return _cycles[event];
+    }
+
+    // The cycle of the earliest scheduled event, or NEVER.
+    public long getNextEventCycle() {
+        return _size == 0 ? NEVER : _cycles[_heap[0]];
+    }
+
+    /*
+     * Runs every event scheduled at or before the given cycle, in order. An
+     * event is removed from the queue before its handler is called, so the
+     * handler may schedule it again; if it's rescheduled at or before the
+     * given cycle it runs again.
+     */
+    public void runDueEvents(long cycle) {
+        while (_size > 0 && _cycles[_heap[0]] <= cycle) {
+            int event = _heap[0];
+            long scheduledCycle = _cycles[event];
+            cancel(event);
+
+            EventHandler handler = _handlers[event];
+            if (handler != null)
+                handler.onEvent(event, scheduledCycle);
+        }
+    }
+
+    private boolean before(int position1, int position2) {
+        return _cycles[_heap[position1]] < _cycles[_heap[position2]];
+    }
+
+    private void swap(int position1, int position2) {
+        int event1 = _heap[position1];
+        int event2 = _heap[position2];
+
+        _heap[position1] = event2;
+        _heap[position2] = event1;
+        _positions[event2] = position1;
+        _positions[event1] = position2;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!before(position, parent))
+                return;
+
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+
+            if (left < _size && before(left, smallest))
+                smallest = left;
+            if (right < _size && before(right, smallest))
+                smallest = right;
+
+            if (smallest == position)
+                return;
+
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package cpu;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * The timer registers: DIV (0xFF04), TIMA (0xFF05), TMA (0xFF06) and TAC
+ * (0xFF07).
+ *
+ * Nothing here ticks per instruction. DIV is the upper byte of a 16 bit
+ * divider that counts cycles, so it's computed from the cycle counter when
+ * it's read. TIMA counts falling edges of one of the divider's bits (picked
+ * by TAC), i.e., multiples of a fixed period since the divider was last
+ * reset, so it's kept as the value it had at some cycle and the ticks since
+ * then are added when it's read. The one thing that has to happen on time,
+ * TIMA overflowing (which reloads it from TMA and requests the timer
+ * interrupt), is the TIMER_OVERFLOW event, which is only rescheduled when
+ * the CPU writes to one of the registers or it runs.
+ *
+ * Accesses use the cycle counter as it is when the accessing instruction
+ * starts, so in the block execution modes BasicBlockCache makes sure such
+ * instructions start a block (see its class comment).
+ *
+ * The value TIMA has for a few cycles after it overflows, and the extra
+ * tick from changing TAC while the selected bit is set, aren't emulated.
+ */
+public class Timer implements Scheduler.EventHandler {
+    // The divider's value when the boot ROM hands over to the cartridge.
+    private final static int INITIAL_DIVIDER = 0xABCC;
+
+    private final static int TIMER_ENABLE_BIT = 0x04;
+    private final static int CLOCK_SELECT_BITS = 0x03;
+
+    // The unused upper bits of TAC always read as 1.
+    private final static int UNUSED_CONTROL_BITS = 0xF8;
+
+    // The number of cycles per TIMA tick, indexed by TAC's clock select bits
+    // (4096, 262144, 65536 and 16384 Hz).
+    private final static int[] TICK_PERIODS = { 1024, 16, 64, 256 };
+
+    private final EmulatorState _state;
+
+    // The cycle at which the divider was 0. Before the first write to DIV
+    // this is before the emulator started.
+    private long _dividerStart;
+
+    // TIMA's value at _timaCycle. Ticks after that are added when it's read.
+    private int _tima;
+    private long _timaCycle;
+
+    private int _tma;
+    private int _tac;
+
+    public Timer(EmulatorState state) {
+        _state = state;
+        _dividerStart = -INITIAL_DIVIDER;
+        _tima = 0;
+        _timaCycle = 0;
+        _tma = 0;
+        _tac = 0;
+
+        state.scheduler.setHandler(Scheduler.TIMER_OVERFLOW, this);
+    }
+
+    private boolean isEnabled() {
+        return (_tac & TIMER_ENABLE_BIT) != 0;
+    }
+
+    private int getTickPeriod() {
+        return TICK_PERIODS[_tac & CLOCK_SELECT_BITS];
+    }
+
+    // The number of multiples of the tick period the divider passes in
+    // (from, to]. Both cycles are at or after _dividerStart.
+    private long countTicks(long from, long to) {
+        int period = getTickPeriod();
+        return (to - _dividerStart) / period - (from - _dividerStart) / period;
+    }
+
+    // TIMA's value at the given cycle, which is before the next overflow.
+    private int getTima(long cycle) {
+        if (!isEnabled())
+            return _tima;
+
+        long tima = _tima + countTicks(_timaCycle, cycle);
+        checkState(tima <= 0xFF, "TIMA overflowed without an event");
+        return (int)tima;
+    }
+
+    // Brings TIMA up to the current cycle before a register changes.
+    private void sync() {
+        long now = _state.getCycles();
+        _tima = getTima(now);
+        _timaCycle = now;
+    }
+
+    private void scheduleOverflow() {
+        if (!isEnabled()) {
+            _state.scheduler.cancel(Scheduler.TIMER_OVERFLOW);
+            return;
+        }
+
+        int period = getTickPeriod();
+        long nextTick = _dividerStart + ((_timaCycle - _dividerStart) / period + 1) * period;
+        long overflowCycle = nextTick + (long)(0xFF - _tima) * period;
+        _state.scheduler.schedule(Scheduler.TIMER_OVERFLOW, overflowCycle);
+    }
+
+    public byte readDivider() {
+        return (byte)((_state.getCycles() - _dividerStart) >>> 8);
+    }
+
+    /*
+     * Any write resets the divider. If that takes the selected bit from 1 to
+     * 0, it's a falling edge, so TIMA ticks.
+     */
+    public void writeDivider(byte value) {
+        sync();
+
+        long now = _state.getCycles();
+        boolean selectedBitSet = (now - _dividerStart) % getTickPeriod() >= getTickPeriod() / 2;
+        if (isEnabled() && selectedBitSet) {
+            _tima++;
+            if (_tima > 0xFF) {
+                _tima = _tma;
+                _state.interrupts.request(InterruptController.TIMER);
+            }
+        }
+
+        _dividerStart = now;
+        scheduleOverflow();
+    }
+
+    public byte readCounter() {
+        return (byte)getTima(_state.getCycles());
+    }
+
+    public void writeCounter(byte value) {
+        sync();
+        _tima = value & 0xFF;
+        scheduleOverflow();
+    }
+
+    public byte readModulo() {
+        return (byte)_tma;
+    }
+
+    public void writeModulo(byte value) {
+        sync();
+        _tma = value & 0xFF;
+        scheduleOverflow();
+    }
+
+    public byte readControl() {
+        return (byte)(_tac | UNUSED_CONTROL_BITS);
+    }
+
+    public void writeControl(byte value) {
+        sync();
+        _tac = value & (TIMER_ENABLE_BIT | CLOCK_SELECT_BITS);
+        scheduleOverflow();
+    }
+
+    @Override
+    public void onEvent(int event, long cycle) {
+        checkArgument(event == Scheduler.TIMER_OVERFLOW, "Unexpected event %s", event);
+
+        // The overflow happens on a tick, so the next one is a period later.
+        _tima = _tma;
+        _timaCycle = cycle;
+        _state.interrupts.request(InterruptController.TIMER);
+        scheduleOverflow();
+    }
+}
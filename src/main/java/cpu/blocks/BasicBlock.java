@@ -0,0 +1,229 @@
+package cpu.blocks;
+
+import cpu.BreakpointSet;
+import cpu.EmulatorState;
+import cpu.disassembler.Instruction;
+
+/**
+ * A straight-line run of instructions that is always entered at its first
+ * instruction and can only leave through its last one (a JP, JR, CALL, RET,
+ * RST, HALT or STOP, or simply the instruction before a region boundary).
+ *
+ * Because no instruction other than the last one reads or modifies PC, the
+ * block only has to update PC once, right before its last instruction runs.
+ *
+ * Blocks that run often enough are compiled (see BlockCompiler); from then on
+ * every instruction but the last runs through the compiled body instead of
+ * the loop here.
+ */
+public class BasicBlock {
+    public final short startAddress;
+
+    // The address immediately after the last instruction
+    public final int endAddress;
+
+    private final Instruction[] _instructions;
+
+    // _addresses[i] is the address of _instructions[i]
+    private final int[] _addresses;
+
+    // _minimumCycles[i] is the minimum cycles of _instructions[i]
+    private final int[] _minimumCycles;
+
+    // The sum of _minimumCycles
+    private final int _totalMinimumCycles;
+
+    // See IdleLoops.
+    private final boolean _idleLoop;
+
+    // Cleared when code covered by this block is overwritten.
+    private boolean _valid;
+
+    // Set while executing when the remaining instructions must not run, i.e.,
+    // when the block is invalidated or the ROM bank under it is switched.
+    private boolean _stopRequested;
+
+    // The number of times this block has been executed.
+    private int _executions;
+
+    // The number of instructions the most recent execute() ran.
+    private int _lastExecuted;
+
+    // Null until the block has been compiled.
+    private CompiledBlock _compiled;
+    private boolean _compileAttempted;
+
+    BasicBlock(short startAddress, int endAddress, Instruction[] instructions,
+               int[] addresses, int[] minimumCycles) {
+        this.startAddress = startAddress;
+        this.endAddress = endAddress;
+
+        _instructions = instructions;
+        _addresses = addresses;
+        _minimumCycles = minimumCycles;
+
+        int total = 0;
+        for (int cycles : minimumCycles)
+            total += cycles;
+        _totalMinimumCycles = total;
+
+        _idleLoop = IdleLoops.isIdleLoop(instructions);
+        _valid = true;
+    }
+
+    public int getNumInstructions() {
+        return _instructions.length;
+    }
+
+    // The fewest cycles executing the whole block can take.
+    public int getTotalMinimumCycles() {
+        return _totalMinimumCycles;
+    }
+
+    /*
+     * Whether the block only polls memory that changes through scheduled
+     * events. If such a block jumps back to its own start, it keeps doing so
+     * until the next event runs. See IdleLoops.
+     */
+    public boolean isIdleLoop() {
+        return _idleLoop;
+    }
+
+    public boolean isValid() {
+        return _valid;
+    }
+
+    void invalidate() {
+        _valid = false;
+        _stopRequested = true;
+    }
+
+    // Stops the block after the currently executing instruction.
+    void requestStop() {
+        _stopRequested = true;
+    }
+
+    /*
+     * Whether the block must stop after the instruction that just executed.
+     * Public only so that compiled bodies, which are loaded by their own
+     * class loader, can call it.
+     */
+    public boolean shouldStop() {
+        return _stopRequested;
+    }
+
+    int getExecutions() {
+        return _executions;
+    }
+
+    // The number of instructions the most recent execute() ran, which is
+    // fewer than getNumInstructions() if the block stopped early.
+    public int getLastExecutedInstructions() {
+        return _lastExecuted;
+    }
+
+    Instruction[] getInstructions() {
+        return _instructions;
+    }
+
+    boolean isCompiled() {
+        return _compiled != null;
+    }
+
+    boolean isCompileAttempted() {
+        return _compileAttempted;
+    }
+
+    // compiled may be null if the block couldn't be compiled.
+    void setCompiled(CompiledBlock compiled) {
+        _compiled = compiled;
+        _compileAttempted = true;
+    }
+
+    boolean covers(int address) {
+        return address >= (startAddress & 0xFFFF) && address < endAddress;
+    }
+
+    /*
+     * Whether an instruction other than the first starts at the given
+     * address, i.e., whether executing the block runs past that address
+     * without stopping there.
+     */
+    public boolean hasInteriorInstructionAt(int address) {
+        if (!covers(address))
+            return false;
+
+        for (int i = 1; i < _addresses.length; i++)
+            if (_addresses[i] == address)
+                return true;
+
+        return false;
+    }
+
+    // Whether an instruction other than the first starts at an address in
+    // the set (with the current ROM bank mapping).
+    public boolean hasInteriorInstructionIn(BreakpointSet breakpoints) {
+        for (int i = 1; i < _addresses.length; i++)
+            if (breakpoints.contains((short)_addresses[i]))
+                return true;
+
+        return false;
+    }
+
+    /*
+     * Executes every instruction in the block and returns the exact number of
+     * cycles they took.
+     *
+     * If the block overwrites its own code or switches the ROM bank under
+     * itself, it stops after the instruction that did so, leaving PC at the
+     * next instruction so that the (re-decoded) remainder runs next.
+     */
+    public int execute(EmulatorState state) {
+        int last = _instructions.length - 1;
+
+        _executions++;
+        _stopRequested = false;
+
+        int executed;
+        if (_compiled != null) {
+            executed = _compiled.executeBody(state);
+        } else {
+            executed = 0;
+            while (executed < last) {
+                _instructions[executed++].execute(state);
+                if (_stopRequested)
+                    break;
+            }
+        }
+
+        if (_stopRequested) {
+            _lastExecuted = executed;
+            state.registerState.setPC(_addresses[executed]);
+            return cyclesThrough(executed - 1);
+        }
+
+        _lastExecuted = _instructions.length;
+
+        int lastAddress = _addresses[last];
+        state.registerState.setPC(lastAddress);
+
+        Instruction instr = _instructions[last];
+        int cycles = _totalMinimumCycles + instr.getAdditionalCycles(state);
+        instr.execute(state);
+
+        if (state.registerState.getPC() == lastAddress)
+            state.registerState.setPC(endAddress);
+
+        return cycles;
+    }
+
+    // The minimum cycles of instructions 0..index. None of them have
+    // additional cycles, since only the last instruction can branch.
+    private int cyclesThrough(int index) {
+        int cycles = 0;
+        for (int i = 0; i <= index; i++)
+            cycles += _minimumCycles[i];
+
+        return cycles;
+    }
+}
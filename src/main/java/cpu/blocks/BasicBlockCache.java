@@ -0,0 +1,290 @@
+package cpu.blocks;
+
+import cpu.disassembler.Instruction;
+import cpu.disassembler.InstructionDecoder;
+import cpu.disassembler.instruction_args.ByteOperand;
+import cpu.disassembler.instruction_args.BytePointer;
+import cpu.disassembler.instructions.MemoryInstructions;
+import memory.Memory;
+import memory.WriteWatcher;
+import memory.components.memory_bank_controllers.MemoryBankController;
+import util.ByteScanner;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.util.Arrays;
+
+/**
+ * Builds BasicBlocks on demand and caches them by start address.
+ *
+ * Blocks in the cartridge ROM are keyed by ROM bank, just like DecodeCache,
+ * and never need to be invalidated. Blocks are also built for code running in
+ * WRAM (0xC000-0xDFFF) and HRAM (0xFF80-0xFFFE), which games use for things
+ * like DMA routines. Every byte covered by a RAM block is watched in Memory;
+ * when one is written, every block covering it is invalidated and dropped so
+ * that the next lookup rebuilds it from the new bytes.
+ *
+ * Code anywhere else (e.g., VRAM or cartridge RAM) is left to the
+ * interpreter.
+ *
+ * Writes to ROM (i.e., to the MemoryBankController) are watched as well: if
+ * the block that is running lives in the switchable bank, it stops after the
+ * write so that the rest of the code is read from the newly mapped bank.
+ *
+ * A block's cycles are only added once it has run, so its instructions all
+ * see the cycle counter as it was when the block started. That's fine for
+ * memory, but the timer registers (FF04..FF07) are computed from the cycle
+ * counter, so instructions that may access them (loads from or to them, or
+ * through FF00+C) always start a block of their own, which makes them run on
+ * the same cycle they would in the interpreter. Timer accesses through other
+ * registers (e.g., LD A, (HL) with HL = FF05) aren't recognized.
+ *
+ * If given a compile threshold, blocks that have executed that many times are
+ * compiled by BlockCompiler the next time they're looked up.
+ */
+public class BasicBlockCache implements WriteWatcher {
+    private final static int BANK_SIZE = 0x4000;
+
+    // Blocks stop after this many instructions even if they haven't reached a
+    // branch, which bounds how far back invalidation has to look.
+    private final static int MAX_INSTRUCTIONS = 64;
+    private final static int MAX_INSTRUCTION_LENGTH = 3;
+    private final static int MAX_BLOCK_LENGTH = MAX_INSTRUCTIONS * MAX_INSTRUCTION_LENGTH;
+
+    private final static int ROM_END = 2 * BANK_SIZE;
+
+    private final static int WRAM_START = 0xC000;
+    private final static int WRAM_END = 0xE000;
+    private final static int HRAM_START = 0xFF80;
+    private final static int HRAM_END = 0xFFFF;
+
+    private final static int TIMER_START = 0xFF04;
+    private final static int TIMER_END = 0xFF08;
+
+    private final static int WRAM_SIZE = WRAM_END - WRAM_START;
+    private final static int HRAM_SIZE = HRAM_END - HRAM_START;
+
+    private final InstructionDecoder _decoder;
+    private final ByteScanner _scanner;
+    private final Memory _memory;
+    private final MemoryBankController _mbc;
+
+    // One array of BANK_SIZE entries per ROM bank, allocated the first time
+    // code in that bank is executed. Null if there's no cartridge.
+    private final BasicBlock[][] _romBanks;
+
+    // Indexed by ramIndex(address): WRAM followed by HRAM.
+    private final BasicBlock[] _ramBlocks;
+
+    // The number of cached RAM blocks covering each RAM byte. A byte is
+    // watched in Memory exactly when its count is non-zero.
+    private final int[] _coverage;
+
+    // The number of executions after which a block is compiled, or 0 if
+    // blocks should never be compiled.
+    private final int _compileThreshold;
+    private final BlockCompiler _compiler;
+
+    // The block most recently returned by lookup(), i.e., the one that is
+    // executing.
+    private BasicBlock _current;
+
+    public BasicBlockCache(InstructionDecoder decoder, ByteScanner scanner, Memory memory) {
+        this(decoder, scanner, memory, 0);
+    }
+
+    public BasicBlockCache(InstructionDecoder decoder, ByteScanner scanner, Memory memory,
+                           int compileThreshold) {
+        checkArgument(compileThreshold >= 0);
+
+        _decoder = decoder;
+        _scanner = scanner;
+        _memory = memory;
+        _mbc = memory.mbc;
+
+        _romBanks = _mbc == null ? null : new BasicBlock[_mbc.getNumRomBanks()][];
+        _ramBlocks = new BasicBlock[WRAM_SIZE + HRAM_SIZE];
+        _coverage = new int[WRAM_SIZE + HRAM_SIZE];
+
+        _compileThreshold = compileThreshold;
+        _compiler = compileThreshold > 0 ? new BlockCompiler() : null;
+
+        memory.setWriteWatcher(this);
+        if (_mbc != null)
+            for (int address = 0; address < ROM_END; address++)
+                memory.setWatched((short)address, true);
+    }
+
+    // Returns the index of the address into the RAM tables, or -1 if blocks
+    // aren't built for code at that address.
+    private static int ramIndex(int address) {
+        if (address >= WRAM_START && address < WRAM_END)
+            return address - WRAM_START;
+        if (address >= HRAM_START && address < HRAM_END)
+            return WRAM_SIZE + address - HRAM_START;
+        return -1;
+    }
+
+    // The address immediately after the region containing the given address.
+    // Blocks never extend past the end of their region.
+    private static int regionEnd(int address) {
+        if (address < BANK_SIZE)
+            return BANK_SIZE;
+        if (address < 2 * BANK_SIZE)
+            return 2 * BANK_SIZE;
+        if (address < WRAM_END)
+            return WRAM_END;
+        return HRAM_END;
+    }
+
+    /*
+     * Returns the block starting at the given address, building it if it
+     * isn't cached. Returns null if blocks can't be built for that address, in
+     * which case the caller should interpret the instruction instead.
+     */
+    public BasicBlock lookup(short address) {
+        BasicBlock block = find(address);
+
+        if (block != null && _compiler != null && !block.isCompileAttempted() &&
+                block.getExecutions() >= _compileThreshold)
+            block.setCompiled(_compiler.compile(block));
+
+        _current = block;
+        return block;
+    }
+
+    private BasicBlock find(short address) {
+        int start = address & 0xFFFF;
+
+        if (MemoryBankController.isRomAddress(address)) {
+            if (_romBanks == null)
+                return null;
+
+            int bank = _mbc.getMappedRomBank(address);
+            BasicBlock[] entries = _romBanks[bank];
+            if (entries == null) {
+                entries = new BasicBlock[BANK_SIZE];
+                _romBanks[bank] = entries;
+            }
+
+            int index = start % BANK_SIZE;
+            if (entries[index] == null)
+                entries[index] = build(start);
+
+            return entries[index];
+        }
+
+        int index = ramIndex(start);
+        if (index < 0)
+            return null;
+
+        if (_ramBlocks[index] == null) {
+            BasicBlock block = build(start);
+            if (block == null)
+                return null;
+
+            _ramBlocks[index] = block;
+            setCoverage(block, 1);
+        }
+
+        return _ramBlocks[index];
+    }
+
+    private BasicBlock build(int start) {
+        int end = regionEnd(start);
+
+        Instruction[] instructions = new Instruction[MAX_INSTRUCTIONS];
+        int[] addresses = new int[MAX_INSTRUCTIONS];
+        int[] cycles = new int[MAX_INSTRUCTIONS];
+        int count = 0;
+
+        int address = start;
+        while (count < MAX_INSTRUCTIONS && address < end) {
+            _scanner.seek(address);
+            if (!_decoder.canDecode(_scanner))
+                break;
+
+            Instruction instr = _decoder.decodeNext(_scanner);
+            if (_scanner.getIndex() > end)
+                break;
+
+            // Leave it to start the next block. See the class comment.
+            if (count > 0 && mayAccessTimer(instr))
+                break;
+
+            instructions[count] = instr;
+            addresses[count] = address;
+            cycles[count] = _decoder.getLastMinimumCycles();
+            count++;
+
+            address = _scanner.getIndex();
+            if (instr.endsBasicBlock())
+                break;
+        }
+
+        if (count == 0)
+            return null;
+
+        return new BasicBlock((short)start, address,
+                Arrays.copyOf(instructions, count),
+                Arrays.copyOf(addresses, count),
+                Arrays.copyOf(cycles, count));
+    }
+
+    private static boolean isTimerPointer(ByteOperand operand) {
+        if (!(operand instanceof BytePointer))
+            return false;
+
+        int address = ((BytePointer)operand).getAddress() & 0xFFFF;
+        return address >= TIMER_START && address < TIMER_END;
+    }
+
+    private static boolean mayAccessTimer(Instruction instr) {
+        if (instr instanceof MemoryInstructions.LdIoPortInstruction)
+            return true;
+        if (!(instr instanceof MemoryInstructions.Ld8Instruction))
+            return false;
+
+        MemoryInstructions.Ld8Instruction load = (MemoryInstructions.Ld8Instruction)instr;
+        return isTimerPointer(load.getSrc()) || isTimerPointer(load.getDest());
+    }
+
+    // Adds delta to the coverage count of every byte in the block, watching
+    // or unwatching bytes as their counts become non-zero or zero.
+    private void setCoverage(BasicBlock block, int delta) {
+        for (int address = block.startAddress & 0xFFFF; address < block.endAddress; address++) {
+            int index = ramIndex(address);
+            _coverage[index] += delta;
+            _memory.setWatched((short)address, _coverage[index] != 0);
+        }
+    }
+
+    @Override
+    public void onWatchedWrite(short address) {
+        int written = address & 0xFFFF;
+
+        if (written < ROM_END) {
+            if (_current != null && (_current.startAddress & 0xFFFF) >= BANK_SIZE &&
+                    (_current.startAddress & 0xFFFF) < ROM_END)
+                _current.requestStop();
+            return;
+        }
+
+        // Any block covering this address starts at most MAX_BLOCK_LENGTH
+        // bytes before it.
+        int first = Math.max(written - MAX_BLOCK_LENGTH + 1, 0);
+        for (int start = first; start <= written; start++) {
+            int index = ramIndex(start);
+            if (index < 0)
+                continue;
+
+            BasicBlock block = _ramBlocks[index];
+            if (block == null || !block.covers(written))
+                continue;
+
+            block.invalidate();
+            _ramBlocks[index] = null;
+            setCoverage(block, -1);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package cpu.blocks;
+
+import cpu.EmulatorState;
+import cpu.disassembler.Instruction;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Modifier;
+
+/**
+ * Compiles the body of a hot BasicBlock (every instruction but the last) into
+ * a class implementing CompiledBlock.
+ *
+ * The generated executeBody() is the block's loop unrolled: one field per
+ * instruction, typed as that instruction's concrete class, and one direct
+ * call to its execute() followed by a shouldStop() check. Each generated call
+ * site only ever sees a single receiver class, so the JVM's JIT can inline
+ * the instructions into a single method and optimize across them, which it
+ * can't do for the shared, megamorphic call in BasicBlock.execute().
+ *
+ * Each class gets its own class loader so that it can be unloaded once its
+ * block is dropped (e.g., after being invalidated).
+ */
+class BlockCompiler {
+    private final static String COMPILED_BLOCK = internalName(CompiledBlock.class);
+    private final static String BASIC_BLOCK = internalName(BasicBlock.class);
+    private final static String EXECUTE_DESCRIPTOR =
+            "(" + descriptor(EmulatorState.class) + ")V";
+
+    private final static String BLOCK_FIELD = "block";
+    private final static String INSTRUCTION_FIELD_PREFIX = "i";
+
+    private final static int ALOAD_0 = 0x2A;
+    private final static int ALOAD_1 = 0x2B;
+    private final static int BIPUSH = 0x10;
+    private final static int IRETURN = 0xAC;
+    private final static int RETURN = 0xB1;
+    private final static int GETFIELD = 0xB4;
+    private final static int INVOKEVIRTUAL = 0xB6;
+    private final static int INVOKESPECIAL = 0xB7;
+    private final static int IFEQ = 0x99;
+
+    // Used to give every generated class a unique name.
+    private int _numCompiled;
+
+    private static class BlockClassLoader extends ClassLoader {
+        BlockClassLoader() {
+            super(BlockCompiler.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    private static String internalName(Class<?> c) {
+        return c.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class<?> c) {
+        return "L" + internalName(c) + ";";
+    }
+
+    // The type to call execute() through: the instruction's own class if the
+    // generated class can access it, and Instruction otherwise.
+    private static Class<?> callType(Instruction instr) {
+        Class<?> c = instr.getClass();
+        return Modifier.isPublic(c.getModifiers()) ? c : Instruction.class;
+    }
+
+    /*
+     * Returns the compiled body of the block, or null if compiling it
+     * wouldn't help (i.e., the block is a single instruction).
+     */
+    CompiledBlock compile(BasicBlock block) {
+        Instruction[] instructions = block.getInstructions();
+        int bodyLength = instructions.length - 1;
+        if (bodyLength == 0)
+            return null;
+
+        String name = String.format("cpu.blocks.CompiledBlock$%04X$%d",
+                block.startAddress & 0xFFFF, _numCompiled++);
+        String internal = name.replace('.', '/');
+
+        ClassFileWriter writer = new ClassFileWriter(internal, "java/lang/Object",
+                COMPILED_BLOCK);
+
+        int access = ClassFileWriter.ACC_PUBLIC;
+        writer.addField(access, BLOCK_FIELD, descriptor(BasicBlock.class));
+        for (int i = 0; i < bodyLength; i++)
+            writer.addField(access, INSTRUCTION_FIELD_PREFIX + i,
+                    descriptor(callType(instructions[i])));
+
+        writer.addMethod(access, "<init>", "()V", 1, 1, constructorCode(writer));
+        writer.addMethod(access, "executeBody", "(" + descriptor(EmulatorState.class) + ")I",
+                2, 2, bodyCode(writer, internal, instructions, bodyLength));
+
+        Class<?> c = new BlockClassLoader().define(name, writer.toByteArray());
+        try {
+            CompiledBlock compiled = (CompiledBlock)c.getConstructor().newInstance();
+
+            c.getField(BLOCK_FIELD).set(compiled, block);
+            for (int i = 0; i < bodyLength; i++)
+                c.getField(INSTRUCTION_FIELD_PREFIX + i).set(compiled, instructions[i]);
+
+            return compiled;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to instantiate " + name, e);
+        }
+    }
+
+    private static void writeU2(ByteArrayOutputStream code, int value) {
+        code.write(value >> 8);
+        code.write(value);
+    }
+
+    private static byte[] constructorCode(ClassFileWriter writer) {
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+
+        code.write(ALOAD_0);
+        code.write(INVOKESPECIAL);
+        writeU2(code, writer.methodConstant("java/lang/Object", "<init>", "()V"));
+        code.write(RETURN);
+
+        return code.toByteArray();
+    }
+
+    /*
+     * For each instruction i of the body:
+     *     this.i<i>.execute(state);
+     *     if (this.block.shouldStop())
+     *         return i + 1;
+     * and finally:
+     *     return bodyLength;
+     */
+    private static byte[] bodyCode(ClassFileWriter writer, String owner,
+                                   Instruction[] instructions, int bodyLength) {
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+
+        int blockField = writer.fieldConstant(owner, BLOCK_FIELD, descriptor(BasicBlock.class));
+        int shouldStop = writer.methodConstant(BASIC_BLOCK, "shouldStop", "()Z");
+
+        for (int i = 0; i < bodyLength; i++) {
+            Class<?> type = callType(instructions[i]);
+
+            code.write(ALOAD_0);
+            code.write(GETFIELD);
+            writeU2(code, writer.fieldConstant(owner, INSTRUCTION_FIELD_PREFIX + i,
+                    descriptor(type)));
+            code.write(ALOAD_1);
+            code.write(INVOKEVIRTUAL);
+            writeU2(code, writer.methodConstant(internalName(type), "execute",
+                    EXECUTE_DESCRIPTOR));
+
+            code.write(ALOAD_0);
+            code.write(GETFIELD);
+            writeU2(code, blockField);
+            code.write(INVOKEVIRTUAL);
+            writeU2(code, shouldStop);
+
+            // Skip the bipush and ireturn below if shouldStop() was false.
+            code.write(IFEQ);
+            writeU2(code, 6);
+
+            code.write(BIPUSH);
+            code.write(i + 1);
+            code.write(IRETURN);
+        }
+
+        code.write(BIPUSH);
+        code.write(bodyLength);
+        code.write(IRETURN);
+
+        return code.toByteArray();
+    }
+}
@@ -0,0 +1,200 @@
+package cpu.blocks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the bare minimum of the JVM class file format that BlockCompiler
+ * needs: a public final class with fields and methods whose bytecode is
+ * supplied by the caller.
+ *
+ * Classes are written as version 49 (Java 5) so that no StackMapTable
+ * attributes are needed; the JVM verifies them by type inference instead.
+ *
+ * All names use the internal form, e.g., "cpu/EmulatorState".
+ */
+class ClassFileWriter {
+    private final static int MAGIC = 0xCAFEBABE;
+    private final static int MAJOR_VERSION = 49;
+
+    final static int ACC_PUBLIC = 0x0001;
+    final static int ACC_FINAL = 0x0010;
+    final static int ACC_SUPER = 0x0020;
+
+    private final static int CONSTANT_UTF8 = 1;
+    private final static int CONSTANT_CLASS = 7;
+    private final static int CONSTANT_FIELDREF = 9;
+    private final static int CONSTANT_METHODREF = 10;
+    private final static int CONSTANT_NAME_AND_TYPE = 12;
+
+    // Constant pool entries, already serialized, and their indices keyed by
+    // a description of the entry so that each is only written once.
+    private final ByteArrayOutputStream _pool;
+    private final DataOutputStream _poolOut;
+    private final Map<String, Integer> _poolIndices;
+    private int _poolCount;
+
+    private final int _thisClass;
+    private final int _superClass;
+    private final List<Integer> _interfaces;
+    private final List<byte[]> _fields;
+    private final List<byte[]> _methods;
+
+    ClassFileWriter(String name, String superName, String... interfaceNames) {
+        _pool = new ByteArrayOutputStream();
+        _poolOut = new DataOutputStream(_pool);
+        _poolIndices = new HashMap<String, Integer>();
+        _poolCount = 1;
+
+        _thisClass = classConstant(name);
+        _superClass = classConstant(superName);
+
+        _interfaces = new ArrayList<Integer>();
+        for (String interfaceName : interfaceNames)
+            _interfaces.add(classConstant(interfaceName));
+
+        _fields = new ArrayList<byte[]>();
+        _methods = new ArrayList<byte[]>();
+    }
+
+    // Returns the index of the entry described by key, writing the entry
+    // with the given tag and two-byte operands if it isn't in the pool yet.
+    private int constant(String key, int tag, int... operands) {
+        Integer index = _poolIndices.get(key);
+        if (index != null)
+            return index;
+
+        try {
+            _poolOut.writeByte(tag);
+            for (int operand : operands)
+                _poolOut.writeShort(operand);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        _poolIndices.put(key, _poolCount);
+        return _poolCount++;
+    }
+
+    int utf8Constant(String value) {
+        String key = "U" + value;
+        Integer index = _poolIndices.get(key);
+        if (index != null)
+            return index;
+
+        try {
+            _poolOut.writeByte(CONSTANT_UTF8);
+            _poolOut.writeUTF(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        _poolIndices.put(key, _poolCount);
+        return _poolCount++;
+    }
+
+    int classConstant(String name) {
+        return constant("C" + name, CONSTANT_CLASS, utf8Constant(name));
+    }
+
+    private int memberConstant(int tag, String owner, String name, String descriptor) {
+        int classIndex = classConstant(owner);
+        int nameAndType = constant("N" + name + ":" + descriptor, CONSTANT_NAME_AND_TYPE,
+                utf8Constant(name), utf8Constant(descriptor));
+
+        return constant(tag + owner + "." + name + ":" + descriptor, tag,
+                classIndex, nameAndType);
+    }
+
+    int fieldConstant(String owner, String name, String descriptor) {
+        return memberConstant(CONSTANT_FIELDREF, owner, name, descriptor);
+    }
+
+    int methodConstant(String owner, String name, String descriptor) {
+        return memberConstant(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+
+    void addField(int access, String name, String descriptor) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8Constant(name));
+            out.writeShort(utf8Constant(descriptor));
+            out.writeShort(0);  // attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        _fields.add(bytes.toByteArray());
+    }
+
+    // code is the method's bytecode; it may not contain exception handlers.
+    void addMethod(int access, String name, String descriptor,
+                   int maxStack, int maxLocals, byte[] code) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8Constant(name));
+            out.writeShort(utf8Constant(descriptor));
+
+            out.writeShort(1);  // attributes
+            out.writeShort(utf8Constant("Code"));
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0);  // exception table
+            out.writeShort(0);  // attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        _methods.add(bytes.toByteArray());
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(0);  // minor version
+            out.writeShort(MAJOR_VERSION);
+
+            out.writeShort(_poolCount);
+            out.write(_pool.toByteArray());
+
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(_thisClass);
+            out.writeShort(_superClass);
+
+            out.writeShort(_interfaces.size());
+            for (int index : _interfaces)
+                out.writeShort(index);
+
+            out.writeShort(_fields.size());
+            for (byte[] field : _fields)
+                out.write(field);
+
+            out.writeShort(_methods.size());
+            for (byte[] method : _methods)
+                out.write(method);
+
+            out.writeShort(0);  // attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,19 @@
+package cpu.blocks;
+
+import cpu.EmulatorState;
+
+/**
+ * The compiled body of a BasicBlock: every instruction except the last one,
+ * generated by BlockCompiler as straight-line bytecode.
+ *
+ * Public only because the generated classes are loaded by their own class
+ * loader and so can't see package-private types.
+ */
+public interface CompiledBlock {
+    /*
+     * Executes the instructions of the block in order, stopping early if the
+     * block's shouldStop() becomes true. Returns the number of instructions
+     * that were executed.
+     */
+    public int executeBody(EmulatorState state);
+}
@@ -0,0 +1,121 @@
+package cpu.blocks;
+
+import cpu.disassembler.Instruction;
+import cpu.disassembler.instruction_args.ByteConst;
+import cpu.disassembler.instruction_args.ByteOperand;
+import cpu.disassembler.instruction_args.BytePointer;
+import cpu.disassembler.instruction_args.Register8;
+import cpu.disassembler.instructions.ArithmeticInstructions;
+import cpu.disassembler.instructions.BitwiseInstructions;
+import cpu.disassembler.instructions.MemoryInstructions;
+import cpu.disassembler.instructions.PCControlInstructions;
+
+/**
+ * Recognizes basic blocks that are idle loops: loops that poll memory until
+ * it changes, such as
+ *
+ *     LDH A, (FF44)
+ *     CP $90
+ *     JR NZ, -6
+ *
+ * A block is an idle loop if it
+ *   - starts by loading A from a fixed address whose value only changes when
+ *     the CPU writes to it or a scheduled event runs,
+ *   - then only loads A from such addresses, compares or tests A (CP, AND,
+ *     OR, XOR or BIT) against constants, registers or such addresses, or
+ *     does nothing (NOP),
+ *   - and ends with a conditional JR or JP.
+ *
+ * Such a block writes nothing but A and the flags, and A is reloaded before
+ * it's used, so each run of the block depends only on memory (and registers
+ * it never writes). If the block jumps back to its own start, it will keep
+ * doing so, taking the same number of cycles each time, until a scheduled
+ * event changes what it polls. Whether the jump actually goes back to the
+ * start is only known at run time, so EmulatorState checks that.
+ *
+ * Addresses that are read through a register (e.g., LD A, (HL)) aren't
+ * accepted. Neither are MMIO registers, except for those that are only
+ * changed by the CPU or by scheduled events (IF, LY and the LCD registers
+ * that just store what the CPU writes); others, like DIV or STAT, change
+ * over time without a scheduled event.
+ */
+final class IdleLoops {
+    private final static int MMIO_START = 0xFF00;
+    private final static int HRAM_START = 0xFF80;
+
+    private final static int INTERRUPT_FLAG_ADDRESS = 0xFF0F;
+    private final static int LCDC_ADDRESS = 0xFF40;
+
+    // SCY, SCX, LY, LYC, then (after DMA) the palettes, WY and WX.
+    private final static int LCD_REGISTERS_START = 0xFF42;
+    private final static int LCD_REGISTERS_END = 0xFF4C;
+    private final static int DMA_ADDRESS = 0xFF46;
+
+    private IdleLoops() {}
+
+    private static boolean isPolledAddress(short address) {
+        int unsigned = address & 0xFFFF;
+        if (unsigned < MMIO_START || unsigned >= HRAM_START)
+            return true;
+
+        if (unsigned == INTERRUPT_FLAG_ADDRESS || unsigned == LCDC_ADDRESS)
+            return true;
+
+        return unsigned >= LCD_REGISTERS_START && unsigned < LCD_REGISTERS_END &&
+                unsigned != DMA_ADDRESS;
+    }
+
+    private static boolean isPolledPointer(ByteOperand operand) {
+        return operand instanceof BytePointer &&
+                isPolledAddress(((BytePointer)operand).getAddress());
+    }
+
+    // Whether reading the operand doesn't depend on anything that changes
+    // over time, other than memory that's polled.
+    private static boolean isStableOperand(ByteOperand operand) {
+        return operand instanceof Register8 || operand instanceof ByteConst ||
+                isPolledPointer(operand);
+    }
+
+    private static boolean isLoadOfA(Instruction instr) {
+        if (!(instr instanceof MemoryInstructions.Ld8Instruction))
+            return false;
+
+        MemoryInstructions.Ld8Instruction load = (MemoryInstructions.Ld8Instruction)instr;
+        return load.getDest() == Register8.A && isPolledPointer(load.getSrc());
+    }
+
+    private static boolean isTest(Instruction instr) {
+        if (instr instanceof ArithmeticInstructions.CpInstruction)
+            return isStableOperand(((ArithmeticInstructions.CpInstruction)instr).getOperand());
+        if (instr instanceof BitwiseInstructions.AndInstruction)
+            return isStableOperand(((BitwiseInstructions.AndInstruction)instr).getOperand());
+        if (instr instanceof BitwiseInstructions.OrInstruction)
+            return isStableOperand(((BitwiseInstructions.OrInstruction)instr).getOperand());
+        if (instr instanceof BitwiseInstructions.XorInstruction)
+            return isStableOperand(((BitwiseInstructions.XorInstruction)instr).getOperand());
+        if (instr instanceof BitwiseInstructions.BitInstruction)
+            return isStableOperand(((BitwiseInstructions.BitInstruction)instr).getOperand());
+        return instr instanceof PCControlInstructions.NopInstruction;
+    }
+
+    private static boolean isConditionalJump(Instruction instr) {
+        if (instr instanceof PCControlInstructions.JrInstruction)
+            return ((PCControlInstructions.JrInstruction)instr).isConditional();
+        if (instr instanceof PCControlInstructions.JpInstruction)
+            return ((PCControlInstructions.JpInstruction)instr).isConditional();
+        return false;
+    }
+
+    static boolean isIdleLoop(Instruction[] instructions) {
+        int last = instructions.length - 1;
+        if (last < 1 || !isLoadOfA(instructions[0]) || !isConditionalJump(instructions[last]))
+            return false;
+
+        for (int i = 1; i < last; i++)
+            if (!isLoadOfA(instructions[i]) && !isTest(instructions[i]))
+                return false;
+
+        return true;
+    }
+}
@@ -0,0 +1,79 @@
+package cpu.disassembler;
+
+import memory.components.memory_bank_controllers.MemoryBankController;
+import util.ByteScanner;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Caches decoded instructions located in the cartridge ROM, keyed by ROM bank
+ * and address.
+ *
+ * ROM is never written to, so a decoded instruction is valid for as long as
+ * its bank exists. Switching banks doesn't invalidate anything either: the
+ * lookup simply uses whichever bank the MemoryBankController currently has
+ * mapped to the address. The only instructions we don't cache are those that
+ * straddle two banks (e.g., starting at 0x3FFF), since their bytes depend on
+ * the mapping of more than one bank.
+ */
+public class DecodeCache {
+    private final static int BANK_SIZE = 0x4000;
+
+    private final InstructionDecoder _decoder;
+    private final ByteScanner _scanner;
+    private final MemoryBankController _mbc;
+
+    // One array of BANK_SIZE entries per ROM bank, allocated the first time
+    // code in that bank is executed.
+    private final DecodedInstruction[][] _banks;
+
+    public DecodeCache(InstructionDecoder decoder, ByteScanner scanner, MemoryBankController mbc) {
+        checkNotNull(mbc, "The decode cache requires a MemoryBankController");
+
+        _decoder = decoder;
+        _scanner = scanner;
+        _mbc = mbc;
+        _banks = new DecodedInstruction[mbc.getNumRomBanks()][];
+    }
+
+    // Whether instructions at this address can be looked up in the cache.
+    public boolean isCacheable(short address) {
+        return MemoryBankController.isRomAddress(address);
+    }
+
+    /*
+     * Returns the decoded instruction at the given ROM address in the
+     * currently mapped bank, decoding it first if it hasn't been seen. Does
+     * not modify the position of the scanner that the caller sees as
+     * meaningful; callers should seek before using the scanner again.
+     */
+    public DecodedInstruction lookup(short address) {
+        int bank = _mbc.getMappedRomBank(address);
+        int index = (address & 0xFFFF) % BANK_SIZE;
+
+        DecodedInstruction[] entries = _banks[bank];
+        if (entries == null) {
+            entries = new DecodedInstruction[BANK_SIZE];
+            _banks[bank] = entries;
+        }
+
+        DecodedInstruction ret = entries[index];
+        if (ret == null) {
+            ret = decode(address);
+
+            if (index + ret.length <= BANK_SIZE)
+                entries[index] = ret;
+        }
+
+        return ret;
+    }
+
+    private DecodedInstruction decode(short address) {
+        int start = address & 0xFFFF;
+        _scanner.seek(start);
+
+        Instruction instr = _decoder.decodeNext(_scanner);
+        return new DecodedInstruction(instr, _scanner.getIndex() - start,
+                _decoder.getLastMinimumCycles());
+    }
+}
@@ -0,0 +1,17 @@
+package cpu.disassembler;
+
+/**
+ * An instruction as decoded from a particular location, along with how many
+ * bytes it occupied and the minimum number of cycles it takes to execute.
+ */
+public class DecodedInstruction {
+    public final Instruction instruction;
+    public final int length;
+    public final int minimumCycles;
+
+    public DecodedInstruction(Instruction instruction, int length, int minimumCycles) {
+        this.instruction = instruction;
+        this.length = length;
+        this.minimumCycles = minimumCycles;
+    }
+}
@@ -12,5 +12,11 @@ public abstract class Instruction {
         return 0;
     }
 
+    // Whether this instruction may change the flow of execution (or stop it),
+    // in which case it must be the last instruction of a basic block.
+    public boolean endsBasicBlock() {
+        return false;
+    }
+
     public abstract void execute(EmulatorState state);
 }
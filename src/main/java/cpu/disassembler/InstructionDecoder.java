@@ -14,56 +14,134 @@ import java.util.List;
  * to decode the next instruction in the stream and update the position of the
  * scanner.
  *
+ * The list of factories is turned into a 256-entry table (one entry per
+ * possible command byte) once, when the extending class is initialized, so
+ * finding the factory for the next byte is a single array index. Each
+ * extending class also supplies a 256-entry table of the minimum cycles for
+ * each command byte so that timing never needs to go through a factory.
+ *
  * Two classes extend this: RootInstructionDecoder and MultiByteInstructionDecoder.
  */
 public class InstructionDecoder {
-    private final List<InstructionFactory> _instructionFactories;
+    private final static int NUM_COMMAND_BYTES = 256;
+
+    private final InstructionFactory[] _factoryTable;
+    private final int[] _minimumCycles;
 
-    protected InstructionDecoder(List<InstructionFactory> instructionFactories) {
-        _instructionFactories = instructionFactories;
+    // The minimum cycles of the instruction most recently returned by
+    // decodeNext(scanner).
+    private int _lastMinimumCycles;
+
+    protected InstructionDecoder(InstructionFactory[] factoryTable, int[] minimumCycles) {
+        checkArgument(factoryTable.length == NUM_COMMAND_BYTES);
+        checkArgument(minimumCycles.length == NUM_COMMAND_BYTES);
+        _factoryTable = factoryTable;
+        _minimumCycles = minimumCycles;
     }
 
-    // Find exactly one factory that can parse the given byte. If more than one
-    // or none can, throw an exception.
-    private InstructionFactory findFactory(byte nextByte) {
-        InstructionFactory ret = null;
+    /*
+     * Builds the command byte -> factory table for the given factories.
+     * Exactly one factory may parse any given byte; if more than one can, this
+     * throws an exception. Bytes that no factory can parse (the handful of
+     * unused opcodes) are left null and are reported when they are decoded.
+     */
+    protected static InstructionFactory[] buildFactoryTable(
+            List<InstructionFactory> instructionFactories) {
+        InstructionFactory[] table = new InstructionFactory[NUM_COMMAND_BYTES];
+
+        for (int i = 0; i < NUM_COMMAND_BYTES; i++) {
+            byte nextByte = (byte)i;
+
+            for (InstructionFactory factory : instructionFactories) {
+                if (!factory.canParse(nextByte))
+                    continue;
 
-        for (InstructionFactory factory : _instructionFactories) {
-            if (factory.canParse(nextByte)) {
-                if (ret != null) {
+                if (table[i] != null) {
                     String error = String.format("Already found an instruction" +
                             "factory that can parse byte %s. First factory: %s;" +
                             " second: %s",
                             Util.byteToHexString(nextByte),
-                            ret.getClass().getName(), factory.getClass().getName());
+                            table[i].getClass().getName(), factory.getClass().getName());
                     throw new IllegalStateException(error);
                 }
 
-                ret = factory;
+                table[i] = factory;
             }
         }
 
-        checkState(ret != null, "Could not find a factory that could parse %s",
-                Util.byteToHexString(nextByte));
+        return table;
+    }
+
+    // Find the factory that can parse the given byte. If none can, throw an
+    // exception.
+    private InstructionFactory findFactory(byte nextByte) {
+        InstructionFactory ret = _factoryTable[nextByte & 0xFF];
+
+        if (ret == null) {
+            String error = String.format("Could not find a factory that could " +
+                    "parse %s", Util.byteToHexString(nextByte));
+            throw new IllegalStateException(error);
+        }
+
         return ret;
     }
 
+    // Whether the next instruction in the stream can be decoded.
+    public boolean canDecode(ByteScanner scanner) {
+        return _factoryTable[scanner.peek() & 0xFF] != null;
+    }
+
+    /*
+     * Looks up the minimum cycles for the instruction starting with the given
+     * command byte, which is the next byte in the scanner. Decoders whose
+     * table entry depends on more than the first byte (i.e., prefixes)
+     * override this; it must not advance the position of the stream.
+     */
+    protected int lookupMinimumCycles(ByteScanner scanner, byte commandByte) {
+        return _minimumCycles[commandByte & 0xFF];
+    }
+
     /*
      * Returns the minimum number of cycles for the next position and does NOT
      * advance the position of the stream. See
      * InstructionFactory.getMinimumCycles()
      */
     public int getMinimumCycles(ByteScanner scanner) {
+        byte nextByte = scanner.peek();
+        findFactory(nextByte);
+
+        return lookupMinimumCycles(scanner, nextByte);
+    }
+
+    /*
+     * Asks the factory itself for the minimum number of cycles rather than
+     * using the table. Only used to check the tables against the factories.
+     */
+    int getFactoryMinimumCycles(ByteScanner scanner) {
         return findFactory(scanner.peek()).getMinimumCycles(scanner);
     }
 
     /*
-     * Decodes instructions on-demand. We do not cache decoded instructions,
-     * nor do we decode all instructions on initialization. This is much
-     * simpler (and thus much easier to get correct), and likely, due to the
-     * small instruction set, will not incur a noticeable performance penalty.
+     * Returns the minimum number of cycles of the instruction that was most
+     * recently returned by decodeNext(scanner). This lets the CPU decode and
+     * time an instruction in a single pass over the stream.
+     */
+    public int getLastMinimumCycles() {
+        return _lastMinimumCycles;
+    }
+
+    /*
+     * Decodes instructions on-demand. The decoder itself does not cache
+     * decoded instructions, nor do we decode all instructions on
+     * initialization. This is much simpler (and thus much easier to get
+     * correct). Code in ROM can be cached on top of this by DecodeCache, since
+     * ROM never changes underneath it.
      */
     public Instruction decodeNext(ByteScanner scanner) {
-        return findFactory(scanner.peek()).decodeInstruction(scanner);
+        byte nextByte = scanner.peek();
+        InstructionFactory factory = findFactory(nextByte);
+
+        _lastMinimumCycles = lookupMinimumCycles(scanner, nextByte);
+        return factory.decodeInstruction(scanner);
     }
 }
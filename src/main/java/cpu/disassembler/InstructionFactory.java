@@ -1,10 +1,9 @@
 package cpu.disassembler;
 
 import util.ByteScanner;
+import util.Checks;
 import util.Util;
 
-import static com.google.common.base.Preconditions.*;
-
 /**
  * Each factory represents a single type of instruction: either a single
  * instruction (e.g. ADD) or the special MultiByteInstructionFactory, which
@@ -16,10 +15,16 @@ public abstract class InstructionFactory {
      * then parses the instruction and updates the scanner's position.
      */
     public Instruction decodeInstruction(ByteScanner scanner) {
-        byte nextByte = scanner.peek();
-
-        checkArgument(canParse(nextByte), "%s is not a legal next byte for %s",
-                Util.byteToHexString(nextByte), getClass().getName());
+        if (Checks.ENABLED) {
+            byte nextByte = scanner.peek();
+
+            // Not checkArgument(): its message arguments would be built on
+            // every decode.
+            if (!canParse(nextByte))
+                throw new IllegalArgumentException(String.format(
+                        "%s is not a legal next byte for %s",
+                        Util.byteToHexString(nextByte), getClass().getName()));
+        }
 
         return uncheckedDecodeInstruction(scanner);
     }
@@ -3,7 +3,7 @@ package cpu.disassembler;
 import com.google.common.collect.ImmutableList;
 import cpu.disassembler.instruction_args.DereferencedRegisterByte;
 import cpu.disassembler.instruction_args.Register16;
-import cpu.disassembler.instruction_args.SettableValueContainer;
+import cpu.disassembler.instruction_args.SettableByteOperand;
 import cpu.disassembler.instructions.BitwiseInstructions;
 import util.ByteScanner;
 import util.DecodingUtil;
@@ -19,10 +19,6 @@ import java.util.List;
  * http://www.pastraiser.com/cpu/gameboy/gameboy_opcodes.html
  */
 public class MultiByteInstructionDecoder extends InstructionDecoder {
-    public MultiByteInstructionDecoder() {
-        super(INSTRUCTION_FACTORIES);
-    }
-
     private static final List<InstructionFactory> INSTRUCTION_FACTORIES =
             new ImmutableList.Builder<InstructionFactory>()
                     .add(new RlcInstructionFactory())
@@ -38,6 +34,41 @@ public class MultiByteInstructionDecoder extends InstructionDecoder {
                     .add(new SetInstructionFactory())
             .build();
 
+    private static final InstructionFactory[] FACTORY_TABLE =
+            buildFactoryTable(INSTRUCTION_FACTORIES);
+
+    // Minimum cycles for each command byte following the 0xCB prefix. The
+    // cycles include the prefix byte. Every instruction operating on (HL)
+    // (second hexit 6 or E) requires the extra memory access.
+    private static final int[] MINIMUM_CYCLES = {
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // 0x
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // 1x
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // 2x
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // 3x
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // 4x
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // 5x
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // 6x
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // 7x
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // 8x
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // 9x
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // Ax
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // Bx
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // Cx
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // Dx
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8,  // Ex
+             8,  8,  8,  8,  8,  8, 16,  8,  8,  8,  8,  8,  8,  8, 16,  8   // Fx
+    };
+
+    public MultiByteInstructionDecoder() {
+        super(FACTORY_TABLE, MINIMUM_CYCLES);
+    }
+
+    // Used by the RootInstructionDecoder to time 0xCB-prefixed instructions
+    // without going through this decoder's factories.
+    static int minimumCyclesFor(byte commandByte) {
+        return MINIMUM_CYCLES[commandByte & 0xFF];
+    }
+
     private static class RlcInstructionFactory extends InstructionFactory {
         @Override
         protected boolean canParse(byte nextByte) {
@@ -55,7 +86,7 @@ public class MultiByteInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte instr = scanner.readByte();
 
-            SettableValueContainer<Byte> container =
+            SettableByteOperand container =
                     DecodingUtil.byteContainerFromByte(instr);
 
             return new BitwiseInstructions.RlcInstruction(container);
@@ -80,7 +111,7 @@ public class MultiByteInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte instr = scanner.readByte();
 
-            SettableValueContainer<Byte> container =
+            SettableByteOperand container =
                     DecodingUtil.byteContainerFromByte(instr);
 
             return new BitwiseInstructions.RrcInstruction(container);
@@ -105,7 +136,7 @@ public class MultiByteInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte instr = scanner.readByte();
 
-            SettableValueContainer<Byte> container =
+            SettableByteOperand container =
                     DecodingUtil.byteContainerFromByte(instr);
 
             return new BitwiseInstructions.RlInstruction(container);
@@ -130,7 +161,7 @@ public class MultiByteInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte instr = scanner.readByte();
 
-            SettableValueContainer<Byte> container =
+            SettableByteOperand container =
                     DecodingUtil.byteContainerFromByte(instr);
 
             return new BitwiseInstructions.RrInstruction(container);
@@ -155,7 +186,7 @@ public class MultiByteInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte instr = scanner.readByte();
 
-            SettableValueContainer<Byte> container =
+            SettableByteOperand container =
                     DecodingUtil.byteContainerFromByte(instr);
 
             return new BitwiseInstructions.SlaInstruction(container);
@@ -180,7 +211,7 @@ public class MultiByteInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte instr = scanner.readByte();
 
-            SettableValueContainer<Byte> container =
+            SettableByteOperand container =
                     DecodingUtil.byteContainerFromByte(instr);
 
             return new BitwiseInstructions.SraInstruction(container);
@@ -205,7 +236,7 @@ public class MultiByteInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte instr = scanner.readByte();
 
-            SettableValueContainer<Byte> container =
+            SettableByteOperand container =
                     DecodingUtil.byteContainerFromByte(instr);
 
             return new BitwiseInstructions.SwapInstruction(container);
@@ -230,7 +261,7 @@ public class MultiByteInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte instr = scanner.readByte();
 
-            SettableValueContainer<Byte> container =
+            SettableByteOperand container =
                     DecodingUtil.byteContainerFromByte(instr);
 
             return new BitwiseInstructions.SrlInstruction(container);
@@ -260,7 +291,7 @@ public class MultiByteInstructionDecoder extends InstructionDecoder {
             byte instr = scanner.readByte();
 
             int bitIndex = bitIndexFromByte(instr);
-            SettableValueContainer<Byte> container =
+            SettableByteOperand container =
                     DecodingUtil.byteContainerFromByte(instr);
 
             return new BitwiseInstructions.BitInstruction(bitIndex, container);
@@ -290,7 +321,7 @@ public class MultiByteInstructionDecoder extends InstructionDecoder {
             byte instr = scanner.readByte();
 
             int bitIndex = bitIndexFromByte(instr);
-            SettableValueContainer<Byte> container =
+            SettableByteOperand container =
                     DecodingUtil.byteContainerFromByte(instr);
 
             return new BitwiseInstructions.ResInstruction(bitIndex, container);
@@ -319,7 +350,7 @@ public class MultiByteInstructionDecoder extends InstructionDecoder {
             byte instr = scanner.readByte();
 
             int bitIndex = bitIndexFromByte(instr);
-            SettableValueContainer<Byte> container =
+            SettableByteOperand container =
                     DecodingUtil.byteContainerFromByte(instr);
 
 
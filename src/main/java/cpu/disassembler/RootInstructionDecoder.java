@@ -16,10 +16,6 @@ import java.util.List;
  * http://www.pastraiser.com/cpu/gameboy/gameboy_opcodes.html
  */
 public class RootInstructionDecoder extends InstructionDecoder {
-    public RootInstructionDecoder() {
-        super(INSTRUCTION_FACTORIES);
-    }
-
     private static final List<InstructionFactory> INSTRUCTION_FACTORIES =
             new ImmutableList.Builder<InstructionFactory>()
                     .add(new MultiByteInstructionFactory())
@@ -63,6 +59,45 @@ public class RootInstructionDecoder extends InstructionDecoder {
                     .add(new RstInstructionFactory())
             .build();
 
+    private static final InstructionFactory[] FACTORY_TABLE =
+            buildFactoryTable(INSTRUCTION_FACTORIES);
+
+    // Minimum cycles for each command byte, as given by the factories below.
+    // Unused command bytes are 0, as is 0xCB, whose cycles are determined by
+    // the MultiByteInstructionDecoder.
+    private static final int[] MINIMUM_CYCLES = {
+             4, 12,  8,  8,  4,  4,  8,  4, 20,  8,  8,  8,  4,  4,  8,  4,  // 0x
+             4, 12,  8,  8,  4,  4,  8,  4, 12,  8,  8,  8,  4,  4,  8,  4,  // 1x
+             8, 12,  8,  8,  4,  4,  8,  4,  8,  8,  8,  8,  4,  4,  8,  4,  // 2x
+             8, 12,  8,  8, 12, 12, 12,  4,  8,  8,  8,  8,  4,  4,  8,  4,  // 3x
+             4,  4,  4,  4,  4,  4,  8,  4,  4,  4,  4,  4,  4,  4,  8,  4,  // 4x
+             4,  4,  4,  4,  4,  4,  8,  4,  4,  4,  4,  4,  4,  4,  8,  4,  // 5x
+             4,  4,  4,  4,  4,  4,  8,  4,  4,  4,  4,  4,  4,  4,  8,  4,  // 6x
+             8,  8,  8,  8,  8,  8,  4,  8,  4,  4,  4,  4,  4,  4,  8,  4,  // 7x
+             4,  4,  4,  4,  4,  4,  8,  4,  4,  4,  4,  4,  4,  4,  8,  4,  // 8x
+             4,  4,  4,  4,  4,  4,  8,  4,  4,  4,  4,  4,  4,  4,  8,  4,  // 9x
+             4,  4,  4,  4,  4,  4,  8,  4,  4,  4,  4,  4,  4,  4,  8,  4,  // Ax
+             4,  4,  4,  4,  4,  4,  8,  4,  4,  4,  4,  4,  4,  4,  8,  4,  // Bx
+             8, 12, 12, 16, 12, 16,  8, 16,  8, 16, 12,  0, 12, 24,  8, 16,  // Cx
+             8, 12, 12,  0, 12, 16,  8, 16,  8, 16, 12,  0, 12,  0,  8, 16,  // Dx
+            12, 12,  8,  0,  0, 16,  8, 16, 16,  4, 16,  0,  0,  0,  8, 16,  // Ex
+            12, 12,  8,  4,  0, 16,  8, 16, 12,  8, 16,  4,  0,  0,  8, 16   // Fx
+    };
+
+    private final static byte MULTI_BYTE_PREFIX = (byte)0xCB;
+
+    public RootInstructionDecoder() {
+        super(FACTORY_TABLE, MINIMUM_CYCLES);
+    }
+
+    @Override
+    protected int lookupMinimumCycles(ByteScanner scanner, byte commandByte) {
+        if (commandByte == MULTI_BYTE_PREFIX)
+            return MultiByteInstructionDecoder.minimumCyclesFor(scanner.peek(1));
+
+        return super.lookupMinimumCycles(scanner, commandByte);
+    }
+
     private static class MultiByteInstructionFactory extends InstructionFactory {
         private final MultiByteInstructionDecoder _multiByteInstructionDecoder;
 
@@ -458,7 +493,7 @@ public class RootInstructionDecoder extends InstructionDecoder {
         }
 
         private static Instruction instrFromIndexArgs(
-                int index, ValueContainer<Byte> src) {
+                int index, ByteOperand src) {
             // This is a little lame :/
             switch (index) {
                 case 0:
@@ -487,7 +522,7 @@ public class RootInstructionDecoder extends InstructionDecoder {
             byte command = scanner.readByte();
 
             int index;
-            ValueContainer<Byte> src;
+            ByteOperand src;
 
             if ((command & 0xFF) < 0xC0) {
                 index = ((command & 0xFF) - 0x80) / 8;
@@ -524,10 +559,10 @@ public class RootInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte command = scanner.readByte();
 
-            SettableValueContainer<Byte> dest = DecodingUtil.byteContainerFromIndex(
+            SettableByteOperand dest = DecodingUtil.byteContainerFromIndex(
                     ((command & 0xFF) - 0x40) / 8);
 
-            ValueContainer<Byte> src = DecodingUtil.byteContainerFromByte(command);
+            ByteOperand src = DecodingUtil.byteContainerFromByte(command);
 
             return new MemoryInstructions.Ld8Instruction(dest, src);
         }
@@ -550,7 +585,7 @@ public class RootInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte command = scanner.readByte();
             short addr = (short)(0xFF00 + (scanner.readByte() & 0xFF));
-            SettableValueContainer<Byte> container = new BytePointer(addr);
+            SettableByteOperand container = new BytePointer(addr);
 
             return (command & 0xFF) == 0xE0
                     ? new MemoryInstructions.Ld8Instruction(container, Register8.A)
@@ -579,7 +614,7 @@ public class RootInstructionDecoder extends InstructionDecoder {
                     (command & 0xFF) / 16 != 0xE;
         }
 
-        private static SettableValueContainer<Byte> containerFromByte(
+        private static SettableByteOperand containerFromByte(
                 ByteScanner scanner, byte command) {
             if ((command & 0xFF) / 16 == 0)
                 return new DereferencedRegisterByte(Register16.BC);
@@ -592,7 +627,7 @@ public class RootInstructionDecoder extends InstructionDecoder {
         @Override
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte command = scanner.readByte();
-            SettableValueContainer<Byte> container = containerFromByte(scanner, command);
+            SettableByteOperand container = containerFromByte(scanner, command);
 
             return aIsDest(command)
                     ? new MemoryInstructions.Ld8Instruction(Register8.A, container)
@@ -615,7 +650,7 @@ public class RootInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             scanner.readByte();
             short addr = scanner.readLittleEndianShort();
-            SettableValueContainer<Short> container = new ShortPointer(addr);
+            SettableShortOperand container = new ShortPointer(addr);
 
             return new MemoryInstructions.Ld16Instruction(
                     container, Register16.SP);
@@ -638,7 +673,7 @@ public class RootInstructionDecoder extends InstructionDecoder {
         @Override
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte command = scanner.readByte();
-            ValueContainer<Byte> container = new ByteConst(scanner.readByte());
+            ByteOperand container = new ByteConst(scanner.readByte());
 
             return new MemoryInstructions.Ld8Instruction(
                     DecodingUtil.ld8ConstDest(command), container);
@@ -660,7 +695,7 @@ public class RootInstructionDecoder extends InstructionDecoder {
         @Override
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte command = scanner.readByte();
-            ValueContainer<Short> container = new ShortConst(scanner.readLittleEndianShort());
+            ShortOperand container = new ShortConst(scanner.readLittleEndianShort());
 
             return new MemoryInstructions.Ld16Instruction(
                     DecodingUtil.ld16ConstDest(command), container);
@@ -868,7 +903,7 @@ public class RootInstructionDecoder extends InstructionDecoder {
             return (scanner.peek() & 0xFF) == 0xC3 ? 16 : 4;
         }
 
-        private static ValueContainer<Short> readAddress(ByteScanner scanner, byte command) {
+        private static ShortOperand readAddress(ByteScanner scanner, byte command) {
             if ((command & 0xFF) == 0xE9)
                 return new DereferencedRegisterShort(Register16.HL);
 
@@ -878,7 +913,7 @@ public class RootInstructionDecoder extends InstructionDecoder {
         @Override
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte command = scanner.readByte();
-            ValueContainer<Short> container = readAddress(scanner, command);
+            ShortOperand container = readAddress(scanner, command);
 
             return new PCControlInstructions.JpInstruction(
                     PCControlInstructions.JumpFlag.None, false, container);
@@ -913,7 +948,7 @@ public class RootInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte command = scanner.readByte();
             short addr = scanner.readLittleEndianShort();
-            ValueContainer<Short> container = new ShortConst(addr);
+            ShortOperand container = new ShortConst(addr);
 
             PCControlInstructions.JumpFlag flag = jumpFlagFromByte(command);
             boolean negated = isNegated(command);
@@ -956,7 +991,7 @@ public class RootInstructionDecoder extends InstructionDecoder {
         protected Instruction uncheckedDecodeInstruction(ByteScanner scanner) {
             byte command = scanner.readByte();
             short addr = scanner.readLittleEndianShort();
-            ValueContainer<Short> container = new ShortConst(addr);
+            ShortOperand container = new ShortConst(addr);
 
             PCControlInstructions.JumpFlag flag = jumpFlagFromByte(command);
             boolean negated = isNegated(command);
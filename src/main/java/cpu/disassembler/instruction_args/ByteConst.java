@@ -6,7 +6,7 @@ import util.Util;
 /**
  * Represents a constant byte value for use as an instruction argument.
  */
-public class ByteConst implements ValueContainer<Byte> {
+public class ByteConst implements ByteOperand {
     private final byte _value;
 
     public ByteConst(byte value) {
@@ -14,8 +14,8 @@ public class ByteConst implements ValueContainer<Byte> {
     }
 
     @Override
-    public Byte get(EmulatorState state) {
-        return _value;
+    public int getInt(EmulatorState state) {
+        return _value & 0xFF;
     }
 
     @Override
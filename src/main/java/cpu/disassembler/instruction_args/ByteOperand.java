@@ -0,0 +1,20 @@
+package cpu.disassembler.instruction_args;
+
+import cpu.EmulatorState;
+
+/**
+ * An 8-bit instruction argument whose value can be read as a primitive int,
+ * so that executing an instruction never has to box a Byte.
+ *
+ * Instructions should only call getInt(); get() remains for callers (e.g.,
+ * tests and tools) that want a Byte.
+ */
+public interface ByteOperand extends ValueContainer<Byte> {
+    // Returns the value as an unsigned int in the range 0..0xFF.
+    public int getInt(EmulatorState state);
+
+    @Override
+    public default Byte get(EmulatorState state) {
+        return (byte)getInt(state);
+    }
+}
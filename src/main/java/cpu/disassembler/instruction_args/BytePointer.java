@@ -6,7 +6,7 @@ import util.Util;
 /**
  * 8-bit pointer for use as an instruction argument.
  */
-public class BytePointer implements SettableValueContainer<Byte> {
+public class BytePointer implements SettableByteOperand {
     // Memory addresses in the Gameboy are 16 bits long.
     private final short _address;
 
@@ -14,14 +14,18 @@ public class BytePointer implements SettableValueContainer<Byte> {
         _address = address;
     }
 
+    public short getAddress() {
+        return _address;
+    }
+
     @Override
-    public Byte get(EmulatorState state) {
-        return state.memory.readByte(_address);
+    public int getInt(EmulatorState state) {
+        return state.memory.readByte(_address) & 0xFF;
     }
 
     @Override
-    public void set(EmulatorState state, Byte value) {
-        state.memory.writeByte(_address, value);
+    public void setInt(EmulatorState state, int value) {
+        state.memory.writeByte(_address, (byte)value);
     }
 
     @Override
@@ -5,7 +5,7 @@ import cpu.EmulatorState;
 /**
  * Used when an instruction dereferences a 16-bit register as a byte.
  */
-public class DereferencedRegisterByte implements SettableValueContainer<Byte> {
+public class DereferencedRegisterByte implements SettableByteOperand {
     private final Register16 _r16;
 
     public DereferencedRegisterByte(Register16 r16) {
@@ -13,15 +13,15 @@ public class DereferencedRegisterByte implements SettableValueContainer<Byte> {
     }
 
     @Override
-    public Byte get(EmulatorState state) {
-        short address = _r16.get(state);
-        return state.memory.readByte(address);
+    public int getInt(EmulatorState state) {
+        short address = (short)_r16.getInt(state);
+        return state.memory.readByte(address) & 0xFF;
     }
 
     @Override
-    public void set(EmulatorState state, Byte value) {
-        short address = _r16.get(state);
-        state.memory.writeByte(address, value);
+    public void setInt(EmulatorState state, int value) {
+        short address = (short)_r16.getInt(state);
+        state.memory.writeByte(address, (byte)value);
     }
 
     @Override
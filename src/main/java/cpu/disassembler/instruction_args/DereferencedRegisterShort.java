@@ -5,7 +5,7 @@ import cpu.EmulatorState;
 /**
  * Used when an instruction dereferences a 16-bit register as a short.
  */
-public class DereferencedRegisterShort implements SettableValueContainer<Short> {
+public class DereferencedRegisterShort implements SettableShortOperand {
     private final Register16 _r16;
 
     public DereferencedRegisterShort(Register16 r16) {
@@ -13,15 +13,15 @@ public class DereferencedRegisterShort implements SettableValueContainer<Short>
     }
 
     @Override
-    public Short get(EmulatorState state) {
-        short address = _r16.get(state);
-        return state.memory.readShort(address);
+    public int getInt(EmulatorState state) {
+        short address = (short)_r16.getInt(state);
+        return state.memory.readShort(address) & 0xFFFF;
     }
 
     @Override
-    public void set(EmulatorState state, Short value) {
-        short address = _r16.get(state);
-        state.memory.writeShort(address, value);
+    public void setInt(EmulatorState state, int value) {
+        short address = (short)_r16.getInt(state);
+        state.memory.writeShort(address, (short)value);
     }
 
     @Override
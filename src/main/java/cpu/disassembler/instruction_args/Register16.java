@@ -6,7 +6,7 @@ import cpu.EmulatorState;
  * Represents a 16-bit register as used by instructions (e.g., which register
  * to add in the ADD instruction).
  */
-public class Register16 implements SettableValueContainer<Short> {
+public class Register16 implements SettableShortOperand {
     public final static Register16 AF = new Register16(0, "AF");
     public final static Register16 BC = new Register16(1, "BC");
     public final static Register16 DE = new Register16(2, "DE");
@@ -23,13 +23,13 @@ public class Register16 implements SettableValueContainer<Short> {
     }
 
     @Override
-    public Short get(EmulatorState state) {
-        return state.registerState.getR16(_index);
+    public int getInt(EmulatorState state) {
+        return state.registerState.getR16Int(_index);
     }
 
     @Override
-    public void set(EmulatorState state, Short value) {
-        state.registerState.setR16(_index, value);
+    public void setInt(EmulatorState state, int value) {
+        state.registerState.setR16Int(_index, value);
     }
 
     @Override
@@ -6,7 +6,7 @@ import cpu.EmulatorState;
  * Represents an 8-bit register, as used by instructions (e.g., which register
  * to add in the ADD instruction).
  */
-public class Register8 implements SettableValueContainer<Byte> {
+public class Register8 implements SettableByteOperand {
     // For reasoning on these indices, look at the internals of the
     // RegisterState class.
     public final static Register8 A = new Register8(0, "A");
@@ -26,13 +26,13 @@ public class Register8 implements SettableValueContainer<Byte> {
     }
 
     @Override
-    public Byte get(EmulatorState state) {
-        return state.registerState.getR8(_index);
+    public int getInt(EmulatorState state) {
+        return state.registerState.getR8Int(_index);
     }
 
     @Override
-    public void set(EmulatorState state, Byte value) {
-        state.registerState.setR8(_index, value);
+    public void setInt(EmulatorState state, int value) {
+        state.registerState.setR8Int(_index, value);
     }
 
     @Override
@@ -0,0 +1,16 @@
+package cpu.disassembler.instruction_args;
+
+import cpu.EmulatorState;
+
+/**
+ * A ByteOperand that can also be written as a primitive int.
+ */
+public interface SettableByteOperand extends ByteOperand, SettableValueContainer<Byte> {
+    // Stores the low 8 bits of value; the rest are ignored.
+    public void setInt(EmulatorState state, int value);
+
+    @Override
+    public default void set(EmulatorState state, Byte value) {
+        setInt(state, value);
+    }
+}
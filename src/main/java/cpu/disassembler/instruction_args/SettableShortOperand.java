@@ -0,0 +1,16 @@
+package cpu.disassembler.instruction_args;
+
+import cpu.EmulatorState;
+
+/**
+ * A ShortOperand that can also be written as a primitive int.
+ */
+public interface SettableShortOperand extends ShortOperand, SettableValueContainer<Short> {
+    // Stores the low 16 bits of value; the rest are ignored.
+    public void setInt(EmulatorState state, int value);
+
+    @Override
+    public default void set(EmulatorState state, Short value) {
+        setInt(state, value);
+    }
+}
@@ -6,7 +6,7 @@ import util.Util;
 /**
  * Represents a constant short value for use as an instruction argument.
  */
-public class ShortConst implements ValueContainer<Short> {
+public class ShortConst implements ShortOperand {
     private final short _value;
 
     public ShortConst(short value) {
@@ -14,8 +14,8 @@ public class ShortConst implements ValueContainer<Short> {
     }
 
     @Override
-    public Short get(EmulatorState state) {
-        return _value;
+    public int getInt(EmulatorState state) {
+        return _value & 0xFFFF;
     }
 
     @Override
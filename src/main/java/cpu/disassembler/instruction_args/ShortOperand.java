@@ -0,0 +1,20 @@
+package cpu.disassembler.instruction_args;
+
+import cpu.EmulatorState;
+
+/**
+ * A 16-bit instruction argument whose value can be read as a primitive int,
+ * so that executing an instruction never has to box a Short.
+ *
+ * Instructions should only call getInt(); get() remains for callers (e.g.,
+ * tests and tools) that want a Short.
+ */
+public interface ShortOperand extends ValueContainer<Short> {
+    // Returns the value as an unsigned int in the range 0..0xFFFF.
+    public int getInt(EmulatorState state);
+
+    @Override
+    public default Short get(EmulatorState state) {
+        return (short)getInt(state);
+    }
+}
@@ -6,7 +6,7 @@ import util.Util;
 /**
  * 16-bit pointer for use as an instruction argument.
  */
-public class ShortPointer implements SettableValueContainer<Short> {
+public class ShortPointer implements SettableShortOperand {
     // Memory addresses in the Gameboy are 16 bits long.
     private final short _address;
 
@@ -15,13 +15,13 @@ public class ShortPointer implements SettableValueContainer<Short> {
     }
 
     @Override
-    public Short get(EmulatorState state) {
-        return state.memory.readShort(_address);
+    public int getInt(EmulatorState state) {
+        return state.memory.readShort(_address) & 0xFFFF;
     }
 
     @Override
-    public void set(EmulatorState state, Short value) {
-        state.memory.writeShort(_address, value);
+    public void setInt(EmulatorState state, int value) {
+        state.memory.writeShort(_address, (short)value);
     }
 
     @Override
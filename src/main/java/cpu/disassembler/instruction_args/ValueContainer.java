@@ -5,6 +5,9 @@ import cpu.EmulatorState;
 /**
  * Represents anything that can hold a value. SettableValueContainer implements
  * this (e.g. registers), as do ByteConst and ShortConst.
+ *
+ * Every implementation is also a ByteOperand or ShortOperand, which is what
+ * instructions use so that they can work with primitive values.
  */
 public interface ValueContainer<T> {
     public T get(EmulatorState state);
@@ -2,10 +2,12 @@ package cpu.disassembler.instructions;
 
 import cpu.EmulatorState;
 import cpu.disassembler.Instruction;
+import cpu.disassembler.instruction_args.ByteOperand;
 import cpu.disassembler.instruction_args.Register16;
 import cpu.disassembler.instruction_args.Register8;
-import cpu.disassembler.instruction_args.SettableValueContainer;
-import cpu.disassembler.instruction_args.ValueContainer;
+import cpu.disassembler.instruction_args.SettableByteOperand;
+import cpu.disassembler.instruction_args.SettableShortOperand;
+import cpu.disassembler.instruction_args.ShortOperand;
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 import util.Util;
 
@@ -22,43 +24,26 @@ import java.util.Objects;
 public final class ArithmeticInstructions {
     private ArithmeticInstructions() {}
 
-    private static boolean add8WouldHalfCarry(byte lhs, byte rhs, int carry) {
-        return (((lhs & 0xF) + (rhs & 0xF) + carry) & 0x10) == 0x10;
-    }
-
-    // Performs an 8-bit add and sets dest to the resulting value, in addition
-    // setting/clearing any flags.
+    // Performs an 8-bit add of val (and the carry flag, if useCarry) to a,
+    // setting/clearing any flags (lazily; see Flags), and returns the
+    // resulting value.
     // We pull these methods out so that ADD, ADC, and INC can share the same
-    // code (same for SUB, SBC, and DEC).
-    private static void add8(
-            EmulatorState state,
-            SettableValueContainer<Byte> dest,
-            byte val,
-            boolean useCarry) {
-        byte a = dest.get(state);
-        int carry = useCarry && state.registerState.flags.getC() == 1 ? 1 : 0;
-
-        byte newValue = (byte)(a + val + carry);
-        dest.set(state, newValue);
-
-        state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
-        state.registerState.flags.setN(0);
-        state.registerState.flags.setH(add8WouldHalfCarry(a, val, carry) ? 1 : 0);
+    // code (same for SUB, SBC, and DEC). All values are unsigned ints.
+    private static int add8(EmulatorState state, int a, int val, boolean useCarry) {
+        int carry = useCarry ? state.registerState.flags.getC() : 0;
 
-        int newCarry = (a & 0xFF) + (val & 0xFF) + carry > 255 ? 1 : 0;
-        state.registerState.flags.setC(newCarry);
+        state.registerState.flags.setAdd8(a, val, carry);
+        return (a + val + carry) & 0xFF;
     }
 
     // Add a given value to the value in the destination and store the result
     // in the destination, in addition to setting any necessary flags.
     private static void add16(
             EmulatorState state,
-            SettableValueContainer<Short> dest,
-            short val) {
-        short a = dest.get(state);
-
-        short newValue = (short)(a + val);
-        dest.set(state, newValue);
+            SettableShortOperand dest,
+            int val) {
+        int a = dest.getInt(state);
+        dest.setInt(state, a + val);
 
         // Most 16-bit ADD instructions don't affect the Z flag; the ADD SP, r8
         // instruction simply clears it.
@@ -66,63 +51,48 @@ public final class ArithmeticInstructions {
             state.registerState.flags.setZ(0);
 
         state.registerState.flags.setN(0);
-        state.registerState.flags.setH(Util.add16WouldHalfCarry(a, val) ? 1 : 0);
-        state.registerState.flags.setC(Util.add16WouldCarry(a, val) ? 1 : 0);
+        state.registerState.flags.setH(Util.add16WouldHalfCarry((short)a, (short)val) ? 1 : 0);
+        state.registerState.flags.setC(Util.add16WouldCarry((short)a, (short)val) ? 1 : 0);
     }
 
-    // Same as above except for subtraction.
-    private static void sub8(
-            EmulatorState state,
-            SettableValueContainer<Byte> dest,
-            byte val,
-            boolean useCarry) {
-        byte a = dest.get(state);
-        int carry = useCarry && state.registerState.flags.getC() == 1 ? 1 : 0;
-
-        byte newValue = (byte)(a - val - carry);
-        dest.set(state, newValue);
-
-        state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
-        state.registerState.flags.setN(1);
+    // Same as add8 except for subtraction.
+    private static int sub8(EmulatorState state, int a, int val, boolean useCarry) {
+        int carry = useCarry ? state.registerState.flags.getC() : 0;
 
         // Carries for sub are whether a borrow occurred
-        int halfCarry = (a & 0xF) < (val & 0xF) + carry ? 1 : 0;
-        state.registerState.flags.setH(halfCarry);
-
-        int newCarry = (a & 0xFF) < (val & 0xFF) + carry ? 1 : 0;
-        state.registerState.flags.setC(newCarry);
+        state.registerState.flags.setSub8(a, val, carry);
+        return (a - val - carry) & 0xFF;
     }
 
     // The DEC instruction with 16-bit registers apparently doesn't update
     // flags. wtf?
     private static void sub16(
             EmulatorState state,
-            SettableValueContainer<Short> dest,
-            short val,
+            SettableShortOperand dest,
+            int val,
             boolean shouldUpdateFlags) {
-        short a = dest.get(state);
-
-        short newValue = (short)(a - val);
-        dest.set(state, newValue);
+        int a = dest.getInt(state);
+        int newValue = (a - val) & 0xFFFF;
+        dest.setInt(state, newValue);
 
         if (shouldUpdateFlags) {
             state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
             state.registerState.flags.setN(1);
 
             // Carries for sub are whether a borrow occurred
-            state.registerState.flags.setC((a & 0xFFFF) < (val & 0xFFFF) ? 1 : 0);
+            state.registerState.flags.setC(a < val ? 1 : 0);
 
             // half-carry for 16-bit is the most recent half-carry
-            short aHalf = Util.clearTopNibble(a);
-            short vHalf = Util.clearTopNibble(val);
+            short aHalf = Util.clearTopNibble((short)a);
+            short vHalf = Util.clearTopNibble((short)val);
             state.registerState.flags.setH(aHalf < vHalf ? 1 : 0);
         }
     }
 
     public static class Add8Instruction extends Instruction {
-        private final ValueContainer<Byte> _container;
+        private final ByteOperand _container;
 
-        public Add8Instruction(ValueContainer<Byte> container) {
+        public Add8Instruction(ByteOperand container) {
             _container = container;
         }
 
@@ -147,15 +117,16 @@ public final class ArithmeticInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            add8(state, Register8.A, _container.get(state), false);
+            Register8.A.setInt(state,
+                    add8(state, Register8.A.getInt(state), _container.getInt(state), false));
         }
     }
 
     public static class Add16Instruction extends Instruction {
-        private final SettableValueContainer<Short> _dest;
-        private final ValueContainer<Short> _src;
+        private final SettableShortOperand _dest;
+        private final ShortOperand _src;
 
-        public Add16Instruction(SettableValueContainer<Short> dest, ValueContainer<Short> src) {
+        public Add16Instruction(SettableShortOperand dest, ShortOperand src) {
             _dest = dest;
             _src = src;
         }
@@ -181,14 +152,14 @@ public final class ArithmeticInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            add16(state, _dest, _src.get(state));
+            add16(state, _dest, _src.getInt(state));
         }
     }
 
     public static class AdcInstruction extends Instruction {
-        private final ValueContainer<Byte> _container;
+        private final ByteOperand _container;
 
-        public AdcInstruction(ValueContainer<Byte> container) {
+        public AdcInstruction(ByteOperand container) {
             _container = container;
         }
 
@@ -212,14 +183,15 @@ public final class ArithmeticInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            add8(state, Register8.A, _container.get(state), true);
+            Register8.A.setInt(state,
+                    add8(state, Register8.A.getInt(state), _container.getInt(state), true));
         }
     }
 
     public static class Inc8Instruction extends Instruction {
-        private final SettableValueContainer<Byte> _container;
+        private final SettableByteOperand _container;
 
-        public Inc8Instruction(SettableValueContainer<Byte> container) {
+        public Inc8Instruction(SettableByteOperand container) {
             _container = container;
         }
 
@@ -243,14 +215,14 @@ public final class ArithmeticInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            add8(state, _container, (byte) 1, false);
+            _container.setInt(state, add8(state, _container.getInt(state), 1, false));
         }
     }
 
     public static class Inc16Instruction extends Instruction {
-        private final SettableValueContainer<Short> _container;
+        private final SettableShortOperand _container;
 
-        public Inc16Instruction(SettableValueContainer<Short> container) {
+        public Inc16Instruction(SettableShortOperand container) {
             _container = container;
         }
 
@@ -274,14 +246,14 @@ public final class ArithmeticInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            add16(state, _container, (short) 1);
+            add16(state, _container, 1);
         }
     }
 
     public static class SubInstruction extends Instruction {
-        private final ValueContainer<Byte> _container;
+        private final ByteOperand _container;
 
-        public SubInstruction(ValueContainer<Byte> container) {
+        public SubInstruction(ByteOperand container) {
             _container = container;
         }
 
@@ -305,14 +277,15 @@ public final class ArithmeticInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            sub8(state, Register8.A, _container.get(state), false);
+            Register8.A.setInt(state,
+                    sub8(state, Register8.A.getInt(state), _container.getInt(state), false));
         }
     }
 
     public static class SbcInstruction extends Instruction {
-        private final ValueContainer<Byte> _container;
+        private final ByteOperand _container;
 
-        public SbcInstruction(ValueContainer<Byte> container) {
+        public SbcInstruction(ByteOperand container) {
             _container = container;
         }
 
@@ -336,14 +309,15 @@ public final class ArithmeticInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            sub8(state, Register8.A, _container.get(state), true);
+            Register8.A.setInt(state,
+                    sub8(state, Register8.A.getInt(state), _container.getInt(state), true));
         }
     }
 
     public static class Dec8Instruction extends Instruction {
-        private final ValueContainer<Byte> _container;
+        private final ByteOperand _container;
 
-        public Dec8Instruction(ValueContainer<Byte> container) {
+        public Dec8Instruction(ByteOperand container) {
             _container = container;
         }
 
@@ -367,14 +341,15 @@ public final class ArithmeticInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            sub8(state, Register8.A, _container.get(state), false);
+            Register8.A.setInt(state,
+                    sub8(state, Register8.A.getInt(state), _container.getInt(state), false));
         }
     }
 
     public static class Dec16Instruction extends Instruction {
-        private final SettableValueContainer<Short> _container;
+        private final SettableShortOperand _container;
 
-        public Dec16Instruction(SettableValueContainer<Short> container) {
+        public Dec16Instruction(SettableShortOperand container) {
             _container = container;
         }
 
@@ -398,7 +373,7 @@ public final class ArithmeticInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            sub16(state, _container, (short)1, false);
+            sub16(state, _container, 1, false);
         }
     }
 
@@ -452,12 +427,16 @@ public final class ArithmeticInstructions {
     }
 
     public static class CpInstruction extends Instruction {
-        private final ValueContainer<Byte> _container;
+        private final ByteOperand _container;
 
-        public CpInstruction(ValueContainer<Byte> container) {
+        public CpInstruction(ByteOperand container) {
             _container = container;
         }
 
+        public ByteOperand getOperand() {
+            return _container;
+        }
+
         @Override
         public boolean equals(Object rhs) {
             if (rhs == null || getClass() != rhs.getClass())
@@ -478,30 +457,9 @@ public final class ArithmeticInstructions {
 
         // Compare is the same as doing a subtraction and throwing away the
         // result.
-        private static class NoopSettableValueContainer
-                implements SettableValueContainer<Byte> {
-            private final byte _value;
-
-            public NoopSettableValueContainer(byte value) {
-                _value = value;
-            }
-
-            @Override
-            public Byte get(EmulatorState state) {
-                return _value;
-            }
-
-            @Override
-            public void set(EmulatorState state, Byte value) { }
-        }
-
         @Override
         public void execute(EmulatorState state) {
-            sub8(
-                    state,
-                    new NoopSettableValueContainer(Register8.A.get(state)),
-                    _container.get(state),
-                    false);
+            sub8(state, Register8.A.getInt(state), _container.getInt(state), false);
         }
     }
 
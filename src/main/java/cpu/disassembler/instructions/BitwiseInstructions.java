@@ -2,10 +2,9 @@ package cpu.disassembler.instructions;
 
 import cpu.EmulatorState;
 import cpu.disassembler.Instruction;
+import cpu.disassembler.instruction_args.ByteOperand;
 import cpu.disassembler.instruction_args.Register8;
-import cpu.disassembler.instruction_args.SettableValueContainer;
-import cpu.disassembler.instruction_args.ValueContainer;
-import util.Util;
+import cpu.disassembler.instruction_args.SettableByteOperand;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import java.util.Objects;
@@ -25,54 +24,42 @@ public final class BitwiseInstructions {
     // instruction that acts on the A register in less cycles, so we
     // create a separate instruction but de-duplicate the execution
     // here.
-    private static void executeRlc(EmulatorState state, SettableValueContainer<Byte> container) {
-        byte oldValue = container.get(state);
-        int newCarry = (oldValue & 0xFF) >>> 7;
-        byte newValue = (byte)((oldValue << 1) | newCarry);
-
-        container.set(state, newValue);
-        state.registerState.flags.setC(newCarry);
-        state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
-        state.registerState.flags.setN(0);
-        state.registerState.flags.setH(0);
+    private static void executeRlc(EmulatorState state, SettableByteOperand container) {
+        int oldValue = container.getInt(state);
+        int newCarry = oldValue >>> 7;
+        int newValue = ((oldValue << 1) | newCarry) & 0xFF;
+
+        container.setInt(state, newValue);
+        state.registerState.flags.setShift(newValue, newCarry);
     }
 
-    private static void executeRrc(EmulatorState state, SettableValueContainer<Byte> container) {
-        byte oldValue = container.get(state);
+    private static void executeRrc(EmulatorState state, SettableByteOperand container) {
+        int oldValue = container.getInt(state);
         int newCarry = oldValue & 1;
-        byte newValue = (byte)(((oldValue & 0xFF) >>> 1) | (newCarry << 7));
+        int newValue = (oldValue >>> 1) | (newCarry << 7);
 
-        container.set(state, newValue);
-        state.registerState.flags.setC(newCarry);
-        state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
-        state.registerState.flags.setN(0);
-        state.registerState.flags.setH(0);
+        container.setInt(state, newValue);
+        state.registerState.flags.setShift(newValue, newCarry);
     }
 
-    private static void executeRl(EmulatorState state, SettableValueContainer<Byte> container) {
+    private static void executeRl(EmulatorState state, SettableByteOperand container) {
         int oldCarry = state.registerState.flags.getC();
-        byte oldValue = container.get(state);
-        byte newValue = (byte)((oldValue << 1) | oldCarry);
-        int newCarry = (oldValue & 0xFF) >>> 7;
-
-        container.set(state, newValue);
-        state.registerState.flags.setC(newCarry);
-        state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
-        state.registerState.flags.setN(0);
-        state.registerState.flags.setH(0);
+        int oldValue = container.getInt(state);
+        int newValue = ((oldValue << 1) | oldCarry) & 0xFF;
+        int newCarry = oldValue >>> 7;
+
+        container.setInt(state, newValue);
+        state.registerState.flags.setShift(newValue, newCarry);
     }
 
-    private static void executeRr(EmulatorState state, SettableValueContainer<Byte> container) {
+    private static void executeRr(EmulatorState state, SettableByteOperand container) {
         int shiftedCarry = state.registerState.flags.getC() << 7;
-        byte oldValue = container.get(state);
-        byte newValue = (byte)(((oldValue & 0xFF) >>> 1) | shiftedCarry);
+        int oldValue = container.getInt(state);
+        int newValue = (oldValue >>> 1) | shiftedCarry;
         int carry = oldValue & 1;
 
-        container.set(state, newValue);
-        state.registerState.flags.setC(carry);
-        state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
-        state.registerState.flags.setN(0);
-        state.registerState.flags.setH(0);
+        container.setInt(state, newValue);
+        state.registerState.flags.setShift(newValue, carry);
     }
 
     public static class RlaInstruction extends Instruction {
@@ -166,9 +153,9 @@ public final class BitwiseInstructions {
     // Performs a rotate-left on an 8-bit value container and sets the carry
     // flag to be the original 7th bit.
     public static class RlcInstruction extends Instruction {
-        private final SettableValueContainer<Byte> _container;
+        private final SettableByteOperand _container;
 
-        public RlcInstruction(SettableValueContainer<Byte> container) {
+        public RlcInstruction(SettableByteOperand container) {
             _container = container;
         }
 
@@ -199,9 +186,9 @@ public final class BitwiseInstructions {
     // Performs a rotate-right on an 8-bit value container and sets the carry
     // flag to be the original 0th bit.
     public static class RrcInstruction extends Instruction {
-        private final SettableValueContainer<Byte> _container;
+        private final SettableByteOperand _container;
 
-        public RrcInstruction(SettableValueContainer<Byte> container) {
+        public RrcInstruction(SettableByteOperand container) {
             _container = container;
         }
 
@@ -231,9 +218,9 @@ public final class BitwiseInstructions {
 
     // Performs a rotate-left through carry on an 8-bit value container.
     public static class RlInstruction extends Instruction {
-        private final SettableValueContainer<Byte> _container;
+        private final SettableByteOperand _container;
 
-        public RlInstruction(SettableValueContainer<Byte> container) {
+        public RlInstruction(SettableByteOperand container) {
             _container = container;
         }
 
@@ -263,9 +250,9 @@ public final class BitwiseInstructions {
 
     // Performs a rotate-right through carry on an 8-bit value container.
     public static class RrInstruction extends Instruction {
-        private final SettableValueContainer<Byte> _container;
+        private final SettableByteOperand _container;
 
-        public RrInstruction(SettableValueContainer<Byte> container) {
+        public RrInstruction(SettableByteOperand container) {
             _container = container;
         }
 
@@ -296,9 +283,9 @@ public final class BitwiseInstructions {
     // Performs an arithmetic shift left by one on an 8-bit value container and
     // stores the lost bit in the carry flag.
     public static class SlaInstruction extends Instruction {
-        private final SettableValueContainer<Byte> _container;
+        private final SettableByteOperand _container;
 
-        public SlaInstruction(SettableValueContainer<Byte> container) {
+        public SlaInstruction(SettableByteOperand container) {
             _container = container;
         }
 
@@ -322,24 +309,21 @@ public final class BitwiseInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            byte oldValue = _container.get(state);
-            byte newValue = (byte)(oldValue << 1);
-            int carry = (byte)((oldValue & 0xFF) >>> 7);
+            int oldValue = _container.getInt(state);
+            int newValue = (oldValue << 1) & 0xFF;
+            int carry = oldValue >>> 7;
 
-            _container.set(state, newValue);
-            state.registerState.flags.setC(carry);
-            state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
-            state.registerState.flags.setN(0);
-            state.registerState.flags.setH(0);
+            _container.setInt(state, newValue);
+            state.registerState.flags.setShift(newValue, carry);
         }
     }
 
     // Performs an arithmetic shift right by one on an 8-bit value container
     // and stores the lost bit in the carry flag.
     public static class SraInstruction extends Instruction {
-        private final SettableValueContainer<Byte> _container;
+        private final SettableByteOperand _container;
 
-        public SraInstruction(SettableValueContainer<Byte> container) {
+        public SraInstruction(SettableByteOperand container) {
             _container = container;
         }
 
@@ -363,24 +347,21 @@ public final class BitwiseInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            byte oldValue = _container.get(state);
-            byte newValue = (byte)(oldValue >> 1);
+            int oldValue = _container.getInt(state);
+            int newValue = (oldValue >>> 1) | (oldValue & 0x80);
             int carry = oldValue & 1;
 
-            _container.set(state, newValue);
-            state.registerState.flags.setC(carry);
-            state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
-            state.registerState.flags.setN(0);
-            state.registerState.flags.setH(0);
+            _container.setInt(state, newValue);
+            state.registerState.flags.setShift(newValue, carry);
         }
     }
 
     // Performs a logical shift right by one on an 8-bit value container and
     // stores the lost bit in the carry flag.
     public static class SrlInstruction extends Instruction {
-        private final SettableValueContainer<Byte> _container;
+        private final SettableByteOperand _container;
 
-        public SrlInstruction(SettableValueContainer<Byte> container) {
+        public SrlInstruction(SettableByteOperand container) {
             _container = container;
         }
 
@@ -404,23 +385,20 @@ public final class BitwiseInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            byte oldValue = _container.get(state);
-            byte newValue = (byte)((oldValue & 0xFF) >>> 1);
+            int oldValue = _container.getInt(state);
+            int newValue = oldValue >>> 1;
             int carry = oldValue & 1;
 
-            _container.set(state, newValue);
-            state.registerState.flags.setC(carry);
-            state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
-            state.registerState.flags.setN(0);
-            state.registerState.flags.setH(0);
+            _container.setInt(state, newValue);
+            state.registerState.flags.setShift(newValue, carry);
         }
     }
 
     // Swaps the low and high nibbles of an 8-bit value container.
     public static class SwapInstruction extends Instruction {
-        private final SettableValueContainer<Byte> _container;
+        private final SettableByteOperand _container;
 
-        public SwapInstruction(SettableValueContainer<Byte> container) {
+        public SwapInstruction(SettableByteOperand container) {
             _container = container;
         }
 
@@ -444,12 +422,12 @@ public final class BitwiseInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            byte value = _container.get(state);
-            byte lowNibble = (byte)(value & 0xF);
-            byte highNibble = (byte)(value >> 4);
-            byte newValue = (byte)((lowNibble << 4) | highNibble);
+            int value = _container.getInt(state);
+            int lowNibble = value & 0xF;
+            int highNibble = value >>> 4;
+            int newValue = (lowNibble << 4) | highNibble;
 
-            _container.set(state, newValue);
+            _container.setInt(state, newValue);
             state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
         }
     }
@@ -458,14 +436,18 @@ public final class BitwiseInstructions {
     // flag.
     public static class BitInstruction extends Instruction {
         private final int _bitIndex;
-        private final SettableValueContainer<Byte> _container;
+        private final SettableByteOperand _container;
 
-        public BitInstruction(int bitIndex, SettableValueContainer<Byte> container) {
+        public BitInstruction(int bitIndex, SettableByteOperand container) {
             checkArgument(bitIndex >= 0 && bitIndex < 8);
             _bitIndex = bitIndex;
             _container = container;
         }
 
+        public ByteOperand getOperand() {
+            return _container;
+        }
+
         @Override
         public boolean equals(Object rhs) {
             if (rhs == null || getClass() != rhs.getClass())
@@ -489,7 +471,7 @@ public final class BitwiseInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            int bit = Util.getBit(_container.get(state), _bitIndex);
+            int bit = (_container.getInt(state) >>> _bitIndex) & 1;
             int isZero = ~bit & 1;
 
             state.registerState.flags.setZ(isZero);
@@ -501,9 +483,9 @@ public final class BitwiseInstructions {
     // Resets a bit in a given 8-bit value container.
     public static class ResInstruction extends Instruction {
         private final int _bitIndex;
-        private final SettableValueContainer<Byte> _container;
+        private final SettableByteOperand _container;
 
-        public ResInstruction(int bitIndex, SettableValueContainer<Byte> container) {
+        public ResInstruction(int bitIndex, SettableByteOperand container) {
             checkArgument(bitIndex >= 0 && bitIndex < 8);
             _bitIndex = bitIndex;
             _container = container;
@@ -532,17 +514,16 @@ public final class BitwiseInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            byte newValue = Util.setBit(_container.get(state), _bitIndex, 0);
-            _container.set(state, newValue);
+            _container.setInt(state, _container.getInt(state) & ~(1 << _bitIndex));
         }
     }
 
     // Sets a bit in a given 8-bit value container.
     public static class SetInstruction extends Instruction {
         private final int _bitIndex;
-        private final SettableValueContainer<Byte> _container;
+        private final SettableByteOperand _container;
 
-        public SetInstruction(int bitIndex, SettableValueContainer<Byte> container) {
+        public SetInstruction(int bitIndex, SettableByteOperand container) {
             checkArgument(bitIndex >= 0 && bitIndex < 8);
             _bitIndex = bitIndex;
             _container = container;
@@ -569,18 +550,21 @@ public final class BitwiseInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            byte newValue = Util.setBit(_container.get(state), _bitIndex, 1);
-            _container.set(state, newValue);
+            _container.setInt(state, _container.getInt(state) | (1 << _bitIndex));
         }
     }
 
     public static class AndInstruction extends Instruction {
-        private final ValueContainer<Byte> _container;
+        private final ByteOperand _container;
 
-        public AndInstruction(ValueContainer<Byte> container) {
+        public AndInstruction(ByteOperand container) {
             _container = container;
         }
 
+        public ByteOperand getOperand() {
+            return _container;
+        }
+
         @Override
         public boolean equals(Object rhs) {
             if (rhs == null || getClass() != rhs.getClass())
@@ -601,23 +585,24 @@ public final class BitwiseInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            byte newValue = (byte)(Register8.A.get(state) & _container.get(state));
-            Register8.A.set(state, newValue);
+            int newValue = Register8.A.getInt(state) & _container.getInt(state);
+            Register8.A.setInt(state, newValue);
 
-            state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
-            state.registerState.flags.setN(0);
-            state.registerState.flags.setH(1);
-            state.registerState.flags.setC(0);
+            state.registerState.flags.setLogic(newValue, 1);
         }
     }
 
         public static class OrInstruction extends Instruction {
-        private final ValueContainer<Byte> _container;
+        private final ByteOperand _container;
 
-        public OrInstruction(ValueContainer<Byte> container) {
+        public OrInstruction(ByteOperand container) {
             _container = container;
         }
 
+        public ByteOperand getOperand() {
+            return _container;
+        }
+
         @Override
         public boolean equals(Object rhs) {
             if (rhs == null || getClass() != rhs.getClass())
@@ -638,23 +623,24 @@ public final class BitwiseInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            byte newValue = (byte)(Register8.A.get(state) | _container.get(state));
-            Register8.A.set(state, newValue);
+            int newValue = Register8.A.getInt(state) | _container.getInt(state);
+            Register8.A.setInt(state, newValue);
 
-            state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
-            state.registerState.flags.setN(0);
-            state.registerState.flags.setH(0);
-            state.registerState.flags.setC(0);
+            state.registerState.flags.setLogic(newValue, 0);
         }
     }
 
     public static class XorInstruction extends Instruction {
-        private final ValueContainer<Byte> _container;
+        private final ByteOperand _container;
 
-        public XorInstruction(ValueContainer<Byte> container) {
+        public XorInstruction(ByteOperand container) {
             _container = container;
         }
 
+        public ByteOperand getOperand() {
+            return _container;
+        }
+
         @Override
         public boolean equals(Object rhs) {
             if (rhs == null || getClass() != rhs.getClass())
@@ -675,13 +661,10 @@ public final class BitwiseInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            byte newValue = (byte)(Register8.A.get(state) ^ _container.get(state));
-            Register8.A.set(state, newValue);
+            int newValue = Register8.A.getInt(state) ^ _container.getInt(state);
+            Register8.A.setInt(state, newValue);
 
-            state.registerState.flags.setZ(newValue == 0 ? 1 : 0);
-            state.registerState.flags.setN(0);
-            state.registerState.flags.setH(0);
-            state.registerState.flags.setC(0);
+            state.registerState.flags.setLogic(newValue, 0);
         }
     }
 
@@ -703,8 +686,8 @@ public final class BitwiseInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            byte newValue = (byte)(Register8.A.get(state) ^ 0xFF);
-            Register8.A.set(state, newValue);
+            int newValue = Register8.A.getInt(state) ^ 0xFF;
+            Register8.A.setInt(state, newValue);
 
             state.registerState.flags.setN(1);
             state.registerState.flags.setH(1);
@@ -30,7 +30,7 @@ public class CpuControlInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            state.interruptsEnabled = true;
+            state.interrupts.enableAfterNextInstruction();
         }
     }
 
@@ -52,7 +52,7 @@ public class CpuControlInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            state.interruptsEnabled = false;
+            state.interrupts.disable();
         }
     }
 
@@ -72,6 +72,11 @@ public class CpuControlInstructions {
             return "HALT";
         }
 
+        @Override
+        public boolean endsBasicBlock() {
+            return true;
+        }
+
         @Override
         public void execute(EmulatorState state) {
             state.halt();
@@ -94,6 +99,11 @@ public class CpuControlInstructions {
             return "STOP";
         }
 
+        @Override
+        public boolean endsBasicBlock() {
+            return true;
+        }
+
         @Override
         public void execute(EmulatorState state) {
             // We'll cross this bridge if any ROMs actually need this instr...
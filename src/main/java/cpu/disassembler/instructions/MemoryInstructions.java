@@ -14,21 +14,24 @@ import java.util.Objects;
 public final class MemoryInstructions {
     private MemoryInstructions() {}
 
+    // The (HL) operand used by LDI and LDD.
+    private final static SettableByteOperand HL_POINTER =
+            new DereferencedRegisterByte(Register16.HL);
+
     private static void updateSp(EmulatorState state, int delta) {
-        short newValue = (short)(Register16.SP.get(state) + delta);
-        Register16.SP.set(state, newValue);
+        Register16.SP.setInt(state, Register16.SP.getInt(state) + delta);
     }
 
     public static void push(EmulatorState state, short value) {
         updateSp(state, -2);
 
         // When pushing, the most significant byte goes first on the stack.
-        short sp = Register16.SP.get(state);
+        short sp = (short)Register16.SP.getInt(state);
         state.memory.writeShort(sp, Util.swapBytes(value));
     }
 
     public static short pop(EmulatorState state) {
-        short sp = Register16.SP.get(state);
+        short sp = (short)Register16.SP.getInt(state);
         short returnValue = Util.swapBytes(state.memory.readShort(sp));
 
         updateSp(state, 2);
@@ -37,26 +40,22 @@ public final class MemoryInstructions {
 
     private static void load8(
             EmulatorState state,
-            SettableValueContainer<Byte> dest,
-            ValueContainer<Byte> src) {
-        dest.set(state, src.get(state));
+            SettableByteOperand dest,
+            ByteOperand src) {
+        dest.setInt(state, src.getInt(state));
     }
 
     private static void ldAHL(EmulatorState state, boolean writeToHL) {
-        SettableValueContainer<Byte> bytePtr = new DereferencedRegisterByte(
-                Register16.HL);
-
         if (writeToHL)
-            load8(state, bytePtr, Register8.A);
+            load8(state, HL_POINTER, Register8.A);
         else
-            load8(state, Register8.A, bytePtr);
-
+            load8(state, Register8.A, HL_POINTER);
     }
 
     public static class PushInstruction extends Instruction {
-        private final ValueContainer<Short> _container;
+        private final ShortOperand _container;
 
-        public PushInstruction(ValueContainer<Short> container) {
+        public PushInstruction(ShortOperand container) {
             _container = container;
         }
 
@@ -80,14 +79,14 @@ public final class MemoryInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            push(state, _container.get(state));
+            push(state, (short)_container.getInt(state));
         }
     }
 
     public static class PopInstruction extends Instruction {
-        private final SettableValueContainer<Short> _container;
+        private final SettableShortOperand _container;
 
-        public PopInstruction(SettableValueContainer<Short> container) {
+        public PopInstruction(SettableShortOperand container) {
             _container = container;
         }
 
@@ -111,19 +110,27 @@ public final class MemoryInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            _container.set(state, pop(state));
+            _container.setInt(state, pop(state));
         }
     }
 
     public static class Ld8Instruction extends Instruction {
-        private final SettableValueContainer<Byte> _dest;
-        private final ValueContainer<Byte> _src;
+        private final SettableByteOperand _dest;
+        private final ByteOperand _src;
 
-        public Ld8Instruction(SettableValueContainer<Byte> dest, ValueContainer<Byte> src) {
+        public Ld8Instruction(SettableByteOperand dest, ByteOperand src) {
             _dest = dest;
             _src = src;
         }
 
+        public SettableByteOperand getDest() {
+            return _dest;
+        }
+
+        public ByteOperand getSrc() {
+            return _src;
+        }
+
         @Override
         public boolean equals(Object rhs) {
             if (rhs == null || getClass() != rhs.getClass())
@@ -150,10 +157,10 @@ public final class MemoryInstructions {
     }
 
     public static class Ld16Instruction extends Instruction {
-        private final SettableValueContainer<Short> _dest;
-        private final ValueContainer<Short> _src;
+        private final SettableShortOperand _dest;
+        private final ShortOperand _src;
 
-        public Ld16Instruction(SettableValueContainer<Short> dest, ValueContainer<Short> src) {
+        public Ld16Instruction(SettableShortOperand dest, ShortOperand src) {
             _dest = dest;
             _src = src;
         }
@@ -179,7 +186,7 @@ public final class MemoryInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            _dest.set(state, _src.get(state));
+            _dest.setInt(state, _src.getInt(state));
         }
     }
 
@@ -222,7 +229,7 @@ public final class MemoryInstructions {
         @Override
         public void execute(EmulatorState state) {
             ldAHL(state, _writeToHL);
-            Register16.HL.set(state, (short) (Register16.HL.get(state) + 1));
+            Register16.HL.setInt(state, Register16.HL.getInt(state) + 1);
         }
     }
 
@@ -265,7 +272,7 @@ public final class MemoryInstructions {
         @Override
         public void execute(EmulatorState state) {
             ldAHL(state, _writeToHL);
-            Register16.HL.set(state, (short)(Register16.HL.get(state) - 1));
+            Register16.HL.setInt(state, Register16.HL.getInt(state) - 1);
         }
     }
 
@@ -305,13 +312,12 @@ public final class MemoryInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            short address = (short)(0xFF00 + Register8.C.get(state));
-            SettableValueContainer<Byte> bytePtr = new BytePointer(address);
+            short address = (short)(0xFF00 + Register8.C.getInt(state));
 
             if (_writeToPort)
-                load8(state, bytePtr, Register8.A);
+                state.memory.writeByte(address, (byte)Register8.A.getInt(state));
             else
-                load8(state, Register8.A, bytePtr);
+                Register8.A.setInt(state, state.memory.readByte(address));
         }
     }
 
@@ -333,7 +339,7 @@ public final class MemoryInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            Register16.SP.set(state, Register16.HL.get(state));
+            Register16.SP.setInt(state, Register16.HL.getInt(state));
         }
     }
 
@@ -364,9 +370,8 @@ public final class MemoryInstructions {
 
         @Override
         public void execute(EmulatorState state) {
-            short oldValue = Register16.SP.get(state);
-            short newValue = (short)(oldValue + _offset);
-            Register16.HL.set(state, newValue);
+            short oldValue = (short)Register16.SP.getInt(state);
+            Register16.HL.setInt(state, oldValue + _offset);
 
             state.registerState.flags.setZ(0);
             state.registerState.flags.setN(0);
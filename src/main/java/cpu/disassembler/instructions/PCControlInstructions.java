@@ -3,7 +3,7 @@ package cpu.disassembler.instructions;
 import cpu.EmulatorState;
 import cpu.disassembler.Instruction;
 import cpu.disassembler.instruction_args.Register16;
-import cpu.disassembler.instruction_args.ValueContainer;
+import cpu.disassembler.instruction_args.ShortOperand;
 import util.Util;
 
 import java.util.Objects;
@@ -73,25 +73,29 @@ public final class PCControlInstructions {
 
     private static void call(EmulatorState state, short address) {
         MemoryInstructions.push(state, address);
-        Register16.PC.set(state, address);
+        Register16.PC.setInt(state, address);
     }
 
     private static void ret(EmulatorState state) {
         short returnAddr = MemoryInstructions.pop(state);
-        Register16.PC.set(state, returnAddr);
+        Register16.PC.setInt(state, returnAddr);
     }
 
     public static class JpInstruction extends Instruction {
         private final JumpFlag _flag;
         private final boolean _negated;
-        private final ValueContainer<Short> _address;
+        private final ShortOperand _address;
 
-        public JpInstruction(JumpFlag flag, boolean negated, ValueContainer<Short> address) {
+        public JpInstruction(JumpFlag flag, boolean negated, ShortOperand address) {
             _flag = flag;
             _negated = negated;
             _address = address;
         }
 
+        public boolean isConditional() {
+            return _flag != JumpFlag.None;
+        }
+
         @Override
         public boolean equals(Object rhs) {
             if (rhs == null || getClass() != rhs.getClass())
@@ -120,10 +124,15 @@ public final class PCControlInstructions {
             return shouldJump(state, _flag, _negated) ? 4 : 0;
         }
 
+        @Override
+        public boolean endsBasicBlock() {
+            return true;
+        }
+
         @Override
         public void execute(EmulatorState state) {
             if (shouldJump(state, _flag, _negated))
-                Register16.PC.set(state, _address.get(state));
+                Register16.PC.setInt(state, _address.getInt(state));
         }
     }
 
@@ -138,6 +147,10 @@ public final class PCControlInstructions {
             _offset = offset;
         }
 
+        public boolean isConditional() {
+            return _flag != JumpFlag.None;
+        }
+
         @Override
         public boolean equals(Object rhs) {
             if (rhs == null || getClass() != rhs.getClass())
@@ -165,11 +178,16 @@ public final class PCControlInstructions {
 
             return shouldJump(state, _flag, _negated) ? 4 : 0;
         }
+
+        @Override
+        public boolean endsBasicBlock() {
+            return true;
+        }
+
         @Override
         public void execute(EmulatorState state) {
             if (shouldJump(state, _flag, _negated)) {
-                short newAddr = (short)(Register16.PC.get(state) + _offset);
-                Register16.PC.set(state, newAddr);
+                Register16.PC.setInt(state, Register16.PC.getInt(state) + _offset);
             }
         }
     }
@@ -177,9 +195,9 @@ public final class PCControlInstructions {
     public static class CallInstruction extends Instruction {
         private final JumpFlag _flag;
         private final boolean _negated;
-        private final ValueContainer<Short> _address;
+        private final ShortOperand _address;
 
-        public CallInstruction(JumpFlag flag, boolean negated, ValueContainer<Short> address) {
+        public CallInstruction(JumpFlag flag, boolean negated, ShortOperand address) {
             _flag = flag;
             _negated = negated;
             _address = address;
@@ -212,10 +230,16 @@ public final class PCControlInstructions {
 
             return shouldJump(state, _flag, _negated) ? 12 : 0;
         }
+
+        @Override
+        public boolean endsBasicBlock() {
+            return true;
+        }
+
         @Override
         public void execute(EmulatorState state) {
             if (shouldJump(state, _flag, _negated))
-                call(state, _address.get(state));
+                call(state, (short)_address.getInt(state));
         }
     }
 
@@ -244,6 +268,11 @@ public final class PCControlInstructions {
             return String.format("RST %s", Util.byteToHexString(_addr));
         }
 
+        @Override
+        public boolean endsBasicBlock() {
+            return true;
+        }
+
         @Override
         public void execute(EmulatorState state) {
             call(state, _addr);
@@ -285,6 +314,12 @@ public final class PCControlInstructions {
 
             return shouldJump(state, _flag, _negated) ? 12 : 0;
         }
+
+        @Override
+        public boolean endsBasicBlock() {
+            return true;
+        }
+
         @Override
         public void execute(EmulatorState state) {
             if (shouldJump(state, _flag, _negated))
@@ -308,9 +343,14 @@ public final class PCControlInstructions {
             return "RETI";
         }
 
+        @Override
+        public boolean endsBasicBlock() {
+            return true;
+        }
+
         @Override
         public void execute(EmulatorState state) {
-            state.interruptsEnabled = true;
+            state.interrupts.enable();
             ret(state);
         }
     }
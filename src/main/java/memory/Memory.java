@@ -6,10 +6,7 @@ import memory.components.graphics.OamRam;
 import memory.components.memory_bank_controllers.MemoryBankController;
 import util.Util;
 
-import static com.google.common.base.Preconditions.*;
-
 import java.util.Arrays;
-import java.util.List;
 
 /**
  * Represents the address space of the Gameboy.
@@ -18,59 +15,254 @@ import java.util.List;
  * responsible for a different subset of the address space. This is because
  * while some of the address space simply acts as RAM, other parts, like the
  * ROM (controlled by the MemoryBankController) acts
+ *
+ * Which component handles each address is worked out once, when Memory is
+ * constructed, and stored in a page table with one entry per 256-byte page.
+ * The two pages that are shared by several components (FE00..FEFF and
+ * FF00..FFFF) have a table of their own with one entry per address.
+ *
+ * Regions that are just an array of bytes skip their component entirely:
+ * pages that are entirely plain RAM (including the echo of work RAM) are read
+ * and written directly through the RAM's byte array, ROM bank 0 is read
+ * directly from the cartridge's bytes, and so is HRAM. Only the hardware
+ * registers, OAM, the switchable ROM bank, cartridge RAM and writes to ROM
+ * (which control the MBC) go through a component.
  */
 public class Memory {
-    private final List<MemoryComponent> _components;
+    public final static int PAGE_SIZE = 0x100;
+    private final static int NUM_PAGES = 0x100;
+
+    private final static int ROM_BANK_0_END = 0x4000;
+
+    // Echo RAM mirrors work RAM from its start.
+    private final static int WORK_RAM_START = 0xC000;
+    private final static int ECHO_RAM_END = 0xFE00;
+    private final static int ECHO_OFFSET = EchoRam.START_ADDRESS - WORK_RAM_START;
+    private final static int HRAM_START = 0xFF80;
+    private final static int HRAM_END = 0xFFFF;
+
+    // The component responsible for every address in each page, or null if
+    // the page is split between components (or partly unmapped).
+    private final MemoryComponent[] _pages;
+
+    // For split pages, the component responsible for each address in the
+    // page (null where no component is). Null for every other page.
+    private final MemoryComponent[][] _splitPages;
+
+    // For pages that can be read directly, the bytes backing the page and
+    // the index of the page's first byte in them. Null for every other page.
+    private final byte[][] _readPages;
+    private final int[] _readPageOffsets;
 
+    // The same for pages that can be written directly.
+    private final byte[][] _writePages;
+    private final int[] _writePageOffsets;
+
+    // HRAM is read and written directly as well, but doesn't fill a page.
+    private final byte[] _hramBytes;
+
+    // Addresses whose writes should be reported to _writeWatcher.
+    private final boolean[] _watched;
+    private WriteWatcher _writeWatcher;
+
+    public final MemoryBankController mbc;
     public final OamRam oam;
     public final HardwareRegistersMemoryComponent regs;
 
     public Memory(EmulatorState state, MemoryBankController mbc) {
-        Ram workRam = new Ram((short)0xC000, (short)0xE000);
+        this.mbc = mbc;
+        Ram workRam = new Ram((short)WORK_RAM_START, (short)EchoRam.START_ADDRESS);
 
         // TODO(ddoucet): When VRAM is done, it should be its own class here,
         // rather than simple RAM.
         regs = new HardwareRegistersMemoryComponent(state);
         oam = new OamRam(regs.lcdControllerRegister);
 
+        EchoRam echoRam = new EchoRam(workRam);
+        Ram hram = new Ram((short)HRAM_START, (short)HRAM_END);
+        _hramBytes = hram.getBytes();
+
         // MBC handles ROM (0000..7FFF) as well as cartridge RAM (A000..BFFF)
-        _components = Arrays.asList(
+        MemoryComponent[] components = new MemoryComponent[] {
                 mbc,
                 new Ram((short)0x8000, (short)0xA000),  // VRAM
                 workRam,
-                new EchoRam(workRam),
+                echoRam,
                 oam,
                 // FEA0..FEFF is unusable
                 regs,
-                new Ram((short)0xFF80, (short)0xFFFF),  // HRAM
-                new InterruptEnableMemoryComponent(state)
-        );
+                hram,
+                new InterruptEnableMemoryComponent(state.interrupts)
+        };
+
+        _pages = new MemoryComponent[NUM_PAGES];
+        _splitPages = new MemoryComponent[NUM_PAGES][];
+        _readPages = new byte[NUM_PAGES][];
+        _readPageOffsets = new int[NUM_PAGES];
+        _writePages = new byte[NUM_PAGES][];
+        _writePageOffsets = new int[NUM_PAGES];
+        buildPageTable(components, echoRam);
+
+        _watched = new boolean[0x10000];
     }
 
-    private MemoryComponent findComponent(short address) {
+    // Finds the component responsible for the given address, making sure
+    // there's at most one. The MBC is null when there's no cartridge.
+    private static MemoryComponent findComponent(MemoryComponent[] components, int address) {
         MemoryComponent ret = null;
 
-        for (MemoryComponent component : _components) {
-            if (component.isResponsibleFor(address)) {
-                if (ret != null) {
-                    String error = String.format("Already found component" +
-                            "responsible for address %s: %s (second component" +
-                            "%s)", Util.shortToHexString(address),
-                            ret.getClass().getName(), component.getClass().getName());
-                    throw new IllegalStateException(error);
-                }
-
-                ret = component;
+        for (MemoryComponent component : components) {
+            if (component == null || !component.isResponsibleFor((short)address))
+                continue;
+
+            if (ret != null) {
+                String error = String.format("Already found component " +
+                        "responsible for address %s: %s (second component " +
+                        "%s)", Util.shortToHexString((short)address),
+                        ret.getClass().getName(), component.getClass().getName());
+                throw new IllegalStateException(error);
             }
+
+            ret = component;
         }
 
-        checkState(ret != null, "Unable to find MemoryComponent that can handle" +
-                "address %s", Util.shortToHexString(address));
         return ret;
     }
 
+    // Fills entries[first..last] with the component responsible for each
+    // address, halving the range until each half belongs to one component
+    // (by the same reasoning as in buildPageTable()).
+    private static void fillSplitPage(MemoryComponent[] components, int pageStart,
+                                      MemoryComponent[] entries, int first, int last) {
+        MemoryComponent component = findComponent(components, pageStart + first);
+        if (component == findComponent(components, pageStart + last)) {
+            Arrays.fill(entries, first, last + 1, component);
+            return;
+        }
+
+        int middle = (first + last) / 2;
+        fillSplitPage(components, pageStart, entries, first, middle);
+        fillSplitPage(components, pageStart, entries, middle + 1, last);
+    }
+
+    private void buildPageTable(MemoryComponent[] components, EchoRam echoRam) {
+        for (int page = 0; page < NUM_PAGES; page++) {
+            int pageStart = page * PAGE_SIZE;
+
+            // Every component covers contiguous ranges of addresses, so a
+            // page whose first and last bytes belong to the same component
+            // (or to none) belongs to it entirely.
+            MemoryComponent component = findComponent(components, pageStart);
+            if (component != findComponent(components, pageStart + PAGE_SIZE - 1)) {
+                MemoryComponent[] entries = new MemoryComponent[PAGE_SIZE];
+                fillSplitPage(components, pageStart, entries, 0, PAGE_SIZE - 1);
+
+                _splitPages[page] = entries;
+                continue;
+            }
+
+            _pages[page] = component;
+            if (component == null)
+                continue;
+
+            // Pages of plain RAM are accessed directly. Only exactly Ram,
+            // since a subclass may do more than store bytes.
+            Ram ram = null;
+            int ramAddress = pageStart;
+            if (component.getClass() == Ram.class) {
+                ram = (Ram)component;
+            } else if (component == echoRam) {
+                ram = echoRam.getRam();
+                ramAddress = pageStart - EchoRam.START_ADDRESS + ram.start;
+            }
+
+            if (ram != null) {
+                _readPages[page] = _writePages[page] = ram.getBytes();
+                _readPageOffsets[page] = _writePageOffsets[page] = ramAddress - ram.start;
+            }
+
+            // Bank 0 of the ROM never moves.
+            if (component == mbc && pageStart < ROM_BANK_0_END && mbc.getRomBytes() != null) {
+                _readPages[page] = mbc.getRomBytes();
+                _readPageOffsets[page] = pageStart;
+            }
+        }
+    }
+
+    // Replacing the watcher (or removing it by passing null) unwatches every
+    // address.
+    public void setWriteWatcher(WriteWatcher watcher) {
+        Arrays.fill(_watched, false);
+        _writeWatcher = watcher;
+    }
+
+    // Marks whether writes to the given address should be reported to the
+    // WriteWatcher. Writes to a work RAM address through echo RAM change the
+    // same byte, so its mirror is watched too, and writes to the mirror are
+    // reported with the work RAM address.
+    public void setWatched(short address, boolean watched) {
+        int unsignedAddress = address & 0xFFFF;
+        _watched[unsignedAddress] = watched;
+
+        int mirror = unsignedAddress + ECHO_OFFSET;
+        if (unsignedAddress >= WORK_RAM_START && mirror < ECHO_RAM_END)
+            _watched[mirror] = watched;
+    }
+
+    private static boolean isEchoRamAddress(int address) {
+        return address >= EchoRam.START_ADDRESS && address < ECHO_RAM_END;
+    }
+
+    private MemoryComponent findComponent(short address) {
+        int page = (address & 0xFFFF) / PAGE_SIZE;
+
+        MemoryComponent ret = _pages[page];
+        if (ret == null && _splitPages[page] != null)
+            ret = _splitPages[page][address & (PAGE_SIZE - 1)];
+
+        // Not checkState(): its message arguments would be built on every
+        // memory access.
+        if (ret == null)
+            throw new IllegalStateException("Unable to find MemoryComponent " +
+                    "that can handle address " + Util.shortToHexString(address));
+
+        return ret;
+    }
+
+    /*
+     * Returns the array backing reads from the given page, or null if reads
+     * from the page have to go through readByte(). The byte at an address in
+     * the page is getReadPage(page)[getReadPageOffset(page) + (address & 0xFF)].
+     *
+     * The mapping of a page never changes, so callers may keep the array.
+     */
+    public byte[] getReadPage(int page) {
+        return _readPages[page];
+    }
+
+    public int getReadPageOffset(int page) {
+        return _readPageOffsets[page];
+    }
+
+    private static boolean isHramAddress(int address) {
+        return address >= HRAM_START && address < HRAM_END;
+    }
+
     public void writeByte(short address, byte value) {
-        findComponent(address).write(address, value);
+        int unsignedAddress = address & 0xFFFF;
+        if (_watched[unsignedAddress])
+            _writeWatcher.onWatchedWrite(isEchoRamAddress(unsignedAddress)
+                    ? (short)(unsignedAddress - ECHO_OFFSET)
+                    : address);
+
+        int page = unsignedAddress / PAGE_SIZE;
+        byte[] bytes = _writePages[page];
+        if (bytes != null)
+            bytes[_writePageOffsets[page] + (unsignedAddress & (PAGE_SIZE - 1))] = value;
+        else if (isHramAddress(unsignedAddress))
+            _hramBytes[unsignedAddress - HRAM_START] = value;
+        else
+            findComponent(address).writeMapped(address, value);
     }
 
     public void writeShort(short address, short value) {
@@ -79,10 +271,31 @@ public class Memory {
     }
 
     public byte readByte(short address) {
-        return findComponent(address).read(address);
+        int unsignedAddress = address & 0xFFFF;
+        int page = unsignedAddress / PAGE_SIZE;
+
+        byte[] bytes = _readPages[page];
+        if (bytes != null)
+            return bytes[_readPageOffsets[page] + (unsignedAddress & (PAGE_SIZE - 1))];
+
+        if (isHramAddress(unsignedAddress))
+            return _hramBytes[unsignedAddress - HRAM_START];
+
+        return findComponent(address).readMapped(address);
     }
 
     public short readShort(short address) {
+        int unsignedAddress = address & 0xFFFF;
+        int page = unsignedAddress / PAGE_SIZE;
+        int index = unsignedAddress & (PAGE_SIZE - 1);
+
+        // Both bytes are in the same directly readable page.
+        byte[] bytes = _readPages[page];
+        if (bytes != null && index < PAGE_SIZE - 1) {
+            int offset = _readPageOffsets[page] + index;
+            return Util.shortFromBytes(bytes[offset + 1], bytes[offset]);
+        }
+
         byte low = readByte(address);
         byte high = readByte((short)(address + 1));
         return Util.shortFromBytes(high, low);
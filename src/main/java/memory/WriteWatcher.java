@@ -0,0 +1,9 @@
+package memory;
+
+/**
+ * Notified by Memory before a write to any address that has been marked as
+ * watched (see Memory.setWatched()).
+ */
+public interface WriteWatcher {
+    public void onWatchedWrite(short address);
+}
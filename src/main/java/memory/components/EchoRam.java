@@ -6,7 +6,7 @@ package memory.components;
  * RAM.
  */
 public class EchoRam extends MemoryComponent {
-    private final static int START_ADDRESS = 0xE000;
+    public final static int START_ADDRESS = 0xE000;
     private final static int END_ADDRESS = 0xFE00;
 
     private final Ram _ram;
@@ -15,6 +15,11 @@ public class EchoRam extends MemoryComponent {
         _ram = ram;
     }
 
+    // The RAM that this echoes.
+    public Ram getRam() {
+        return _ram;
+    }
+
     @Override
     public boolean isResponsibleFor(short address) {
         return (address & 0xFFFF) >= START_ADDRESS &&
@@ -2,7 +2,10 @@ package memory.components;
 
 import cpu.EmulatorState;
 import memory.components.hardware_registers.HardwareRegister;
+import memory.components.hardware_registers.InterruptFlagRegister;
 import memory.components.hardware_registers.ReadonlyRegister;
+import memory.components.hardware_registers.TimerRegister;
+import memory.components.hardware_registers.UnmappedRegisterAccesses;
 import memory.components.hardware_registers.graphics.DmaRegister;
 import memory.components.hardware_registers.graphics.LcdControllerRegister;
 import memory.components.hardware_registers.graphics.PaletteRegister;
@@ -12,13 +15,21 @@ import util.Util;
 /**
  * Represents the Memory-Mapped I/O set of hardware registers located in the
  * address range FF00..FF7F.
+ *
+ * Registers are found through a table with one entry per address, which is
+ * null for addresses that don't have a register (yet). Accesses to those
+ * addresses read 0, ignore writes, and are counted in unmappedAccesses.
  */
 public class HardwareRegistersMemoryComponent extends MemoryComponent {
     private final static int START_ADDRESS = 0xFF00;
     private final static int END_ADDRESS = 0xFF80;
 
     private final EmulatorState _emulatorState;
-    private final HardwareRegister[] _hardwareRegisters;
+
+    // Indexed by address - START_ADDRESS
+    private final HardwareRegister[] _registerTable;
+
+    public final UnmappedRegisterAccesses unmappedAccesses;
 
     public final LcdControllerRegister lcdControllerRegister;
     public final StatRegister statRegister;
@@ -38,6 +49,7 @@ public class HardwareRegistersMemoryComponent extends MemoryComponent {
 
     public HardwareRegistersMemoryComponent(EmulatorState emulatorState) {
         _emulatorState = emulatorState;
+        unmappedAccesses = new UnmappedRegisterAccesses(START_ADDRESS, END_ADDRESS - START_ADDRESS);
 
         lcdControllerRegister = new LcdControllerRegister();
         statRegister = new StatRegister();
@@ -55,14 +67,51 @@ public class HardwareRegistersMemoryComponent extends MemoryComponent {
         windowY = new HardwareRegister((short)0xFF4A);
         windowX = new HardwareRegister((short)0xFF4B);
 
-        _hardwareRegisters = new HardwareRegister[] {
+        // TODO(ddoucet): Add dmaRegister once DMA transfers are implemented.
+        // Until then, writes to it are ignored like any unmapped register.
+        _registerTable = buildRegisterTable(
+                new TimerRegister(TimerRegister.DIV_ADDRESS, emulatorState.timer),
+                new TimerRegister(TimerRegister.TIMA_ADDRESS, emulatorState.timer),
+                new TimerRegister(TimerRegister.TMA_ADDRESS, emulatorState.timer),
+                new TimerRegister(TimerRegister.TAC_ADDRESS, emulatorState.timer),
+                new InterruptFlagRegister(emulatorState.interrupts),
                 lcdControllerRegister,
                 statRegister,
                 scrollY,
                 scrollX,
                 ly,
-                lyc
-        };
+                lyc,
+                bgPalette,
+                _obj0Palette,
+                _obj1Palette,
+                windowY,
+                windowX
+        );
+    }
+
+    // Asserts that there is AT MOST one register per address (not exactly
+    // one). This is so that while the emulator is still being built, we don't
+    // need to have placeholder registers for all addresses.
+    // TODO(ddoucet): When all registers have been added, this should be
+    // changed so that EXACTLY one register matches.
+    private static HardwareRegister[] buildRegisterTable(HardwareRegister... registers) {
+        HardwareRegister[] table = new HardwareRegister[END_ADDRESS - START_ADDRESS];
+
+        for (HardwareRegister reg : registers) {
+            int index = (reg.getAddress() & 0xFFFF) - START_ADDRESS;
+
+            if (table[index] != null) {
+                String error = String.format("Already found hardware " +
+                        "register %s when %s matched (address %s)",
+                        table[index].getClass().getName(), reg.getClass().getName(),
+                        Util.shortToHexString(reg.getAddress()));
+                throw new IllegalStateException(error);
+            }
+
+            table[index] = reg;
+        }
+
+        return table;
     }
 
     @Override
@@ -71,29 +120,9 @@ public class HardwareRegistersMemoryComponent extends MemoryComponent {
                 (address & 0xFFFF) < END_ADDRESS;
     }
 
-    // Asserts that there is AT MOST one register (not exactly one).
-    // This is so that while the emulator is still being built, we don't
-    // need to have placeholder registers for all addresses.
-    // TODO(ddoucet): When all registers have been added, this should be
-    // changed so that EXACTLY one register matches.
+    // Returns null if there's no register at the address.
     private HardwareRegister findRegister(short address) {
-        HardwareRegister ret = null;
-
-        for (HardwareRegister reg : _hardwareRegisters) {
-            if (reg.isResponsibleFor(address)) {
-                if (ret != null) {
-                    String error = String.format("Already found hardware " +
-                            "register %s when %s matched (address %s)",
-                            ret.getClass().getName(), reg.getClass().getName(),
-                            Util.shortToHexString(address));
-                    throw new IllegalStateException(error);
-                }
-
-                ret = reg;
-            }
-        }
-
-        return ret;
+        return _registerTable[(address & 0xFFFF) - START_ADDRESS];
     }
 
     @Override
@@ -101,13 +130,10 @@ public class HardwareRegistersMemoryComponent extends MemoryComponent {
         HardwareRegister reg = findRegister(address);
 
         if (reg == null) {
-            int register = (address & 0xFFFF) - START_ADDRESS;
-            System.out.println(String.format("Read from MMIO Register %d (address %s)",
-                    register, Util.shortToHexString(address)));
-
+            unmappedAccesses.recordRead(address);
             return 0;
         } else {
-            return reg.read(address);
+            return reg.readMapped(address);
         }
     }
 
@@ -116,11 +142,10 @@ public class HardwareRegistersMemoryComponent extends MemoryComponent {
         HardwareRegister reg = findRegister(address);
 
         if (reg == null) {
-            int register = (address & 0xFFFF) - START_ADDRESS;
-            System.out.println(String.format("Write %s to MMIO Register %d (address %s)",
-                    Util.byteToHexString(value), register, Util.shortToHexString(address)));
+            unmappedAccesses.recordWrite(address, value);
         } else {
-            reg.write(address, value);
+            reg.writeMapped(address, value);
+            reg.notifyWrite();
         }
     }
 }
@@ -1,16 +1,16 @@
 package memory.components;
 
-import cpu.EmulatorState;
+import cpu.InterruptController;
 
 /**
- * Represents the Interrupt Enable Register located at address FFFF.
+ * Represents the Interrupt Enable Register located at address FFFF, which is
+ * kept by the InterruptController.
  */
 public class InterruptEnableMemoryComponent extends MemoryComponent {
-    private byte _flag;
-    private final EmulatorState _emulatorState;
+    private final InterruptController _interrupts;
 
-    public InterruptEnableMemoryComponent(EmulatorState emulatorState) {
-        _emulatorState = emulatorState;
+    public InterruptEnableMemoryComponent(InterruptController interrupts) {
+        _interrupts = interrupts;
     }
 
     @Override
@@ -20,13 +20,11 @@ public class InterruptEnableMemoryComponent extends MemoryComponent {
 
     @Override
     protected byte uncheckedRead(short address) {
-        return _flag;
+        return _interrupts.readEnabled();
     }
 
     @Override
     protected void uncheckedWrite(short address, byte value) {
-        // TODO(ddoucet): When Interrupts are ready, this should update which
-        // ones are enabled in the EmulatorState.
-        _flag = value;
+        _interrupts.writeEnabled(value);
     }
 }
@@ -1,5 +1,7 @@
 package memory.components;
 
+import util.Checks;
+
 import static com.google.common.base.Preconditions.*;
 
 /**
@@ -7,14 +9,29 @@ import static com.google.common.base.Preconditions.*;
  */
 public abstract class MemoryComponent {
     public byte read(short address) {
-        checkArgument(isResponsibleFor(address));
+        if (Checks.ENABLED)
+            checkArgument(isResponsibleFor(address));
 
         return uncheckedRead(address);
     }
 
     public void write(short address, byte value) {
-        checkArgument(isResponsibleFor(address));
+        if (Checks.ENABLED)
+            checkArgument(isResponsibleFor(address));
+
+        uncheckedWrite(address, value);
+    }
+
+    /*
+     * Like read() and write(), but without checking that this component is
+     * responsible for the address. Only for callers that have already
+     * checked, i.e., Memory, whose page table is checked once up front.
+     */
+    public final byte readMapped(short address) {
+        return uncheckedRead(address);
+    }
 
+    public final void writeMapped(short address, byte value) {
         uncheckedWrite(address, value);
     }
 
@@ -17,6 +17,15 @@ public class Ram extends MemoryComponent {
         bytes = new byte[endAddress - startAddress];
     }
 
+    /*
+     * The bytes backing this RAM; index 0 is the byte at address start.
+     * Exposed so that Memory can read and write plain RAM without going
+     * through a component.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
     @Override
     public boolean isResponsibleFor(short address) {
         return (address & 0xFFFF) >= start &&
@@ -4,12 +4,11 @@ import com.google.common.base.MoreObjects;
 import com.google.common.collect.ComparisonChain;
 import memory.components.hardware_registers.graphics.LcdControllerRegister;
 import util.ByteScanner;
+import util.Checks;
 import util.Util;
 
 import java.util.Objects;
 
-import static com.google.common.base.Preconditions.*;
-
 /**
  * Represents a single sprite that resides in OAM.
  */
@@ -82,10 +81,18 @@ public class Sprite implements Comparable<Sprite> {
         return new Sprite(lcdc, y, x, tile, flags);
     }
 
+    // Not checkArgument(): its message arguments (including a boxed index)
+    // would be built on every OAM access.
+    private static void checkIndex(int index) {
+        if (index < 0 || index > 3)
+            throw new IllegalArgumentException(String.format(
+                    "%s is not a legal sprite byte index", index));
+    }
+
     // index is 0..3, which byte of the Sprite is to be read.
     public byte readByte(int index) {
-        checkArgument(index >= 0 && index <= 3,
-                "%s not legal argument to readByte", index);
+        if (Checks.ENABLED)
+            checkIndex(index);
 
         if (index == 0) {
             return y;
@@ -102,8 +109,8 @@ public class Sprite implements Comparable<Sprite> {
     }
 
     public void writeByte(int index, byte value) {
-        checkArgument(index >= 0 && index <= 3,
-                "%s not legal argument to readByte", index);
+        if (Checks.ENABLED)
+            checkIndex(index);
 
         if (index == 0) {
             y = value;
@@ -7,13 +7,44 @@ import util.Util;
  * Represents one of the registers in the region FF00..FF7F.
  */
 public class HardwareRegister extends MemoryComponent {
+    /**
+     * Lets other parts of the emulator react when the CPU writes to a
+     * register, rather than checking its value for changes.
+     */
+    public interface WriteListener {
+        // Called after the write has been applied.
+        void onWrite(HardwareRegister register);
+    }
+
     private final short _address;
     public byte value;
 
+    private WriteListener _writeListener;
+
     public HardwareRegister(short address) {
         _address = address;
         value = 0;
     }
+
+    public short getAddress() {
+        return _address;
+    }
+
+    // listener may be null to remove the current listener.
+    public void setWriteListener(WriteListener listener) {
+        _writeListener = listener;
+    }
+
+    /*
+     * Called by HardwareRegistersMemoryComponent after the CPU writes to this
+     * register. Writes made by the emulator itself (e.g., through value)
+     * aren't reported.
+     */
+    public void notifyWrite() {
+        if (_writeListener != null)
+            _writeListener.onWrite(this);
+    }
+
     protected void setBit(int index, int value) {
         this.value = Util.setBit(this.value, index, value);
     }
@@ -24,7 +55,7 @@ public class HardwareRegister extends MemoryComponent {
 
     @Override
     public boolean isResponsibleFor(short address) {
-        return _address == _address;
+        return address == _address;
     }
 
     @Override
@@ -0,0 +1,26 @@
+package memory.components.hardware_registers;
+
+import cpu.InterruptController;
+
+/**
+ * Represents IF (FF0F), which interrupts have been requested. The flags are
+ * kept by the InterruptController, so value isn't used.
+ */
+public class InterruptFlagRegister extends HardwareRegister {
+    private final InterruptController _interrupts;
+
+    public InterruptFlagRegister(InterruptController interrupts) {
+        super((short)0xFF0F);
+        _interrupts = interrupts;
+    }
+
+    @Override
+    protected byte uncheckedRead(short address) {
+        return _interrupts.readFlags();
+    }
+
+    @Override
+    protected void uncheckedWrite(short address, byte value) {
+        _interrupts.writeFlags(value);
+    }
+}
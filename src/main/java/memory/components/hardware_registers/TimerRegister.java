@@ -0,0 +1,53 @@
+package memory.components.hardware_registers;
+
+import cpu.Timer;
+
+/**
+ * Represents one of the timer registers (FF04..FF07), which are kept by the
+ * Timer, so value isn't used.
+ */
+public class TimerRegister extends HardwareRegister {
+    public final static short DIV_ADDRESS = (short)0xFF04;
+    public final static short TIMA_ADDRESS = (short)0xFF05;
+    public final static short TMA_ADDRESS = (short)0xFF06;
+    public final static short TAC_ADDRESS = (short)0xFF07;
+
+    private final Timer _timer;
+
+    public TimerRegister(short address, Timer timer) {
+        super(address);
+        _timer = timer;
+    }
+
+    @Override
+    protected byte uncheckedRead(short address) {
+        switch (address) {
+            case DIV_ADDRESS:
+                return _timer.readDivider();
+            case TIMA_ADDRESS:
+                return _timer.readCounter();
+            case TMA_ADDRESS:
+                return _timer.readModulo();
+            default:
+                return _timer.readControl();
+        }
+    }
+
+    @Override
+    protected void uncheckedWrite(short address, byte value) {
+        switch (address) {
+            case DIV_ADDRESS:
+                _timer.writeDivider(value);
+                break;
+            case TIMA_ADDRESS:
+                _timer.writeCounter(value);
+                break;
+            case TMA_ADDRESS:
+                _timer.writeModulo(value);
+                break;
+            default:
+                _timer.writeControl(value);
+                break;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package memory.components.hardware_registers;
+
+import util.Util;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.io.PrintStream;
+
+/**
+ * Keeps track of accesses to MMIO addresses that don't have a register yet
+ * (e.g., sound and timer registers), which games hit thousands of times per
+ * frame.
+ *
+ * Accesses are counted per address in primitive arrays, which is all that
+ * happens on the emulator's path; getSummary() formats the counts when
+ * someone asks for them. If a log is set, accesses are also printed to it,
+ * but at most one line per interval, with the number of accesses that were
+ * skipped in between.
+ */
+public class UnmappedRegisterAccesses {
+    private final int _startAddress;
+
+    // Indexed by address - _startAddress
+    private final long[] _reads;
+    private final long[] _writes;
+    private final byte[] _lastWritten;
+
+    private PrintStream _log;
+    private long _logIntervalNanoSeconds;
+    private long _lastLogNanoSeconds;
+    private long _suppressed;
+
+    public UnmappedRegisterAccesses(int startAddress, int numAddresses) {
+        checkArgument(numAddresses > 0);
+
+        _startAddress = startAddress;
+        _reads = new long[numAddresses];
+        _writes = new long[numAddresses];
+        _lastWritten = new byte[numAddresses];
+
+        _log = null;
+    }
+
+    /*
+     * Prints accesses to the given stream, at most one every
+     * intervalNanoSeconds. Passing a null stream turns logging off, which is
+     * the default.
+     */
+    public void setLog(PrintStream log, long intervalNanoSeconds) {
+        checkArgument(intervalNanoSeconds >= 0);
+
+        _log = log;
+        _logIntervalNanoSeconds = intervalNanoSeconds;
+        _lastLogNanoSeconds = System.nanoTime() - intervalNanoSeconds;
+        _suppressed = 0;
+    }
+
+    private int index(short address) {
+        return (address & 0xFFFF) - _startAddress;
+    }
+
+    public void recordRead(short address) {
+        _reads[index(address)]++;
+
+        if (_log != null && shouldLog())
+            log(String.format("Read from unmapped MMIO register %s",
+                    Util.shortToHexString(address)));
+    }
+
+    public void recordWrite(short address, byte value) {
+        int index = index(address);
+        _writes[index]++;
+        _lastWritten[index] = value;
+
+        if (_log != null && shouldLog())
+            log(String.format("Write %s to unmapped MMIO register %s",
+                    Util.byteToHexString(value), Util.shortToHexString(address)));
+    }
+
+    // Whether the interval has passed since the last line was logged. If not,
+    // the access is counted as skipped so that no message has to be built.
+    private boolean shouldLog() {
+        long now = System.nanoTime();
+        if (now - _lastLogNanoSeconds < _logIntervalNanoSeconds) {
+            _suppressed++;
+            return false;
+        }
+
+        _lastLogNanoSeconds = now;
+        return true;
+    }
+
+    private void log(String message) {
+        if (_suppressed > 0)
+            message += String.format(" (%d accesses not logged)", _suppressed);
+
+        _log.println(message);
+        _suppressed = 0;
+    }
+
+    public long getReadCount(short address) {
+        return _reads[index(address)];
+    }
+
+    public long getWriteCount(short address) {
+        return _writes[index(address)];
+    }
+
+    public void reset() {
+        for (int i = 0; i < _reads.length; i++) {
+            _reads[i] = 0;
+            _writes[i] = 0;
+            _lastWritten[i] = 0;
+        }
+    }
+
+    /*
+     * Returns one line per address that has been accessed since the last
+     * reset, with its read and write counts and the last value written, or
+     * the empty string if nothing was accessed.
+     */
+    public String getSummary() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < _reads.length; i++) {
+            if (_reads[i] == 0 && _writes[i] == 0)
+                continue;
+
+            builder.append(String.format("%s: %d reads, %d writes",
+                    Util.shortToHexString((short)(_startAddress + i)), _reads[i], _writes[i]));
+            if (_writes[i] > 0)
+                builder.append(", last wrote ").append(Util.byteToHexString(_lastWritten[i]));
+            builder.append('\n');
+        }
+
+        return builder.toString();
+    }
+}
@@ -13,6 +13,9 @@ public class StatRegister extends HardwareRegister {
         TransferringDataToLcd
     }
 
+    // The mode bits and lyMatch can't be written by the CPU.
+    private final static int READ_ONLY_BITS = 0x07;
+
     public final Flag lyMatch;
     public final Flag hblankInterruptDesired;
     public final Flag vblankInterruptDesired;
@@ -37,7 +40,8 @@ public class StatRegister extends HardwareRegister {
 
     @Override
     protected void uncheckedWrite(short address, byte value) {
-        super.uncheckedWrite(address, (byte)moveModeBits(this.value, value));
+        super.uncheckedWrite(address,
+                (byte)((this.value & READ_ONLY_BITS) | (value & ~READ_ONLY_BITS)));
     }
 
     public void setGpuMode(GpuMode mode) {
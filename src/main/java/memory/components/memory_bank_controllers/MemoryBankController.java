@@ -14,22 +14,37 @@ import static com.google.common.base.Preconditions.*;
  * For the sake of equality and toString, we act as if implementors are stateless.
  * This is because the CartridgeHeader's equality check only cares which type
  * of MemoryBankController was found, not the state that the MBC is manipulating.
+ *
+ * The switchable ROM bank is read through a precomputed offset into the ROM
+ * rather than by asking the implementor for its bank on every read, so
+ * implementors must call updateRomBankOffset() whenever getRomBank() changes
+ * (including once at the end of their constructor).
  */
 public abstract class MemoryBankController extends MemoryComponent {
     protected final static int RAM_START = 0xA000;
     protected final static int RAM_END = 0xC000;
 
+    protected final static int ROM_BANK_SIZE = 0x4000;
+
     protected final byte[] _romBytes;
     protected final boolean _hasRam;
 
+    // The index in _romBytes of the byte mapped at 0x4000.
+    private int _romBankOffset;
+
     protected MemoryBankController(byte[] romBytes, boolean hasRam) {
         // TODO(ddoucet): This doesn't really seem right...
         // romBytes should only be null in a testing situation
         if (romBytes != null)
-            checkArgument(romBytes.length % 0x4000 == 0);
+            checkArgument(romBytes.length % ROM_BANK_SIZE == 0);
 
         _romBytes = romBytes;
         _hasRam = hasRam;
+        _romBankOffset = ROM_BANK_SIZE;
+    }
+
+    protected final void updateRomBankOffset() {
+        _romBankOffset = getRomBank() * ROM_BANK_SIZE;
     }
 
     @Override
@@ -48,8 +63,11 @@ public abstract class MemoryBankController extends MemoryComponent {
     @Override
     protected byte uncheckedRead(short address) {
         if (isRamAddress(address)) {
-            checkState(_hasRam, "Attempt to read from RAM (address %s) without " +
-                "any RAM in the cartridge", Util.shortToHexString(address));
+            // Not checkState(): its message arguments would be built on every
+            // read.
+            if (!_hasRam)
+                throw new IllegalStateException("Attempt to read from RAM (address " +
+                        Util.shortToHexString(address) + ") without any RAM in the cartridge");
 
             return readRam(address);
         } else {
@@ -60,19 +78,19 @@ public abstract class MemoryBankController extends MemoryComponent {
     private byte readRom(short address) {
         int index = address & 0xFFFF;
 
-        if (index < 0x4000)
+        if (index < ROM_BANK_SIZE)
             return _romBytes[index];
 
-        index -= 0x4000;
-        return _romBytes[getRomBank() * 0x4000 + index];
+        return _romBytes[_romBankOffset + index - ROM_BANK_SIZE];
     }
 
     @Override
     protected void uncheckedWrite(short address, byte value) {
         if (isRamAddress(address)) {
-            checkState(_hasRam, "Attempt to write to RAM (address %s, value %s) " +
-                "without any RAM in the cartridge",
-                    Util.shortToHexString(address), Util.byteToHexString(value));
+            if (!_hasRam)
+                throw new IllegalStateException(String.format("Attempt to write " +
+                        "to RAM (address %s, value %s) without any RAM in the cartridge",
+                        Util.shortToHexString(address), Util.byteToHexString(value)));
 
             writeRam(address, value);
         } else {
@@ -80,6 +98,33 @@ public abstract class MemoryBankController extends MemoryComponent {
         }
     }
 
+    public static boolean isRomAddress(short address) {
+        return (address & 0xFFFF) < 0x8000;
+    }
+
+    /*
+     * The bytes of the whole ROM. Bank 0 is always mapped at 0x0000..0x3FFF,
+     * so Memory reads it directly from here. Null only in tests.
+     */
+    public byte[] getRomBytes() {
+        return _romBytes;
+    }
+
+    // The index in getRomBytes() of the byte currently mapped at 0x4000.
+    public int getRomBankOffset() {
+        return _romBankOffset;
+    }
+
+    public int getNumRomBanks() {
+        return _romBytes.length / ROM_BANK_SIZE;
+    }
+
+    // Which ROM bank the given ROM address currently maps to. Bank 0 is always
+    // located at 0x0000..0x3FFF.
+    public int getMappedRomBank(short address) {
+        return (address & 0xFFFF) < 0x4000 ? 0 : getRomBank();
+    }
+
     protected abstract int getRomBank();
     protected abstract byte readRam(short address);
     protected abstract void writeRam(short address, byte value);
@@ -1,10 +1,7 @@
 package memory.components.memory_bank_controllers;
 
-import memory.components.Ram;
 import util.Util;
 
-import static com.google.common.base.Preconditions.*;
-
 /**
  * MBC1 has two maximum-memory modes: 2mB ROM+8kB RAM or .5mB ROM+32kB RAM.
  *
@@ -33,15 +30,20 @@ import static com.google.common.base.Preconditions.*;
  * by writing any other value to that region.
  */
 public class MemoryBankController1 extends MemoryBankController {
-    // In the event that there are only 2KB of RAM, we need to make sure that
-    // any reads/writes to the RAM don't go beyond 2KB.
-    private final int _ramKb;
+    private final static int RAM_BANK_SIZE = RAM_END - RAM_START;
 
     private boolean _is2mbMode;
 
-    private Ram[] _ramBanks;
+    // All of the cartridge's RAM banks, one after another. In the event that
+    // there are only 2KB of RAM, this is only 2KB long, so reads/writes can't
+    // go beyond 2KB.
+    private final byte[] _ram;
     private boolean _ramEnabled;
 
+    // The index in _ram of the byte mapped at RAM_START. Updated along with
+    // the ROM bank offset whenever the bank registers change.
+    private int _ramBankOffset;
+
     private int _lowRomBankBits;
 
     // This register depends on which mode we're in
@@ -50,22 +52,39 @@ public class MemoryBankController1 extends MemoryBankController {
     public MemoryBankController1(byte[] romBytes, int ramKb) {
         super(romBytes, ramKb != 0);
 
-        _ramKb = ramKb;
-
         _is2mbMode = true;
 
         // We'll either see 2KB, 8KB, or 32KB of RAM. Each RAM bank is 8KB
         // large.
         // TODO(ddoucet): I'm pretty sure this is where save data goes, so at
         // some point, I should figure out how to work that back in here.
-        _ramBanks = new Ram[(int)Math.ceil(ramKb / 8.0 / 1024)];
-        for (int i = 0; i < _ramBanks.length; i++)
-            _ramBanks[i] = new Ram((short)(RAM_START & 0xFFFF), (short)(RAM_END & 0xFFFF));
-
+        _ram = new byte[ramKb * 1024];
         _ramEnabled = false;
 
         _lowRomBankBits = 0;
         _ramBankOrUpperRomBank = 0;
+        updateBankOffsets();
+    }
+
+    private void updateBankOffsets() {
+        updateRomBankOffset();
+        _ramBankOffset = getRamBank() * RAM_BANK_SIZE;
+    }
+
+    // Returns the index in _ram of the given RAM address, throwing if RAM
+    // can't be accessed there. The messages are only built when throwing.
+    private int ramIndex(short address, String access) {
+        if (!_ramEnabled)
+            throw new IllegalStateException("Attempt to " + access + " RAM (address " +
+                    Util.shortToHexString(address) + ") while RAM is disabled");
+
+        int index = _ramBankOffset + (address & 0xFFFF) - RAM_START;
+        if (index >= _ram.length)
+            throw new IllegalArgumentException("Attempt to " + access + " RAM (address " +
+                    Util.shortToHexString(address) + ") beyond the cartridge's " +
+                    _ram.length + " bytes of RAM");
+
+        return index;
     }
 
     @Override
@@ -84,24 +103,12 @@ public class MemoryBankController1 extends MemoryBankController {
 
     @Override
     protected byte readRam(short address) {
-        checkState(_ramEnabled,
-                "Attempt to read RAM (address %s) while RAM is disabled",
-                Util.shortToHexString(address));
-
-        checkArgument((address & 0xFFFF) - RAM_START < _ramKb * 1024);
-
-        return _ramBanks[getRamBank()].read(address);
+        return _ram[ramIndex(address, "read")];
     }
 
     @Override
     protected void writeRam(short address, byte value) {
-        checkState(_ramEnabled,
-                "Attempt to write RAM (address %s, value %s) while RAM is disabled",
-                Util.shortToHexString(address), Util.byteToHexString(value));
-
-        checkArgument((address & 0xFFFF) - RAM_START < _ramKb * 1024);
-
-        _ramBanks[getRamBank()].write(address, value);
+        _ram[ramIndex(address, "write")] = value;
     }
 
     @Override
@@ -115,6 +122,7 @@ public class MemoryBankController1 extends MemoryBankController {
         } else if (unsignedAddr >= 0x4000 && unsignedAddr < 0x6000) {
             // Only two bits large
             _ramBankOrUpperRomBank = value & 0x3;
+            updateBankOffsets();
         } else if (unsignedAddr >= 0x6000 && unsignedAddr < 0x8000) {
             selectMemoryModel(value);
         } else {
@@ -133,9 +141,12 @@ public class MemoryBankController1 extends MemoryBankController {
 
         if (_lowRomBankBits == 0)
             _lowRomBankBits = 1;
+
+        updateBankOffsets();
     }
 
     private void selectMemoryModel(byte value) {
         _is2mbMode = (value & 1) == 0;
+        updateBankOffsets();
     }
 }
@@ -16,6 +16,8 @@ public class NoMemoryBankController extends MemoryBankController {
         // romBytes should only be null in a testing situation
         if (romBytes != null)
             checkArgument(romBytes.length == 0x8000);
+
+        updateRomBankOffset();
     }
 
     @Override
@@ -0,0 +1,494 @@
+package tools;
+
+import cpu.EmulatorState;
+import cpu.ExecutionMode;
+import cpu.PacingMode;
+import cpu.RunResult;
+import memory.CartridgeHeader;
+import util.Checks;
+import util.Util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs ROMs unthrottled without a display and reports how fast they were
+ * emulated: instructions, cycles and frames per second of host time, and
+ * bytes allocated per emulated frame.
+ *
+ * Usage:
+ *     HeadlessBenchmark [options] [rom ...]
+ *
+ * If no ROMs are given, every .gb file in src/test/resources is run.
+ *
+ * Options:
+ *     --frames n -- Emulate n frames per ROM (default 600)
+ *     --cycles n -- Emulate n cycles per ROM instead of a number of frames
+ *     --warmup n -- Emulate n frames per ROM before measuring (default 60)
+ *     --mode m -- The ExecutionMode to use (default COMPILED_BLOCKS)
+ *     --output path -- Write the results to path as JSON
+ *     --baseline path -- Compare against the results in path, which was
+ *         written by --output, and exit with status 1 if any ROM regressed
+ *         (or 2 if the baseline was recorded with different options)
+ *     --tolerance f -- How much worse than the baseline a ROM can be before
+ *         it counts as a regression, as a fraction (default 0.1)
+ *     --idle-skip b -- Whether to skip idle loops (default true)
+ *     --unmapped true -- Print how often each ROM accessed MMIO registers
+ *         that aren't emulated yet
+ *
+ * The fraction of cycles that were skipped in idle loops rather than
+ * executed is reported as well.
+ *
+ * Skipping halts and idle loops adds cycles without doing any work, so
+ * cycles per second aren't comparable between runs with different options.
+ * The options are saved with the results, a baseline is only compared
+ * against a run with the same ones, and speed is compared as host time per
+ * frame (or per cycle, for --cycles runs).
+ *
+ * Run the JVM with -Dgbemu.release=true to measure release mode, which skips
+ * the emulator's internal checks (see util.Checks).
+ *
+ * A ROM that stops with an exception (e.g., because it uses hardware that
+ * isn't emulated yet) is reported with the exception and whatever it
+ * managed to run before then. If it stops during warmup, nothing was
+ * measured, so it's only reported as failed and isn't compared to the
+ * baseline.
+ */
+public class HeadlessBenchmark {
+    private final static String DEFAULT_ROM_DIRECTORY = "src/test/resources";
+
+    private final static int ROM_START = 0x100;
+
+    private final static double NANO_SECONDS_PER_SECOND = 1e9;
+
+    private final static int EXIT_REGRESSED = 1;
+    private final static int EXIT_INCOMPARABLE_BASELINE = 2;
+
+    private long _frames = 600;
+    private long _cycles = 0;
+    private long _warmupFrames = 60;
+    private ExecutionMode _mode = ExecutionMode.COMPILED_BLOCKS;
+    private String _outputPath = null;
+    private String _baselinePath = null;
+    private double _tolerance = 0.1;
+    private boolean _printUnmapped = false;
+    private boolean _idleLoopSkipping = true;
+    private final List<String> _romPaths = new ArrayList<String>();
+
+    private static class Result {
+        public String name;
+        public String error;
+        // False if the ROM failed during warmup, in which case the counts
+        // below are all 0.
+        public boolean measured;
+        public long frames;
+        public long cycles;
+        public long instructions;
+        public long nanoSeconds;
+        public long allocatedBytes;
+        public long idleCyclesSkipped;
+        public String unmappedSummary;
+
+        private double perSecond(long count) {
+            return nanoSeconds == 0 ? 0 : count * NANO_SECONDS_PER_SECOND / nanoSeconds;
+        }
+
+        public double instructionsPerSecond() {
+            return perSecond(instructions);
+        }
+
+        public double cyclesPerSecond() {
+            return perSecond(cycles);
+        }
+
+        public double framesPerSecond() {
+            return perSecond(frames);
+        }
+
+        public double allocatedBytesPerFrame() {
+            return frames == 0 ? 0 : (double)allocatedBytes / frames;
+        }
+
+        public double idleFraction() {
+            return cycles == 0 ? 0 : (double)idleCyclesSkipped / cycles;
+        }
+
+        // Host nanoseconds per frame, or per cycle if byCycles, or 0 if none
+        // were emulated.
+        public double nanoSecondsPerUnit(boolean byCycles) {
+            long units = byCycles ? cycles : frames;
+            return units == 0 ? 0 : (double)nanoSeconds / units;
+        }
+    }
+
+    private HeadlessBenchmark(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                _romPaths.add(arg);
+                continue;
+            }
+
+            if (i + 1 == args.length)
+                throw new IllegalArgumentException("Missing value for " + arg);
+            String value = args[++i];
+
+            switch (arg) {
+                case "--frames":
+                    _frames = Long.parseLong(value);
+                    _cycles = 0;
+                    break;
+                case "--cycles":
+                    _cycles = Long.parseLong(value);
+                    break;
+                case "--warmup":
+                    _warmupFrames = Long.parseLong(value);
+                    break;
+                case "--mode":
+                    _mode = ExecutionMode.valueOf(value);
+                    break;
+                case "--output":
+                    _outputPath = value;
+                    break;
+                case "--baseline":
+                    _baselinePath = value;
+                    break;
+                case "--tolerance":
+                    _tolerance = Double.parseDouble(value);
+                    break;
+                case "--idle-skip":
+                    _idleLoopSkipping = Boolean.parseBoolean(value);
+                    break;
+                case "--unmapped":
+                    _printUnmapped = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        if (_romPaths.isEmpty()) {
+            File[] files = new File(DEFAULT_ROM_DIRECTORY).listFiles();
+            if (files == null)
+                throw new IllegalArgumentException("No ROMs given and " +
+                        DEFAULT_ROM_DIRECTORY + " doesn't exist");
+
+            Arrays.sort(files);
+            for (File file : files)
+                if (file.getName().endsWith(".gb"))
+                    _romPaths.add(file.getPath());
+        }
+    }
+
+    private static String romName(String path) {
+        String name = new File(path).getName();
+        int extension = name.lastIndexOf('.');
+        return extension < 0 ? name : name.substring(0, extension);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void runFrames(EmulatorState state, long frames) {
+        for (long i = 0; i < frames; i++)
+            state.runUntilFrame();
+    }
+
+    private Result runRom(String path) throws IOException {
+        Result result = new Result();
+        result.name = romName(path);
+
+        EmulatorState state = new EmulatorState(CartridgeHeader.parse(Util.bytesFromFile(path)));
+        state.setPacingMode(PacingMode.UNTHROTTLED);
+        state.setExecutionMode(_mode);
+        state.setIdleLoopSkipping(_idleLoopSkipping);
+        state.registerState.setPC(ROM_START);
+
+        try {
+            runFrames(state, _warmupFrames);
+        } catch (RuntimeException e) {
+            result.error = e.toString();
+            return result;
+        }
+
+        result.measured = true;
+
+        long startCycles = state.getCycles();
+        long startFrames = state.getFrames();
+        long startInstructions = state.getInstructions();
+        long startIdleCycles = state.getIdleCyclesSkipped();
+        long startAllocatedBytes = allocatedBytes();
+        long startNanoSeconds = System.nanoTime();
+
+        try {
+            if (_cycles > 0) {
+                RunResult run = state.runForCycles(_cycles);
+                if (run.status != RunResult.Status.CYCLES_EXHAUSTED)
+                    throw new IllegalStateException("Run stopped early: " + run);
+            } else {
+                runFrames(state, _frames);
+            }
+        } catch (RuntimeException e) {
+            result.error = e.toString();
+        }
+
+        result.nanoSeconds = System.nanoTime() - startNanoSeconds;
+        result.allocatedBytes = allocatedBytes() - startAllocatedBytes;
+        result.cycles = state.getCycles() - startCycles;
+        result.frames = state.getFrames() - startFrames;
+        result.instructions = state.getInstructions() - startInstructions;
+        result.idleCyclesSkipped = state.getIdleCyclesSkipped() - startIdleCycles;
+        result.unmappedSummary = state.memory.regs.unmappedAccesses.getSummary();
+
+        return result;
+    }
+
+    private static String quote(String value) {
+        if (value == null)
+            return "null";
+
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"")
+                .replace("\n", "\\n") + "\"";
+    }
+
+    private void writeJson(Writer writer, List<Result> results) throws IOException {
+        writer.write("{\n");
+        writer.write("  \"options\": {");
+        String separator = "";
+        for (Map.Entry<String, Object> option : options().entrySet()) {
+            Object value = option.getValue();
+            writer.write(String.format(Locale.ROOT, "%s%s: %s", separator, quote(option.getKey()),
+                    value instanceof String ? quote((String)value) : value));
+            separator = ", ";
+        }
+        writer.write("},\n");
+        writer.write("  \"roms\": [\n");
+
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            String terminator = i + 1 < results.size() ? "," : "";
+
+            if (!result.measured) {
+                writer.write(String.format(Locale.ROOT,
+                        "    {\"name\": %s, \"error\": %s, \"measured\": false}%s\n",
+                        quote(result.name), quote(result.error), terminator));
+                continue;
+            }
+
+            writer.write(String.format(Locale.ROOT,
+                    "    {\"name\": %s, \"error\": %s, \"measured\": true, " +
+                            "\"frames\": %d, \"cycles\": %d, \"instructions\": %d, \"seconds\": %.6f, " +
+                            "\"instructionsPerSecond\": %.1f, \"cyclesPerSecond\": %.1f, " +
+                            "\"framesPerSecond\": %.2f, \"allocatedBytesPerFrame\": %.1f, " +
+                            "\"idleCyclesSkipped\": %d}%s\n",
+                    quote(result.name), quote(result.error), result.frames, result.cycles,
+                    result.instructions, result.nanoSeconds / NANO_SECONDS_PER_SECOND,
+                    result.instructionsPerSecond(), result.cyclesPerSecond(),
+                    result.framesPerSecond(), result.allocatedBytesPerFrame(),
+                    result.idleCyclesSkipped, terminator));
+        }
+
+        writer.write("  ]\n");
+        writer.write("}\n");
+    }
+
+    private void printResult(Result result) {
+        if (!result.measured) {
+            System.out.println(String.format("%-20s failed during warmup: %s",
+                    result.name, result.error));
+            return;
+        }
+
+        System.out.println(String.format(Locale.ROOT,
+                "%-20s %10.2f MIPS %10.2f MHz %10.1f fps %12.1f B/frame %5.1f%% idle%s",
+                result.name, result.instructionsPerSecond() / 1e6,
+                result.cyclesPerSecond() / 1e6, result.framesPerSecond(),
+                result.allocatedBytesPerFrame(), 100 * result.idleFraction(),
+                result.error == null ? "" : "  (stopped: " + result.error + ")"));
+
+        if (_printUnmapped && !result.unmappedSummary.isEmpty())
+            System.out.print(result.unmappedSummary.replaceAll("(?m)^", "    "));
+    }
+
+    /*
+     * The options that affect the results, which have to match for two runs
+     * to be compared. Numbers are Doubles since that's what JsonParser reads
+     * them back as.
+     */
+    private Map<String, Object> options() {
+        Map<String, Object> options = new LinkedHashMap<String, Object>();
+        options.put("mode", _mode.toString());
+        options.put("idleSkip", _idleLoopSkipping);
+        options.put("release", !Checks.ENABLED);
+        options.put("unit", isByCycles() ? "cycles" : "frames");
+        options.put("count", (double)(isByCycles() ? _cycles : _frames));
+        options.put("warmupFrames", (double)_warmupFrames);
+        return options;
+    }
+
+    private boolean isByCycles() {
+        return _cycles > 0;
+    }
+
+    private static Map<String, Object> readBaseline(String path) throws IOException {
+        String text = new String(Files.readAllBytes(new File(path).toPath()), StandardCharsets.UTF_8);
+        Object json = JsonParser.parse(text);
+        if (!(json instanceof Map))
+            throw new IllegalArgumentException(path + " isn't a JSON object");
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> baseline = (Map<String, Object>)json;
+        return baseline;
+    }
+
+    private static double getNumber(Map<?, ?> object, String key) {
+        Object value = object.get(key);
+        if (!(value instanceof Double))
+            throw new IllegalArgumentException("Missing number \"" + key + "\" in baseline");
+        return (Double)value;
+    }
+
+    // Returns the options that differ between this run and the baseline, one
+    // per line, or the empty string if they all match.
+    private String describeOptionDifferences(Object baselineOptions) {
+        if (!(baselineOptions instanceof Map))
+            return "baseline doesn't record its options\n";
+
+        Map<?, ?> expected = (Map<?, ?>)baselineOptions;
+        StringBuilder builder = new StringBuilder();
+
+        for (Map.Entry<String, Object> option : options().entrySet()) {
+            Object value = expected.get(option.getKey());
+            if (value == null ? option.getValue() != null : !value.equals(option.getValue()))
+                builder.append(String.format(Locale.ROOT, "%s: baseline %s, this run %s\n",
+                        option.getKey(), value, option.getValue()));
+        }
+
+        return builder.toString();
+    }
+
+    /*
+     * Prints how each ROM compares to the baseline and returns the exit
+     * status: 0 if nothing regressed, EXIT_REGRESSED if some ROM did, or
+     * EXIT_INCOMPARABLE_BASELINE if the baseline was recorded with
+     * different options.
+     */
+    private int compareToBaseline(List<Result> results) throws IOException {
+        Map<String, Object> baseline = readBaseline(_baselinePath);
+
+        String differences = describeOptionDifferences(baseline.get("options"));
+        if (!differences.isEmpty()) {
+            System.err.println();
+            System.err.println("Not comparing to " + _baselinePath +
+                    ", which was recorded with different options:");
+            System.err.print(differences);
+            return EXIT_INCOMPARABLE_BASELINE;
+        }
+
+        Map<String, Map<?, ?>> expectedByName = new HashMap<String, Map<?, ?>>();
+        Object roms = baseline.get("roms");
+        if (roms instanceof List)
+            for (Object rom : (List<?>)roms)
+                if (rom instanceof Map)
+                    expectedByName.put(String.valueOf(((Map<?, ?>)rom).get("name")), (Map<?, ?>)rom);
+
+        boolean byCycles = isByCycles();
+        boolean regressed = false;
+
+        System.out.println();
+        System.out.println("Compared to " + _baselinePath + ":");
+
+        for (Result result : results) {
+            if (!result.measured) {
+                System.out.println(String.format("%-20s failed during warmup", result.name));
+                continue;
+            }
+
+            Map<?, ?> expected = expectedByName.get(result.name);
+            if (expected == null) {
+                System.out.println(String.format("%-20s not in baseline", result.name));
+                continue;
+            }
+
+            // Baselines written before warmup failures were recorded don't
+            // have this, and everything in them was measured.
+            if (Boolean.FALSE.equals(expected.get("measured"))) {
+                System.out.println(String.format("%-20s failed during warmup in baseline",
+                        result.name));
+                continue;
+            }
+
+            double expectedUnits = getNumber(expected, byCycles ? "cycles" : "frames");
+            double expectedTime = expectedUnits == 0
+                    ? 0
+                    : getNumber(expected, "seconds") * NANO_SECONDS_PER_SECOND / expectedUnits;
+            double expectedAllocated = getNumber(expected, "allocatedBytesPerFrame");
+
+            // Positive when this run took less time per frame (or cycle).
+            double time = result.nanoSecondsPerUnit(byCycles);
+            double speedChange = expectedTime == 0 || time == 0 ? 0 : expectedTime / time - 1;
+            boolean slower = speedChange < -_tolerance;
+
+            // Allow a few bytes per frame of noise when nothing was allocated
+            // before.
+            boolean allocatesMore = result.allocatedBytesPerFrame() >
+                    expectedAllocated * (1 + _tolerance) + 64;
+
+            regressed |= slower || allocatesMore;
+
+            System.out.println(String.format(Locale.ROOT, "%-20s %+7.1f%% speed, %12.1f -> %.1f B/frame%s",
+                    result.name, 100 * speedChange, expectedAllocated, result.allocatedBytesPerFrame(),
+                    slower || allocatesMore ? "  REGRESSION" : ""));
+        }
+
+        return regressed ? EXIT_REGRESSED : 0;
+    }
+
+    // Returns the exit status (see compareToBaseline()).
+    private int run() throws IOException {
+        List<Result> results = new ArrayList<Result>();
+
+        for (String path : _romPaths) {
+            Result result = runRom(path);
+            printResult(result);
+            results.add(result);
+        }
+
+        if (_outputPath != null) {
+            // Written as UTF-8 whatever the platform's charset, since that's
+            // how readBaseline() reads it back.
+            Writer writer = new OutputStreamWriter(new FileOutputStream(_outputPath),
+                    StandardCharsets.UTF_8);
+            try {
+                writeJson(writer, results);
+            } finally {
+                writer.close();
+            }
+        }
+
+        return _baselinePath == null ? 0 : compareToBaseline(results);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int status = new HeadlessBenchmark(args).run();
+
+        if (status != 0)
+            System.exit(status);
+    }
+}
@@ -0,0 +1,192 @@
+package tools;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal JSON parser for reading back the files the tools write.
+ *
+ * Objects are parsed into Maps (keeping the order of their keys), arrays
+ * into Lists, strings into Strings, numbers into Doubles, true and false
+ * into Booleans, and null into null. Malformed input throws an
+ * IllegalArgumentException with the offset it was found at.
+ */
+final class JsonParser {
+    private final String _text;
+    private int _index;
+
+    private JsonParser(String text) {
+        _text = text;
+        _index = 0;
+    }
+
+    static Object parse(String text) {
+        JsonParser parser = new JsonParser(text);
+        Object value = parser.parseValue();
+
+        parser.skipWhitespace();
+        if (parser._index != text.length())
+            throw parser.error("Unexpected trailing characters");
+
+        return value;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(String.format("%s at offset %d", message, _index));
+    }
+
+    private void skipWhitespace() {
+        while (_index < _text.length() && Character.isWhitespace(_text.charAt(_index)))
+            _index++;
+    }
+
+    private char peek() {
+        skipWhitespace();
+        if (_index == _text.length())
+            throw error("Unexpected end of input");
+        return _text.charAt(_index);
+    }
+
+    private void expect(char c) {
+        if (peek() != c)
+            throw error("Expected '" + c + "'");
+        _index++;
+    }
+
+    private boolean consumeLiteral(String literal) {
+        if (!_text.startsWith(literal, _index))
+            return false;
+
+        _index += literal.length();
+        return true;
+    }
+
+    private Object parseValue() {
+        char c = peek();
+
+        if (c == '{')
+            return parseObject();
+        if (c == '[')
+            return parseArray();
+        if (c == '"')
+            return parseString();
+        if (consumeLiteral("true"))
+            return true;
+        if (consumeLiteral("false"))
+            return false;
+        if (consumeLiteral("null"))
+            return null;
+        return parseNumber();
+    }
+
+    private Map<String, Object> parseObject() {
+        Map<String, Object> object = new LinkedHashMap<String, Object>();
+        expect('{');
+
+        if (peek() == '}') {
+            _index++;
+            return object;
+        }
+
+        while (true) {
+            if (peek() != '"')
+                throw error("Expected a key");
+            String key = parseString();
+            expect(':');
+            object.put(key, parseValue());
+
+            if (peek() == '}') {
+                _index++;
+                return object;
+            }
+            expect(',');
+        }
+    }
+
+    private List<Object> parseArray() {
+        List<Object> array = new ArrayList<Object>();
+        expect('[');
+
+        if (peek() == ']') {
+            _index++;
+            return array;
+        }
+
+        while (true) {
+            array.add(parseValue());
+
+            if (peek() == ']') {
+                _index++;
+                return array;
+            }
+            expect(',');
+        }
+    }
+
+    private String parseString() {
+        expect('"');
+        StringBuilder builder = new StringBuilder();
+
+        while (true) {
+            if (_index == _text.length())
+                throw error("Unterminated string");
+
+            char c = _text.charAt(_index++);
+            if (c == '"')
+                return builder.toString();
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+
+            if (_index == _text.length())
+                throw error("Unterminated string");
+
+            char escaped = _text.charAt(_index++);
+            switch (escaped) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    if (_index + 4 > _text.length())
+                        throw error("Truncated \\u escape");
+                    builder.append((char)Integer.parseInt(_text.substring(_index, _index + 4), 16));
+                    _index += 4;
+                    break;
+                default:
+                    builder.append(escaped);
+                    break;
+            }
+        }
+    }
+
+    private Double parseNumber() {
+        int start = _index;
+        while (_index < _text.length() && "+-0123456789.eE".indexOf(_text.charAt(_index)) >= 0)
+            _index++;
+
+        if (start == _index)
+            throw error("Unexpected character '" + _text.charAt(_index) + "'");
+
+        try {
+            return Double.parseDouble(_text.substring(start, _index));
+        } catch (NumberFormatException e) {
+            _index = start;
+            throw error("Malformed number");
+        }
+    }
+}
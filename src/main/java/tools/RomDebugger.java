@@ -1,10 +1,10 @@
 package tools;
 
+import cpu.BreakpointSet;
 import cpu.Debugger;
 import cpu.EmulatorState;
 import cpu.disassembler.InstructionDecoder;
 import cpu.disassembler.RootInstructionDecoder;
-import cpu.disassembler.instruction_args.Register16;
 import memory.CartridgeHeader;
 import memory.MemoryByteSource;
 import util.ByteScanner;
@@ -36,9 +36,14 @@ public class RomDebugger implements Debugger {
     private final InstructionDecoder _decoder;
 
     private final String _path;
+    // Breakpoint id -> address. The addresses are also kept in
+    // _breakpointSet, which is what the emulator checks while running.
     private final Map<Integer, Short> _breakpoints;
     private int _maxBreakpointSeen;
 
+    // Created once the ROM is loaded, since it depends on the cartridge.
+    private BreakpointSet _breakpointSet;
+
     private boolean _isStepping;
 
     public RomDebugger(BufferedReader reader, String path) {
@@ -62,23 +67,26 @@ public class RomDebugger implements Debugger {
 
     public void run() throws IOException {
         EmulatorState state = stateFromFile(_path);
+        _breakpointSet = new BreakpointSet(state.memory.mbc);
         state.addDebugger(this);
 
         state.run();
     }
 
-    private boolean hasBreakpointAtAddress(EmulatorState state, short addr) {
-        for (Short breakpoint : _breakpoints.values())
-            if (addr == breakpoint)
-                return true;
+    @Override
+    public boolean shouldBreak(EmulatorState state) {
+        return _isStepping ||
+                _breakpointSet.contains((short)state.registerState.getPC());
+    }
 
-        return false;
+    @Override
+    public BreakpointSet getBreakpoints() {
+        return _breakpointSet;
     }
 
     @Override
-    public boolean shouldBreak(EmulatorState state) {
-        return _isStepping ||
-                hasBreakpointAtAddress(state, Register16.PC.get(state));
+    public boolean isStepping() {
+        return _isStepping;
     }
 
     private String readLine() {
@@ -181,6 +189,7 @@ public class RomDebugger implements Debugger {
             return;
 
         _breakpoints.put(++_maxBreakpointSeen, addr);
+        _breakpointSet.add(addr);
         System.out.println(String.format("Breakpoint %d set at %s",
                 _maxBreakpointSeen, Util.shortToHexString(addr)));
     }
@@ -195,8 +204,11 @@ public class RomDebugger implements Debugger {
         if (id == null)
             return;
 
-        if (_breakpoints.containsKey(id))
-            _breakpoints.remove(id);
+        Short addr = _breakpoints.remove(id);
+
+        // Other breakpoints may be at the same address.
+        if (addr != null && !_breakpoints.containsValue(addr))
+            _breakpointSet.remove(addr);
     }
 
     public static void main(String[] args) throws IOException {
@@ -37,8 +37,10 @@ public class ByteScanner {
     public void seek(int index) {
         _index = index;
 
-        checkState(_index >= 0);
-        checkState(_index < _bytes.length());
+        if (Checks.ENABLED) {
+            checkState(_index >= 0);
+            checkState(_index < _bytes.length());
+        }
     }
 
     public void seekOffset(int delta) {
@@ -50,15 +52,19 @@ public class ByteScanner {
     }
 
     public byte peek(int delta) {
-        checkState(_index >= 0);
-        checkArgument(_index + delta < _bytes.length());
+        if (Checks.ENABLED) {
+            checkState(_index >= 0);
+            checkArgument(_index + delta < _bytes.length());
+        }
 
         return _bytes.get(_index + delta);
     }
 
     public byte readByte() {
-        checkState(_index >= 0);
-        checkState(_index < _bytes.length());
+        if (Checks.ENABLED) {
+            checkState(_index >= 0);
+            checkState(_index < _bytes.length());
+        }
 
         byte ret = _bytes.get(_index);
         _index++;
@@ -67,13 +73,16 @@ public class ByteScanner {
 
     public short readLittleEndianShort() {
         // Little Endian has the least significant byte in the lowest address
-        byte[] bytes = readBytes(2);
-        return Util.shortFromBytes(bytes[1], bytes[0]);
+        byte low = readByte();
+        byte high = readByte();
+        return Util.shortFromBytes(high, low);
     }
 
     public byte[] readBytes(int length) {
-        checkState(_index >= 0);
-        checkArgument(_index + length - 1 < _bytes.length());
+        if (Checks.ENABLED) {
+            checkState(_index >= 0);
+            checkArgument(_index + length - 1 < _bytes.length());
+        }
 
         byte[] ret = new byte[length];
         for (int i = 0; i < length; i++)
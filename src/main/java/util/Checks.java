@@ -0,0 +1,23 @@
+package util;
+
+/**
+ * Whether the emulator core checks its arguments and invariants on hot paths
+ * (byte scanning, memory accesses, instruction decoding, bit twiddling).
+ *
+ * Checks are on ("checked" mode) unless the JVM is started with
+ * -Dgbemu.release=true ("release" mode). The mode is read once when this
+ * class is loaded, and since ENABLED is a static final the JIT drops the
+ * guarded checks entirely in release mode. Tests always run checked.
+ *
+ * Checks that guard against bad input (e.g., a malformed cartridge header)
+ * or emulation errors (e.g., writing to RAM the cartridge doesn't have) are
+ * kept in both modes; only checks of the emulator's own invariants are
+ * guarded by this.
+ */
+public final class Checks {
+    private Checks() {}
+
+    public final static String RELEASE_PROPERTY = "gbemu.release";
+
+    public final static boolean ENABLED = !Boolean.getBoolean(RELEASE_PROPERTY);
+}
@@ -3,7 +3,7 @@ package util;
 import cpu.disassembler.instruction_args.DereferencedRegisterByte;
 import cpu.disassembler.instruction_args.Register16;
 import cpu.disassembler.instruction_args.Register8;
-import cpu.disassembler.instruction_args.SettableValueContainer;
+import cpu.disassembler.instruction_args.SettableByteOperand;
 
 import java.util.Arrays;
 import java.util.List;
@@ -17,17 +17,17 @@ public class DecodingUtil {
     // A lot of instructions (especially arithmetic and bitwise) use the last
     // three bits to describe either the destination register or (HL).
     // This method maps the last three bits of a byte to the value container.
-    private final static List<SettableValueContainer<Byte>> _8BitContainers =
+    private final static List<SettableByteOperand> _8BitContainers =
             Arrays.asList(Register8.B, Register8.C, Register8.D, Register8.E,
                     Register8.H, Register8.L,
                     new DereferencedRegisterByte(Register16.HL),
                     Register8.A);
-    public static SettableValueContainer<Byte> byteContainerFromByte(byte b) {
+    public static SettableByteOperand byteContainerFromByte(byte b) {
         return _8BitContainers.get((b & 0xFF) % 8);
     }
 
     // Particularly useful in the large block of LD commands.
-    public static SettableValueContainer<Byte> byteContainerFromIndex(int index) {
+    public static SettableByteOperand byteContainerFromIndex(int index) {
         return _8BitContainers.get(index);
     }
 
@@ -63,14 +63,14 @@ public class DecodingUtil {
     // The argument to an 8-bit INC/DEC instruction. This usese the same
     // ordering as _8BitContainers above, but computes the index in a different
     // way.
-    public static SettableValueContainer<Byte> incDec8Arg(byte b) {
+    public static SettableByteOperand incDec8Arg(byte b) {
         // This will truncate and give us the values we want.
         int index = (b & 0xFF) / 8;
 
         return _8BitContainers.get(index);
     }
 
-    public static SettableValueContainer<Byte> ld8ConstDest(byte b) {
+    public static SettableByteOperand ld8ConstDest(byte b) {
         int index = (b & 0xFF) / 8;
         return _8BitContainers.get(index);
     }
@@ -46,13 +46,16 @@ public final class Util {
     }
 
     public static byte setBit(byte orig, int index, int value) {
-        checkArgument(value == 0 || value == 1);
-        checkArgument(index >= 0 && index < 8);
+        if (Checks.ENABLED) {
+            checkArgument(value == 0 || value == 1);
+            checkArgument(index >= 0 && index < 8);
+        }
         return (byte)setBit((int)orig, index, value);
     }
 
     public static byte getBit(byte value, int index) {
-        checkArgument(index >= 0 && index < 8);
+        if (Checks.ENABLED)
+            checkArgument(index >= 0 && index < 8);
         return (byte)getBit((int) value, index);
     }
 
@@ -0,0 +1,164 @@
+package cpu;
+
+import junit.framework.Assert;
+import memory.CartridgeHeader;
+import memory.Memory;
+import memory.components.memory_bank_controllers.MemoryBankController1;
+import memory.components.memory_bank_controllers.NoMemoryBankController;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BreakpointSetTests {
+    private final static int ROM_BANK_SIZE = 0x4000;
+
+    private static EmulatorState createState(boolean banked) {
+        if (!banked)
+            return new EmulatorState(new CartridgeHeader("TEST", false, (byte)0,
+                    false, false, new NoMemoryBankController(new byte[0x8000]), 2, 0,
+                    false, (byte)0, (byte)0, (byte)0, (short)0));
+
+        return new EmulatorState(new CartridgeHeader("TEST", false, (byte)0,
+                false, false, new MemoryBankController1(new byte[4 * ROM_BANK_SIZE], 0), 4, 0,
+                false, (byte)0, (byte)0, (byte)0, (short)0));
+    }
+
+    @Test
+    public void testUnbanked() {
+        BreakpointSet breakpoints = new BreakpointSet(null);
+
+        breakpoints.add((short)0xC000);
+        breakpoints.add((short)0xFFFF);
+        Assert.assertTrue(breakpoints.contains((short)0xC000));
+        Assert.assertTrue(breakpoints.contains((short)0xFFFF));
+        Assert.assertFalse(breakpoints.contains((short)0xC001));
+        Assert.assertFalse(breakpoints.contains((short)0xBFFF));
+
+        breakpoints.remove((short)0xC000);
+        Assert.assertFalse(breakpoints.contains((short)0xC000));
+        Assert.assertTrue(breakpoints.contains((short)0xFFFF));
+    }
+
+    @Test
+    public void testBanked() {
+        Memory memory = createState(true).memory;
+        BreakpointSet breakpoints = new BreakpointSet(memory.mbc);
+
+        breakpoints.add(2, (short)0x4100);
+        breakpoints.add(3, (short)0x4100);
+        breakpoints.add((short)0x5000);
+
+        memory.writeByte((short)0x2000, (byte)1);
+        Assert.assertFalse(breakpoints.contains((short)0x4100));
+        Assert.assertTrue(breakpoints.contains((short)0x5000));
+
+        memory.writeByte((short)0x2000, (byte)2);
+        Assert.assertTrue(breakpoints.contains((short)0x4100));
+        Assert.assertTrue(breakpoints.contains((short)0x5000));
+
+        // The breakpoint in bank 3 is still there.
+        breakpoints.remove(2, (short)0x4100);
+        Assert.assertFalse(breakpoints.contains((short)0x4100));
+        memory.writeByte((short)0x2000, (byte)3);
+        Assert.assertTrue(breakpoints.contains((short)0x4100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBankedOutsideSwitchableBank() {
+        new BreakpointSet(createState(true).memory.mbc).add(1, (short)0x0100);
+    }
+
+    // Records where it was asked whether to break and where it broke.
+    private static class RecordingDebugger implements Debugger {
+        final BreakpointSet breakpoints;
+        final boolean stepping;
+        final List<Integer> asked = new ArrayList<Integer>();
+        final List<Integer> breaks = new ArrayList<Integer>();
+
+        RecordingDebugger(BreakpointSet breakpoints, boolean stepping) {
+            this.breakpoints = breakpoints;
+            this.stepping = stepping;
+        }
+
+        @Override
+        public boolean shouldBreak(EmulatorState state) {
+            asked.add(state.registerState.getPC());
+            return stepping || breakpoints.contains((short)state.registerState.getPC());
+        }
+
+        @Override
+        public void onBreak(EmulatorState state) {
+            breaks.add(state.registerState.getPC());
+        }
+
+        @Override
+        public BreakpointSet getBreakpoints() {
+            return breakpoints;
+        }
+
+        @Override
+        public boolean isStepping() {
+            return stepping;
+        }
+    }
+
+    // A ROM full of NOPs, which the block cache would run as one block.
+    private static EmulatorState createNopState() {
+        EmulatorState state = createState(false);
+        state.setPacingMode(PacingMode.UNTHROTTLED);
+        state.setExecutionMode(ExecutionMode.BASIC_BLOCKS);
+        state.registerState.setPC(0x100);
+        return state;
+    }
+
+    @Test
+    public void testDebuggerBreaksInsideBlocks() {
+        EmulatorState state = createNopState();
+
+        BreakpointSet breakpoints = new BreakpointSet(state.memory.mbc);
+        breakpoints.add((short)0x108);
+        breakpoints.add((short)0x110);
+
+        RecordingDebugger debugger = new RecordingDebugger(breakpoints, false);
+        state.addDebugger(debugger);
+
+        state.runForCycles(0x20 * 4);
+        Assert.assertEquals(2, debugger.breaks.size());
+        Assert.assertEquals(0x108, (int)debugger.breaks.get(0));
+        Assert.assertEquals(0x110, (int)debugger.breaks.get(1));
+        Assert.assertEquals(0x120, state.registerState.getPC());
+    }
+
+    @Test
+    public void testDebuggerWithoutInteriorBreakpointsRunsBlocks() {
+        EmulatorState state = createNopState();
+
+        BreakpointSet breakpoints = new BreakpointSet(state.memory.mbc);
+        breakpoints.add((short)0x100);
+
+        RecordingDebugger debugger = new RecordingDebugger(breakpoints, false);
+        state.addDebugger(debugger);
+
+        state.runUntilPc((short)0x3000, Long.MAX_VALUE);
+        Assert.assertEquals(1, debugger.breaks.size());
+        Assert.assertEquals(0x100, (int)debugger.breaks.get(0));
+
+        // Only asked at the start of each block, not before every NOP.
+        Assert.assertEquals(0x3000 - 0x100, state.getInstructions());
+        Assert.assertTrue(debugger.asked.size() < (0x3000 - 0x100) / 16);
+    }
+
+    @Test
+    public void testSteppingDebuggerSeesEveryInstruction() {
+        EmulatorState state = createNopState();
+
+        RecordingDebugger debugger = new RecordingDebugger(null, true);
+        state.addDebugger(debugger);
+
+        state.runForCycles(0x20 * 4);
+        Assert.assertEquals(0x20, debugger.breaks.size());
+        for (int i = 0; i < 0x20; i++)
+            Assert.assertEquals(0x100 + i, (int)debugger.breaks.get(i));
+    }
+}
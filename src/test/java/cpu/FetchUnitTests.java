@@ -0,0 +1,79 @@
+package cpu;
+
+import junit.framework.Assert;
+import memory.CartridgeHeader;
+import memory.Memory;
+import memory.components.memory_bank_controllers.MemoryBankController1;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the FetchUnit sees the same bytes as Memory, including after
+ * bank switches and writes.
+ */
+public class FetchUnitTests {
+    private final static int ROM_BANK_SIZE = 0x4000;
+    private final static int NUM_ROM_BANKS = 4;
+
+    private Memory _memory;
+    private FetchUnit _fetch;
+
+    @Before
+    public void initialize() {
+        // Every byte of each ROM bank is its bank number.
+        byte[] rom = new byte[NUM_ROM_BANKS * ROM_BANK_SIZE];
+        for (int i = 0; i < rom.length; i++)
+            rom[i] = (byte)(i / ROM_BANK_SIZE);
+
+        EmulatorState state = new EmulatorState(new CartridgeHeader("TEST", false,
+                (byte)0, false, true, new MemoryBankController1(rom, 8), 4, 8, false,
+                (byte)0, (byte)0, (byte)0, (short)0));
+        _memory = state.memory;
+        _fetch = new FetchUnit(_memory);
+    }
+
+    private int fetch(int address) {
+        return _fetch.get(address) & 0xFF;
+    }
+
+    @Test
+    public void testRomBanks() {
+        _memory.writeByte((short)0x2000, (byte)1);
+        Assert.assertEquals(0, fetch(0x0100));
+        Assert.assertEquals(1, fetch(0x4000));
+
+        // Switching banks is seen without fetching from another page first.
+        _memory.writeByte((short)0x2000, (byte)3);
+        Assert.assertEquals(3, fetch(0x4001));
+        Assert.assertEquals(3, fetch(0x7FFF));
+        Assert.assertEquals(0, fetch(0x3FFF));
+
+        _memory.writeByte((short)0x2000, (byte)2);
+        Assert.assertEquals(2, fetch(0x7FFF));
+    }
+
+    @Test
+    public void testRamIsLive() {
+        _memory.writeByte((short)0xC123, (byte)0x42);
+        Assert.assertEquals(0x42, fetch(0xC123));
+
+        _memory.writeByte((short)0xC123, (byte)0x43);
+        Assert.assertEquals(0x43, fetch(0xC123));
+
+        // Through the echo of work RAM
+        Assert.assertEquals(0x43, fetch(0xE123));
+    }
+
+    @Test
+    public void testFallsBackToMemory() {
+        // HRAM and cartridge RAM aren't backed by a page.
+        _memory.writeByte((short)0xFF90, (byte)0x18);
+        Assert.assertEquals(0x18, fetch(0xFF90));
+
+        _memory.writeByte((short)0x0000, (byte)0x0A);
+        _memory.writeByte((short)0xA010, (byte)0x76);
+        Assert.assertEquals(0x76, fetch(0xA010));
+
+        Assert.assertEquals(0x10000, _fetch.length());
+    }
+}
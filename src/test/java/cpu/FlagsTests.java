@@ -60,4 +60,81 @@ public class FlagsTests {
         flags.setC(1);
         Assert.assertEquals(expectedAfterC, (short)Register16.AF.get(state));
     }
+
+    // Returns F after running op with lazy flags on or off.
+    private byte flagsAfter(boolean lazy, int op, int a, int b, int carry) {
+        EmulatorState state = new EmulatorState();
+        Flags flags = state.registerState.flags;
+        flags.setLazy(lazy);
+
+        switch (op) {
+            case 0:
+                flags.setAdd8(a, b, carry);
+                break;
+            case 1:
+                flags.setSub8(a, b, carry);
+                break;
+            case 2:
+                flags.setLogic(a, carry);
+                break;
+            default:
+                flags.setShift(a, carry);
+                break;
+        }
+
+        return (byte)(short)Register16.AF.get(state);
+    }
+
+    @Test
+    public void testLazyMatchesEager() {
+        for (int op = 0; op < 4; op++)
+            for (int a = 0; a < 256; a++)
+                for (int b = 0; b < 256; b += 17)
+                    for (int carry = 0; carry <= 1; carry++)
+                        Assert.assertEquals(flagsAfter(false, op, a, b, carry),
+                                flagsAfter(true, op, a, b, carry));
+    }
+
+    @Test
+    public void testLazyAdd() {
+        EmulatorState state = new EmulatorState();
+        Flags flags = state.registerState.flags;
+
+        // 0x0F + 0xF1 = 0x100: zero, half-carry and carry.
+        flags.setAdd8(0x0F, 0xF1, 0);
+        Assert.assertEquals(1, flags.getZ());
+        Assert.assertEquals(0, flags.getN());
+        Assert.assertEquals(1, flags.getH());
+        Assert.assertEquals(1, flags.getC());
+        Assert.assertEquals((short)0x00B0, (short)Register16.AF.get(state));
+    }
+
+    @Test
+    public void testSettingOneFlagKeepsPendingFlags() {
+        EmulatorState state = new EmulatorState();
+        Flags flags = state.registerState.flags;
+
+        // 0x10 - 0x01: half-borrow only.
+        flags.setSub8(0x10, 0x01, 0);
+        flags.setC(1);
+
+        Assert.assertEquals(0, flags.getZ());
+        Assert.assertEquals(1, flags.getN());
+        Assert.assertEquals(1, flags.getH());
+        Assert.assertEquals(1, flags.getC());
+    }
+
+    @Test
+    public void testWritingFDiscardsPendingFlags() {
+        EmulatorState state = new EmulatorState();
+        Flags flags = state.registerState.flags;
+
+        // As with POP AF
+        flags.setAdd8(0xFF, 0x01, 0);
+        Register16.AF.set(state, (short)0x1240);
+
+        Assert.assertEquals((short)0x1240, (short)Register16.AF.get(state));
+        Assert.assertEquals(0, flags.getZ());
+        Assert.assertEquals(1, flags.getN());
+    }
 }
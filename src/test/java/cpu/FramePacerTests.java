@@ -0,0 +1,57 @@
+package cpu;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+/**
+ * Host timing isn't precise enough to check how long pacing takes exactly, so
+ * these only check lower bounds (and that UNTHROTTLED doesn't wait at all).
+ */
+public class FramePacerTests {
+    // One frame takes this many nanoseconds at hardware speed.
+    private final static long FRAME_NANO_SECONDS =
+            (long)(EmulatorState.CYCLES_PER_FRAME * FramePacer.NANO_SECONDS_PER_CYCLE);
+
+    private final static int FRAMES = 6;
+
+    private long timeFrames(FramePacer pacer) {
+        // The first frame after a reset starts pacing from the current time.
+        pacer.endFrame();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++)
+            pacer.endFrame();
+
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    public void testRealTime() {
+        FramePacer pacer = new FramePacer(EmulatorState.CYCLES_PER_FRAME);
+        pacer.setMode(PacingMode.REAL_TIME);
+
+        Assert.assertTrue(timeFrames(pacer) >= (FRAMES - 1) * FRAME_NANO_SECONDS);
+    }
+
+    @Test
+    public void testMultiplier() {
+        FramePacer pacer = new FramePacer(EmulatorState.CYCLES_PER_FRAME);
+        pacer.setMode(PacingMode.MULTIPLIER);
+        pacer.setMultiplier(0.5);
+
+        Assert.assertTrue(timeFrames(pacer) >= 2 * (FRAMES - 1) * FRAME_NANO_SECONDS);
+    }
+
+    @Test
+    public void testUnthrottled() {
+        FramePacer pacer = new FramePacer(EmulatorState.CYCLES_PER_FRAME);
+        pacer.setMode(PacingMode.UNTHROTTLED);
+
+        Assert.assertTrue(timeFrames(pacer) < FRAME_NANO_SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMultiplierMustBePositive() {
+        new FramePacer(EmulatorState.CYCLES_PER_FRAME).setMultiplier(0);
+    }
+}
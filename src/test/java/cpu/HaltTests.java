@@ -0,0 +1,71 @@
+package cpu;
+
+import junit.framework.Assert;
+import memory.CartridgeHeader;
+import memory.components.memory_bank_controllers.NoMemoryBankController;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests HALT against a ROM that halts at 0x100 and is NOPs everywhere else.
+ */
+public class HaltTests {
+    private final static byte HALT = 0x76;
+    private final static int VBLANK_CYCLE = 144 * EmulatorState.CYCLES_PER_SCANLINE;
+
+    private EmulatorState _state;
+
+    @Before
+    public void initialize() {
+        byte[] rom = new byte[0x8000];
+        rom[0x100] = HALT;
+
+        _state = new EmulatorState(new CartridgeHeader("TEST", false, (byte)0,
+                false, false, new NoMemoryBankController(rom), 2, 0, false,
+                (byte)0, (byte)0, (byte)0, (short)0));
+
+        _state.setPacingMode(PacingMode.UNTHROTTLED);
+        _state.registerState.setPC(0x100);
+    }
+
+    private void testWakesOnVBlank() {
+        // Enable the VBlank interrupt.
+        _state.memory.writeByte((short)0xFFFF, (byte)0x01);
+
+        RunResult result = _state.runForCycles(100);
+        Assert.assertEquals(100, result.cycles);
+        Assert.assertTrue(_state.isHalted());
+        Assert.assertEquals(1, _state.getInstructions());
+        Assert.assertEquals(0x101, _state.registerState.getPC());
+
+        // Nothing executes until VBlank, then NOPs run for the rest of the
+        // budget.
+        result = _state.runForCycles(VBLANK_CYCLE + 400 - 100);
+        Assert.assertEquals(RunResult.Status.CYCLES_EXHAUSTED, result.status);
+        Assert.assertFalse(_state.isHalted());
+        Assert.assertEquals(1 + 400 / 4, _state.getInstructions());
+        Assert.assertEquals(0x101 + 400 / 4, _state.registerState.getPC());
+        Assert.assertEquals(0x01, _state.memory.readByte((short)0xFF0F) & 0x01);
+    }
+
+    @Test
+    public void testWakesOnVBlankInterpreted() {
+        testWakesOnVBlank();
+    }
+
+    @Test
+    public void testWakesOnVBlankWithBlocks() {
+        _state.setExecutionMode(ExecutionMode.BASIC_BLOCKS);
+        testWakesOnVBlank();
+    }
+
+    @Test
+    public void testStaysHaltedWithoutEnabledInterrupt() {
+        RunResult result = _state.runUntilFrame();
+
+        Assert.assertEquals(RunResult.Status.FRAME_COMPLETED, result.status);
+        Assert.assertEquals(VBLANK_CYCLE, _state.getCycles());
+        Assert.assertTrue(_state.isHalted());
+        Assert.assertEquals(1, _state.getInstructions());
+    }
+}
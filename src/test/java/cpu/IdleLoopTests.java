@@ -0,0 +1,110 @@
+package cpu;
+
+import junit.framework.Assert;
+import memory.CartridgeHeader;
+import memory.components.memory_bank_controllers.NoMemoryBankController;
+import org.junit.Test;
+
+/**
+ * Tests skipping idle loops against a ROM that polls a register at 0x100 (or
+ * 0x101, after an EI) and is NOPs after the loop.
+ */
+public class IdleLoopTests {
+    private final static int LOOP_END = 0x107;
+    private final static int VBLANK_CYCLE = 144 * EmulatorState.CYCLES_PER_SCANLINE;
+
+    private final static byte EI = (byte)0xFB;
+    private final static int VBLANK_VECTOR = 0x40;
+
+    private static EmulatorState createState(int register, boolean skipping) {
+        return createState(register, skipping, false);
+    }
+
+    // Waits until the register at FF00+register is 0x90:
+    //     LDH A, (register)
+    //     CP $90
+    //     JP NZ, loop
+    // If enableInterrupts, the loop is preceded by an EI.
+    private static EmulatorState createState(int register, boolean skipping,
+                                             boolean enableInterrupts) {
+        byte[] rom = new byte[0x8000];
+        int loopStart = enableInterrupts ? 0x101 : 0x100;
+        byte[] loop = new byte[] {
+                (byte)0xF0, (byte)register,
+                (byte)0xFE, (byte)0x90,
+                (byte)0xC2, (byte)loopStart, 0x01
+        };
+        rom[0x100] = EI;
+        System.arraycopy(loop, 0, rom, loopStart, loop.length);
+
+        EmulatorState state = new EmulatorState(new CartridgeHeader("TEST", false, (byte)0,
+                false, false, new NoMemoryBankController(rom), 2, 0, false,
+                (byte)0, (byte)0, (byte)0, (short)0));
+
+        state.setPacingMode(PacingMode.UNTHROTTLED);
+        state.setExecutionMode(ExecutionMode.BASIC_BLOCKS);
+        state.setIdleLoopSkipping(skipping);
+        state.registerState.setPC(0x100);
+        return state;
+    }
+
+    @Test
+    public void testSkipsLyLoop() {
+        EmulatorState skipped = createState(0x44, true);
+        EmulatorState executed = createState(0x44, false);
+
+        RunResult skippedResult = skipped.runUntilPc((short)LOOP_END, 2 * VBLANK_CYCLE);
+        RunResult executedResult = executed.runUntilPc((short)LOOP_END, 2 * VBLANK_CYCLE);
+
+        // Skipping the loop doesn't change when it ends.
+        Assert.assertEquals(RunResult.Status.PC_REACHED, skippedResult.status);
+        Assert.assertEquals(executedResult.cycles, skippedResult.cycles);
+        Assert.assertTrue(skippedResult.cycles > VBLANK_CYCLE);
+
+        Assert.assertEquals(0, executed.getIdleCyclesSkipped());
+        Assert.assertTrue(skipped.getIdleCyclesSkipped() > VBLANK_CYCLE / 2);
+        Assert.assertEquals(executed.getInstructions(),
+                skipped.getInstructions() + 3 * skipped.getIdleIterationsSkipped());
+    }
+
+    @Test
+    public void testStopsAtCycleBudget() {
+        EmulatorState state = createState(0x44, true);
+
+        RunResult result = state.runForCycles(10000);
+        Assert.assertEquals(RunResult.Status.CYCLES_EXHAUSTED, result.status);
+        Assert.assertTrue(result.cycles >= 10000 && result.cycles < 10000 + 36);
+        Assert.assertEquals(0x100, state.registerState.getPC());
+        Assert.assertTrue(state.getIdleCyclesSkipped() > 0);
+    }
+
+    @Test
+    public void testDoesNotSkipTimeDependentRegisters() {
+        // DIV (FF04) changes without a scheduled event.
+        EmulatorState state = createState(0x04, true);
+
+        state.runForCycles(10000);
+        Assert.assertEquals(0, state.getIdleCyclesSkipped());
+    }
+
+    @Test
+    public void testDoesNotSkipWithInterruptPending() {
+        EmulatorState skipped = createState(0x44, true, true);
+        EmulatorState executed = createState(0x44, false, true);
+
+        // VBlank is already requested, so it's dispatched once the EI takes
+        // effect, which is after the loop has run once.
+        for (EmulatorState state : new EmulatorState[] { skipped, executed }) {
+            state.memory.writeByte((short)0xFFFF, (byte)0x01);
+            state.interrupts.request(InterruptController.VBLANK);
+        }
+
+        RunResult skippedResult = skipped.runUntilPc((short)VBLANK_VECTOR, VBLANK_CYCLE);
+        RunResult executedResult = executed.runUntilPc((short)VBLANK_VECTOR, VBLANK_CYCLE);
+
+        Assert.assertEquals(RunResult.Status.PC_REACHED, skippedResult.status);
+        Assert.assertEquals(executedResult.cycles, skippedResult.cycles);
+        Assert.assertEquals(0, skipped.getIdleCyclesSkipped());
+        Assert.assertEquals(1, skipped.interrupts.getDispatchCount());
+    }
+}
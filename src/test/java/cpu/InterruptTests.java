@@ -0,0 +1,184 @@
+package cpu;
+
+import cpu.disassembler.instruction_args.Register16;
+import junit.framework.Assert;
+import memory.CartridgeHeader;
+import memory.components.memory_bank_controllers.NoMemoryBankController;
+import org.junit.Before;
+import org.junit.Test;
+import util.Util;
+
+/**
+ * Tests interrupt dispatch against a ROM that's NOPs everywhere, except for a
+ * RETI at the VBlank vector and whatever a test puts at 0x100.
+ */
+public class InterruptTests {
+    private final static byte EI = (byte)0xFB;
+    private final static byte DI = (byte)0xF3;
+    private final static byte HALT = 0x76;
+    private final static byte RETI = (byte)0xD9;
+
+    private final static short IF_ADDRESS = (short)0xFF0F;
+    private final static short IE_ADDRESS = (short)0xFFFF;
+    private final static int STACK_TOP = 0xFFFE;
+
+    private final static int VBLANK_VECTOR = 0x40;
+    private final static int VBLANK_CYCLE = 144 * EmulatorState.CYCLES_PER_SCANLINE;
+
+    private byte[] _rom;
+    private EmulatorState _state;
+
+    @Before
+    public void initialize() {
+        _rom = new byte[0x8000];
+        _rom[VBLANK_VECTOR] = RETI;
+    }
+
+    private void start(byte... code) {
+        System.arraycopy(code, 0, _rom, 0x100, code.length);
+
+        _state = new EmulatorState(new CartridgeHeader("TEST", false, (byte)0,
+                false, false, new NoMemoryBankController(_rom), 2, 0, false,
+                (byte)0, (byte)0, (byte)0, (short)0));
+
+        _state.setPacingMode(PacingMode.UNTHROTTLED);
+        _state.registerState.setPC(0x100);
+        Register16.SP.setInt(_state, (short)STACK_TOP);
+    }
+
+    // Reads the top of the stack the way MemoryInstructions.pop() does.
+    private int readReturnAddress() {
+        short sp = (short)Register16.SP.getInt(_state);
+        return Util.swapBytes(_state.memory.readShort(sp)) & 0xFFFF;
+    }
+
+    private void assertDispatchedFrom(int returnAddress) {
+        Assert.assertEquals(VBLANK_VECTOR, _state.registerState.getPC());
+        Assert.assertEquals(STACK_TOP - 2, Register16.SP.getInt(_state) & 0xFFFF);
+        Assert.assertEquals(returnAddress, readReturnAddress());
+        Assert.assertFalse(_state.interrupts.isMasterEnabled());
+        Assert.assertEquals(0, _state.memory.readByte(IF_ADDRESS) & 0x01);
+        Assert.assertEquals(1, _state.interrupts.getDispatchCount());
+    }
+
+    private void testDispatchesVBlank(boolean blocks) {
+        _state.memory.writeByte(IE_ADDRESS, (byte)0x01);
+
+        RunResult result = _state.runUntilPc((short)VBLANK_VECTOR, Long.MAX_VALUE);
+        Assert.assertEquals(RunResult.Status.PC_REACHED, result.status);
+
+        // Blocks are only interrupted between them, so the dispatch may be
+        // up to a block late.
+        long cycles = result.cycles - InterruptController.DISPATCH_CYCLES;
+        Assert.assertTrue(cycles >= VBLANK_CYCLE);
+        if (!blocks)
+            Assert.assertEquals(VBLANK_CYCLE, cycles);
+
+        // Every instruction before the dispatch is a 4 cycle NOP (or the EI).
+        int returnAddress = 0x100 + (int)(cycles / 4);
+        assertDispatchedFrom(returnAddress);
+
+        // The handler's RETI goes back and sets IME again.
+        _state.step();
+        Assert.assertEquals(returnAddress, _state.registerState.getPC());
+        Assert.assertTrue(_state.interrupts.isMasterEnabled());
+    }
+
+    @Test
+    public void testDispatchesVBlankInterpreted() {
+        start(EI);
+        testDispatchesVBlank(false);
+    }
+
+    @Test
+    public void testDispatchesVBlankWithBlocks() {
+        start(EI);
+        _state.setExecutionMode(ExecutionMode.BASIC_BLOCKS);
+        testDispatchesVBlank(true);
+    }
+
+    @Test
+    public void testEiTakesEffectAfterNextInstruction() {
+        start(EI);
+        _state.memory.writeByte(IE_ADDRESS, (byte)0x01);
+        _state.interrupts.request(InterruptController.VBLANK);
+
+        _state.step();
+        Assert.assertEquals(0x101, _state.registerState.getPC());
+
+        _state.step();
+        Assert.assertEquals(0x102, _state.registerState.getPC());
+
+        _state.step();
+        assertDispatchedFrom(0x102);
+    }
+
+    @Test
+    public void testDiCancelsPendingEi() {
+        start(EI, DI);
+        _state.memory.writeByte(IE_ADDRESS, (byte)0x01);
+        _state.interrupts.request(InterruptController.VBLANK);
+
+        _state.runForCycles(100);
+        Assert.assertEquals(0, _state.interrupts.getDispatchCount());
+        Assert.assertEquals(0x01, _state.memory.readByte(IF_ADDRESS) & 0x01);
+    }
+
+    @Test
+    public void testNotDispatchedUnlessEnabled() {
+        start(EI);
+        _state.interrupts.request(InterruptController.VBLANK);
+
+        _state.runForCycles(100);
+        Assert.assertEquals(0, _state.interrupts.getDispatchCount());
+        Assert.assertEquals(0x100 + 100 / 4, _state.registerState.getPC());
+    }
+
+    @Test
+    public void testHighestPriorityFirst() {
+        start();
+        _state.interrupts.enable();
+        _state.memory.writeByte(IE_ADDRESS, (byte)0x1F);
+        _state.interrupts.request(InterruptController.TIMER);
+        _state.interrupts.request(InterruptController.LCD_STAT);
+
+        _state.step();
+        Assert.assertEquals(0x48, _state.registerState.getPC());
+
+        // The unused bits read as 1, and TIMER is still requested.
+        Assert.assertEquals((byte)0xE4, _state.memory.readByte(IF_ADDRESS));
+    }
+
+    @Test
+    public void testWritesToFlagsRequestInterrupts() {
+        start();
+        _state.interrupts.enable();
+        _state.memory.writeByte(IE_ADDRESS, (byte)0x01);
+        _state.memory.writeByte(IF_ADDRESS, (byte)0x01);
+
+        _state.step();
+        assertDispatchedFrom(0x100);
+    }
+
+    private void testHaltDispatchesOnWake() {
+        _state.memory.writeByte(IE_ADDRESS, (byte)0x01);
+
+        RunResult result = _state.runUntilPc((short)VBLANK_VECTOR, Long.MAX_VALUE);
+        Assert.assertEquals(VBLANK_CYCLE + InterruptController.DISPATCH_CYCLES, result.cycles);
+        Assert.assertFalse(_state.isHalted());
+        assertDispatchedFrom(0x102);
+    }
+
+    @Test
+    public void testHaltDispatchesOnWakeInterpreted() {
+        start(EI, HALT);
+        testHaltDispatchesOnWake();
+    }
+
+    @Test
+    public void testHaltDispatchesOnWakeWithBlocks() {
+        start(EI, HALT);
+        _state.setExecutionMode(ExecutionMode.BASIC_BLOCKS);
+        testHaltDispatchesOnWake();
+    }
+}
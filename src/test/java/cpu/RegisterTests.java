@@ -127,4 +127,22 @@ public class RegisterTests {
         testConstituentRegs(state, Register16.DE, Register8.D, Register8.E);
         testConstituentRegs(state, Register16.HL, Register8.H, Register8.L);
     }
+
+    @Test
+    public void testPcAndSpAccessors() {
+        EmulatorState state = new EmulatorState();
+
+        state.registerState.setPC(0x1234);
+        state.registerState.setSP(0xFFFE);
+
+        Assert.assertEquals((short)0x1234, (short)Register16.PC.get(state));
+        Assert.assertEquals((short)0xFFFE, (short)Register16.SP.get(state));
+
+        // Values are kept as unsigned 16-bit ints.
+        Register16.PC.set(state, (short)0xABCD);
+        Assert.assertEquals(0xABCD, state.registerState.getPC());
+
+        state.registerState.setSP(0x10000);
+        Assert.assertEquals(0, state.registerState.getSP());
+    }
 }
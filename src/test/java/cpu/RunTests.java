@@ -0,0 +1,85 @@
+package cpu;
+
+import junit.framework.Assert;
+import memory.CartridgeHeader;
+import memory.components.memory_bank_controllers.NoMemoryBankController;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the bounded run methods of EmulatorState against a ROM full of NOPs,
+ * each of which takes 4 cycles.
+ */
+public class RunTests {
+    private final static int VBLANK_SCANLINE = 144;
+    private final static int VBLANK_CYCLE = VBLANK_SCANLINE * EmulatorState.CYCLES_PER_SCANLINE;
+
+    private EmulatorState _state;
+
+    @Before
+    public void initialize() {
+        byte[] rom = new byte[0x8000];
+        _state = new EmulatorState(new CartridgeHeader("TEST", false, (byte)0,
+                false, false, new NoMemoryBankController(rom), 2, 0, false,
+                (byte)0, (byte)0, (byte)0, (short)0));
+
+        _state.setPacingMode(PacingMode.UNTHROTTLED);
+        _state.registerState.setPC(0x100);
+    }
+
+    @Test
+    public void testRunForCycles() {
+        RunResult result = _state.runForCycles(100);
+
+        Assert.assertEquals(RunResult.Status.CYCLES_EXHAUSTED, result.status);
+        Assert.assertEquals(100, result.cycles);
+        Assert.assertEquals(0x100 + 25, _state.registerState.getPC());
+    }
+
+    @Test
+    public void testRunUntilFrame() {
+        // Frames end when VBlank starts.
+        RunResult result = _state.runUntilFrame();
+
+        Assert.assertEquals(RunResult.Status.FRAME_COMPLETED, result.status);
+        Assert.assertEquals(VBLANK_CYCLE, result.cycles);
+        Assert.assertEquals(1, _state.getFrames());
+        Assert.assertEquals(VBLANK_SCANLINE, _state.memory.regs.ly.value & 0xFF);
+
+        result = _state.runUntilFrame();
+        Assert.assertEquals(RunResult.Status.FRAME_COMPLETED, result.status);
+        Assert.assertEquals(EmulatorState.CYCLES_PER_FRAME, result.cycles);
+        Assert.assertEquals(2, _state.getFrames());
+        Assert.assertEquals(VBLANK_SCANLINE, _state.memory.regs.ly.value & 0xFF);
+    }
+
+    private void testRunUntilPc() {
+        RunResult result = _state.runUntilPc((short)0x110, 1000);
+
+        Assert.assertEquals(RunResult.Status.PC_REACHED, result.status);
+        Assert.assertEquals(0x10 * 4, result.cycles);
+        Assert.assertEquals(0x110, _state.registerState.getPC());
+
+        // Already there
+        result = _state.runUntilPc((short)0x110, 1000);
+        Assert.assertEquals(RunResult.Status.PC_REACHED, result.status);
+        Assert.assertEquals(0, result.cycles);
+
+        result = _state.runUntilPc((short)0x7000, 40);
+        Assert.assertEquals(RunResult.Status.CYCLES_EXHAUSTED, result.status);
+        Assert.assertEquals(40, result.cycles);
+    }
+
+    @Test
+    public void testRunUntilPcInterpreted() {
+        testRunUntilPc();
+    }
+
+    @Test
+    public void testRunUntilPcWithBlocks() {
+        // The block starting at 0x100 runs through 0x13F, past the target
+        // and the cycle budget.
+        _state.setExecutionMode(ExecutionMode.BASIC_BLOCKS);
+        testRunUntilPc();
+    }
+}
@@ -0,0 +1,126 @@
+package cpu;
+
+import junit.framework.Assert;
+import memory.CartridgeHeader;
+import memory.components.memory_bank_controllers.NoMemoryBankController;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SchedulerTests {
+    // Records the events it's called for, in order.
+    private static class RecordingHandler implements Scheduler.EventHandler {
+        public final List<Integer> events = new ArrayList<Integer>();
+
+        @Override
+        public void onEvent(int event, long cycle) {
+            events.add(event);
+        }
+    }
+
+    // Event ids for a scheduler with three kinds of events, so that the
+    // queue has to order more than two.
+    private final static int FIRST_EVENT = 0;
+    private final static int SECOND_EVENT = 1;
+    private final static int THIRD_EVENT = 2;
+
+    private Scheduler createScheduler(Scheduler.EventHandler handler) {
+        Scheduler scheduler = new Scheduler(3);
+        scheduler.setHandler(FIRST_EVENT, handler);
+        scheduler.setHandler(SECOND_EVENT, handler);
+        scheduler.setHandler(THIRD_EVENT, handler);
+        return scheduler;
+    }
+
+    @Test
+    public void testEventsRunInOrder() {
+        RecordingHandler handler = new RecordingHandler();
+        Scheduler scheduler = createScheduler(handler);
+
+        scheduler.schedule(FIRST_EVENT, 100);
+        scheduler.schedule(SECOND_EVENT, 300);
+        scheduler.schedule(THIRD_EVENT, 200);
+        Assert.assertEquals(100, scheduler.getNextEventCycle());
+
+        scheduler.runDueEvents(250);
+        Assert.assertEquals(2, handler.events.size());
+        Assert.assertEquals(FIRST_EVENT, (int)handler.events.get(0));
+        Assert.assertEquals(THIRD_EVENT, (int)handler.events.get(1));
+        Assert.assertEquals(300, scheduler.getNextEventCycle());
+
+        scheduler.runDueEvents(1000);
+        Assert.assertEquals(3, handler.events.size());
+        Assert.assertEquals(SECOND_EVENT, (int)handler.events.get(2));
+        Assert.assertEquals(Scheduler.NEVER, scheduler.getNextEventCycle());
+    }
+
+    @Test
+    public void testRescheduleAndCancel() {
+        RecordingHandler handler = new RecordingHandler();
+        Scheduler scheduler = createScheduler(handler);
+
+        scheduler.schedule(THIRD_EVENT, 100);
+        scheduler.schedule(FIRST_EVENT, 200);
+        scheduler.schedule(SECOND_EVENT, 300);
+
+        // Moving the earliest event later and a later event earlier.
+        scheduler.schedule(THIRD_EVENT, 500);
+        scheduler.schedule(SECOND_EVENT, 50);
+        Assert.assertEquals(50, scheduler.getNextEventCycle());
+        Assert.assertEquals(500, scheduler.getEventCycle(THIRD_EVENT));
+
+        scheduler.cancel(SECOND_EVENT);
+        Assert.assertFalse(scheduler.isScheduled(SECOND_EVENT));
+        Assert.assertEquals(200, scheduler.getNextEventCycle());
+
+        scheduler.runDueEvents(1000);
+        Assert.assertEquals(2, handler.events.size());
+        Assert.assertEquals(FIRST_EVENT, (int)handler.events.get(0));
+        Assert.assertEquals(THIRD_EVENT, (int)handler.events.get(1));
+    }
+
+    @Test
+    public void testHandlerCanReschedule() {
+        final Scheduler scheduler = new Scheduler();
+        final List<Long> cycles = new ArrayList<Long>();
+
+        scheduler.setHandler(Scheduler.SCANLINE_END, new Scheduler.EventHandler() {
+            @Override
+            public void onEvent(int event, long cycle) {
+                cycles.add(cycle);
+                scheduler.schedule(event, cycle + 100);
+            }
+        });
+
+        scheduler.schedule(Scheduler.SCANLINE_END, 100);
+        scheduler.runDueEvents(350);
+
+        Assert.assertEquals(3, cycles.size());
+        Assert.assertEquals(300L, (long)cycles.get(2));
+        Assert.assertEquals(400, scheduler.getNextEventCycle());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testUnknownEvent() {
+        new Scheduler().schedule(Scheduler.TIMER_OVERFLOW + 1, 100);
+    }
+
+    @Test
+    public void testEmulatorAdvancesScanlines() {
+        // A ROM full of NOPs, each of which takes 4 cycles.
+        byte[] rom = new byte[0x8000];
+        EmulatorState state = new EmulatorState(new CartridgeHeader("TEST", false,
+                (byte)0, false, false, new NoMemoryBankController(rom), 2, 0, false,
+                (byte)0, (byte)0, (byte)0, (short)0));
+
+        int nops = 3 * EmulatorState.CYCLES_PER_SCANLINE / 4;
+        for (int i = 0; i < nops; i++)
+            state.step();
+
+        Assert.assertEquals(3 * EmulatorState.CYCLES_PER_SCANLINE, state.getCycles());
+        Assert.assertEquals(3, state.memory.regs.ly.value);
+        Assert.assertEquals(4 * EmulatorState.CYCLES_PER_SCANLINE,
+                state.scheduler.getEventCycle(Scheduler.SCANLINE_END));
+    }
+}
@@ -0,0 +1,221 @@
+package cpu;
+
+import cpu.disassembler.instruction_args.Register8;
+import junit.framework.Assert;
+import memory.CartridgeHeader;
+import memory.components.memory_bank_controllers.NoMemoryBankController;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the timer registers against a ROM that's NOPs everywhere, except for
+ * whatever a test puts at 0x100.
+ */
+public class TimerTests {
+    private final static byte HALT = 0x76;
+
+    private final static short DIV = (short)0xFF04;
+    private final static short TIMA = (short)0xFF05;
+    private final static short TMA = (short)0xFF06;
+    private final static short TAC = (short)0xFF07;
+    private final static short IF_ADDRESS = (short)0xFF0F;
+    private final static short IE_ADDRESS = (short)0xFFFF;
+
+    // Enabled, ticking every 16 cycles.
+    private final static byte TAC_16_CYCLES = 0x05;
+
+    private final static int TIMER_INTERRUPT = 0x04;
+
+    private byte[] _rom;
+    private EmulatorState _state;
+
+    @Before
+    public void initialize() {
+        _rom = new byte[0x8000];
+    }
+
+    private void start(byte... code) {
+        System.arraycopy(code, 0, _rom, 0x100, code.length);
+
+        _state = new EmulatorState(new CartridgeHeader("TEST", false, (byte)0,
+                false, false, new NoMemoryBankController(_rom), 2, 0, false,
+                (byte)0, (byte)0, (byte)0, (short)0));
+
+        _state.setPacingMode(PacingMode.UNTHROTTLED);
+        _state.registerState.setPC(0x100);
+    }
+
+    private int read(short address) {
+        return _state.memory.readByte(address) & 0xFF;
+    }
+
+    private void write(short address, int value) {
+        _state.memory.writeByte(address, (byte)value);
+    }
+
+    @Test
+    public void testDividerCountsCycles() {
+        start();
+        Assert.assertEquals(0xAB, read(DIV));
+
+        // The divider starts at 0xABCC, so its upper byte changes after 0x34
+        // cycles and then every 0x100.
+        _state.runForCycles(0x34);
+        Assert.assertEquals(0xAC, read(DIV));
+        _state.runForCycles(0x100);
+        Assert.assertEquals(0xAD, read(DIV));
+    }
+
+    @Test
+    public void testWritingDividerResetsIt() {
+        start();
+        _state.runForCycles(0x200);
+
+        write(DIV, 0x55);
+        Assert.assertEquals(0, read(DIV));
+        _state.runForCycles(0xFC);
+        Assert.assertEquals(0, read(DIV));
+        _state.runForCycles(4);
+        Assert.assertEquals(1, read(DIV));
+    }
+
+    @Test
+    public void testCounterTicks() {
+        start();
+        write(DIV, 0);
+        write(TAC, TAC_16_CYCLES);
+        Assert.assertEquals(0xFD, read(TAC));
+
+        _state.runForCycles(160);
+        Assert.assertEquals(10, read(TIMA));
+
+        // Stopping the timer keeps the count.
+        write(TAC, 0x01);
+        _state.runForCycles(160);
+        Assert.assertEquals(10, read(TIMA));
+        Assert.assertFalse(_state.scheduler.isScheduled(Scheduler.TIMER_OVERFLOW));
+    }
+
+    @Test
+    public void testOverflowReloadsAndRequestsInterrupt() {
+        start();
+        write(DIV, 0);
+        write(TMA, 0xF0);
+        write(TIMA, 0xFE);
+        write(TAC, TAC_16_CYCLES);
+        Assert.assertEquals(32, _state.scheduler.getEventCycle(Scheduler.TIMER_OVERFLOW));
+
+        _state.runForCycles(28);
+        Assert.assertEquals(0xFF, read(TIMA));
+        Assert.assertEquals(0, read(IF_ADDRESS) & TIMER_INTERRUPT);
+
+        _state.runForCycles(4);
+        Assert.assertEquals(0xF0, read(TIMA));
+        Assert.assertEquals(TIMER_INTERRUPT, read(IF_ADDRESS) & TIMER_INTERRUPT);
+
+        // The next overflow is 16 ticks after the reload.
+        Assert.assertEquals(32 + 16 * 16, _state.scheduler.getEventCycle(Scheduler.TIMER_OVERFLOW));
+        _state.runForCycles(16);
+        Assert.assertEquals(0xF1, read(TIMA));
+    }
+
+    @Test
+    public void testWritingCounterReschedulesOverflow() {
+        start();
+        write(DIV, 0);
+        write(TAC, TAC_16_CYCLES);
+        Assert.assertEquals(256 * 16, _state.scheduler.getEventCycle(Scheduler.TIMER_OVERFLOW));
+
+        _state.runForCycles(40);
+        write(TIMA, 0xFF);
+        Assert.assertEquals(48, _state.scheduler.getEventCycle(Scheduler.TIMER_OVERFLOW));
+    }
+
+    @Test
+    public void testResettingDividerOnFallingEdgeTicks() {
+        start();
+        write(DIV, 0);
+        write(TAC, TAC_16_CYCLES);
+
+        // Bit 3 of the divider is set, so resetting it is a falling edge.
+        _state.runForCycles(8);
+        write(DIV, 0);
+        Assert.assertEquals(1, read(TIMA));
+
+        // It isn't set now.
+        _state.runForCycles(4);
+        write(DIV, 0);
+        Assert.assertEquals(1, read(TIMA));
+    }
+
+    private void testOverflowWakesHalt() {
+        write(DIV, 0);
+        write(TIMA, 0xFF);
+        write(TAC, TAC_16_CYCLES);
+        write(IE_ADDRESS, TIMER_INTERRUPT);
+
+        // HALT, then nothing until the overflow, then the NOP after it.
+        RunResult result = _state.runUntilPc((short)0x102, 1000);
+        Assert.assertEquals(RunResult.Status.PC_REACHED, result.status);
+        Assert.assertEquals(16 + 4, result.cycles);
+        Assert.assertEquals(2, _state.getInstructions());
+    }
+
+    @Test
+    public void testOverflowWakesHaltInterpreted() {
+        start(HALT);
+        testOverflowWakesHalt();
+    }
+
+    @Test
+    public void testOverflowWakesHaltWithBlocks() {
+        start(HALT);
+        _state.setExecutionMode(ExecutionMode.BASIC_BLOCKS);
+        testOverflowWakesHalt();
+    }
+
+    // Reads TIMA after 8 NOPs and again after 8 more, with the timer ticking
+    // every 16 cycles:
+    //     NOP (x8)
+    //     LDH A, (05)     ; at cycle 32
+    //     LD B, A
+    //     NOP (x8)
+    //     LDH A, (05)     ; at cycle 32 + 12 + 4 + 32 = 80
+    //     JP $0200
+    // Without the jump, blocks would run past the end of the code.
+    private void testReadsInBlocksAreExact(ExecutionMode mode) {
+        byte[] code = new byte[8 + 2 + 1 + 8 + 2 + 3];
+        code[8] = (byte)0xF0;
+        code[9] = 0x05;
+        code[10] = 0x47;
+        code[19] = (byte)0xF0;
+        code[20] = 0x05;
+        code[21] = (byte)0xC3;
+        code[23] = 0x02;
+
+        start(code);
+        _state.setExecutionMode(mode);
+        write(DIV, 0);
+        write(TAC, TAC_16_CYCLES);
+
+        RunResult result = _state.runUntilPc((short)0x200, 1000);
+        Assert.assertEquals(RunResult.Status.PC_REACHED, result.status);
+        Assert.assertEquals(2, Register8.B.getInt(_state));
+        Assert.assertEquals(5, Register8.A.getInt(_state));
+    }
+
+    @Test
+    public void testReadsInBlocksAreExactInterpreted() {
+        testReadsInBlocksAreExact(ExecutionMode.INTERPRETER);
+    }
+
+    @Test
+    public void testReadsInBlocksAreExactWithBlocks() {
+        testReadsInBlocksAreExact(ExecutionMode.BASIC_BLOCKS);
+    }
+
+    @Test
+    public void testReadsInBlocksAreExactWithCompiledBlocks() {
+        testReadsInBlocksAreExact(ExecutionMode.COMPILED_BLOCKS);
+    }
+}
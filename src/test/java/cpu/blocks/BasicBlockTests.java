@@ -0,0 +1,136 @@
+package cpu.blocks;
+
+import cpu.EmulatorState;
+import cpu.disassembler.RootInstructionDecoder;
+import cpu.disassembler.instruction_args.Register16;
+import cpu.disassembler.instruction_args.Register8;
+import junit.framework.Assert;
+import memory.CartridgeHeader;
+import memory.MemoryByteSource;
+import memory.components.memory_bank_controllers.NoMemoryBankController;
+import org.junit.Before;
+import org.junit.Test;
+import util.ByteScanner;
+
+/**
+ * Tests that basic blocks built from code in WRAM execute with the same
+ * results and cycle counts as the interpreter, and that they're invalidated
+ * when the code they cover is overwritten.
+ */
+public class BasicBlockTests {
+    private final static short WRAM_START = (short)0xC000;
+
+    private EmulatorState _state;
+    private BasicBlockCache _cache;
+
+    @Before
+    public void initialize() {
+        // A blank two-bank cartridge; the code under test lives in WRAM.
+        byte[] rom = new byte[0x8000];
+        _state = new EmulatorState(new CartridgeHeader("TEST", false, (byte)0,
+                false, false, new NoMemoryBankController(rom), 2, 0, false,
+                (byte)0, (byte)0, (byte)0, (short)0));
+
+        ByteScanner scanner = new ByteScanner(new MemoryByteSource(_state.memory));
+        _cache = new BasicBlockCache(new RootInstructionDecoder(), scanner, _state.memory);
+    }
+
+    private void writeProgram(short start, int... bytes) {
+        for (int i = 0; i < bytes.length; i++)
+            _state.memory.writeByte((short)(start + i), (byte)bytes[i]);
+    }
+
+    @Test
+    public void testBlockEndsAtJump() {
+        writeProgram(WRAM_START,
+                0x3E, 0x05,         // LD A, 0x05
+                0x3C,               // INC A
+                0x47,               // LD B, A
+                0xC3, 0x00, 0xC0,   // JP 0xC000
+                0x3C);              // INC A (not part of the block)
+
+        BasicBlock block = _cache.lookup(WRAM_START);
+        Assert.assertEquals(4, block.getNumInstructions());
+        Assert.assertEquals(0xC007, block.endAddress);
+        Assert.assertSame(block, _cache.lookup(WRAM_START));
+
+        Register16.PC.set(_state, WRAM_START);
+        int cycles = block.execute(_state);
+
+        Assert.assertEquals(8 + 4 + 4 + 16, cycles);
+        Assert.assertEquals(6, (byte)Register8.A.get(_state));
+        Assert.assertEquals(6, (byte)Register8.B.get(_state));
+        Assert.assertEquals(WRAM_START, (short)Register16.PC.get(_state));
+    }
+
+    @Test
+    public void testWriteInvalidatesBlock() {
+        writeProgram(WRAM_START,
+                0x3C,               // INC A
+                0xC3, 0x00, 0xC0);  // JP 0xC000
+
+        BasicBlock block = _cache.lookup(WRAM_START);
+        _state.memory.writeByte((short)0xC000, (byte)0x04);  // INC B
+
+        Assert.assertFalse(block.isValid());
+
+        BasicBlock rebuilt = _cache.lookup(WRAM_START);
+        Assert.assertNotSame(block, rebuilt);
+
+        Register16.PC.set(_state, WRAM_START);
+        rebuilt.execute(_state);
+        Assert.assertEquals(0, (byte)Register8.A.get(_state));
+        Assert.assertEquals(1, (byte)Register8.B.get(_state));
+    }
+
+    @Test
+    public void testWriteThroughEchoRamInvalidatesBlock() {
+        writeProgram(WRAM_START,
+                0x3C,               // INC A
+                0xC3, 0x00, 0xC0);  // JP 0xC000
+
+        BasicBlock block = _cache.lookup(WRAM_START);
+        _state.memory.writeByte((short)0xE000, (byte)0x04);  // INC B, at 0xC000
+
+        Assert.assertFalse(block.isValid());
+
+        Register16.PC.set(_state, WRAM_START);
+        _cache.lookup(WRAM_START).execute(_state);
+        Assert.assertEquals(0, (byte)Register8.A.get(_state));
+        Assert.assertEquals(1, (byte)Register8.B.get(_state));
+    }
+
+    @Test
+    public void testSelfModifyingBlockStopsEarly() {
+        writeProgram(WRAM_START,
+                0x21, 0x05, 0xC0,   // LD HL, 0xC005
+                0x36, 0x3C,         // LD (HL), 0x3C (INC A)
+                0x00,               // NOP, overwritten by the previous instruction
+                0xC3, 0x00, 0xC0);  // JP 0xC000
+
+        BasicBlock block = _cache.lookup(WRAM_START);
+        Register16.PC.set(_state, WRAM_START);
+        int cycles = block.execute(_state);
+
+        // Execution stops right after the write, before the stale NOP.
+        Assert.assertEquals(12 + 12, cycles);
+        Assert.assertEquals((short)0xC005, (short)Register16.PC.get(_state));
+        Assert.assertFalse(block.isValid());
+
+        BasicBlock next = _cache.lookup((short)0xC005);
+        next.execute(_state);
+        Assert.assertEquals(1, (byte)Register8.A.get(_state));
+    }
+
+    @Test
+    public void testUncachedRegionsAreInterpreted() {
+        // VRAM and cartridge RAM
+        Assert.assertNull(_cache.lookup((short)0x8000));
+        Assert.assertNull(_cache.lookup((short)0xA000));
+
+        // Blocks in ROM are cached just like those in WRAM.
+        BasicBlock rom = _cache.lookup((short)0x0100);
+        Assert.assertNotNull(rom);
+        Assert.assertSame(rom, _cache.lookup((short)0x0100));
+    }
+}
@@ -0,0 +1,140 @@
+package cpu.blocks;
+
+import cpu.EmulatorState;
+import cpu.disassembler.RootInstructionDecoder;
+import cpu.disassembler.instruction_args.Register16;
+import cpu.disassembler.instruction_args.Register8;
+import junit.framework.Assert;
+import memory.CartridgeHeader;
+import memory.MemoryByteSource;
+import memory.components.memory_bank_controllers.MemoryBankController1;
+import org.junit.Before;
+import org.junit.Test;
+import util.ByteScanner;
+
+/**
+ * Tests that compiled blocks behave exactly like interpreted ones, including
+ * stopping early when they overwrite their own code or switch the ROM bank
+ * they're running from.
+ */
+public class BlockCompilerTests {
+    private final static int BANK_SIZE = 0x4000;
+    private final static int NUM_BANKS = 4;
+    private final static short WRAM_START = (short)0xC000;
+
+    private EmulatorState _state;
+    private byte[] _rom;
+
+    @Before
+    public void initialize() {
+        _rom = new byte[BANK_SIZE * NUM_BANKS];
+        _state = new EmulatorState(new CartridgeHeader("TEST", false, (byte)0,
+                false, false, new MemoryBankController1(_rom, 0), NUM_BANKS, 0, false,
+                (byte)0, (byte)0, (byte)0, (short)0));
+    }
+
+    private BasicBlockCache createCache(int compileThreshold) {
+        ByteScanner scanner = new ByteScanner(new MemoryByteSource(_state.memory));
+        return new BasicBlockCache(new RootInstructionDecoder(), scanner, _state.memory,
+                compileThreshold);
+    }
+
+    private void writeProgram(short start, int... bytes) {
+        for (int i = 0; i < bytes.length; i++)
+            _state.memory.writeByte((short)(start + i), (byte)bytes[i]);
+    }
+
+    private void writeRom(int offset, int... bytes) {
+        for (int i = 0; i < bytes.length; i++)
+            _rom[offset + i] = (byte)bytes[i];
+    }
+
+    private int executeAt(BasicBlockCache cache, short address) {
+        Register16.PC.set(_state, address);
+        return cache.lookup(address).execute(_state);
+    }
+
+    @Test
+    public void testCompiledAfterThreshold() {
+        writeProgram(WRAM_START,
+                0x3C,               // INC A
+                0x04,               // INC B
+                0x80,               // ADD A, B
+                0xC3, 0x00, 0xC0);  // JP 0xC000
+
+        BasicBlockCache cache = createCache(2);
+
+        for (int i = 1; i <= 4; i++) {
+            Assert.assertEquals(i > 2, cache.lookup(WRAM_START).isCompiled());
+            Assert.assertEquals(4 + 4 + 4 + 16, executeAt(cache, WRAM_START));
+            Assert.assertEquals(WRAM_START, (short)Register16.PC.get(_state));
+        }
+
+        // A: +1, then +B each iteration; B counts up to 4.
+        Assert.assertEquals(4, (byte)Register8.B.get(_state));
+        Assert.assertEquals(1 + 1 + 1 + 2 + 1 + 3 + 1 + 4, (byte)Register8.A.get(_state));
+    }
+
+    @Test
+    public void testCompiledSelfModifyingBlockStopsEarly() {
+        writeProgram(WRAM_START,
+                0x36, 0x3C,         // LD (HL), 0x3C (INC A)
+                0x00,               // NOP
+                0xC3, 0x00, 0xC0);  // JP 0xC000
+
+        BasicBlockCache cache = createCache(1);
+
+        // Run once writing outside of the block so that it gets compiled.
+        Register16.HL.set(_state, (short)0xD000);
+        executeAt(cache, WRAM_START);
+
+        BasicBlock block = cache.lookup(WRAM_START);
+        Assert.assertTrue(block.isCompiled());
+
+        // Now overwrite the NOP.
+        Register16.HL.set(_state, (short)0xC002);
+        Assert.assertEquals(12, executeAt(cache, WRAM_START));
+        Assert.assertEquals((short)0xC002, (short)Register16.PC.get(_state));
+        Assert.assertFalse(block.isValid());
+
+        cache.lookup((short)0xC002).execute(_state);
+        Assert.assertEquals(1, (byte)Register8.A.get(_state));
+    }
+
+    @Test
+    public void testBankSwitchStopsBlock() {
+        // Bank 1 switches to bank 2 and would then increment B.
+        writeRom(BANK_SIZE,
+                0x3E, 0x02,         // LD A, 0x02
+                0xEA, 0x00, 0x20,   // LD (0x2000), A
+                0x04,               // INC B
+                0xC3, 0x00, 0x40);  // JP 0x4000
+
+        // Bank 2 increments C at the same address instead.
+        writeRom(2 * BANK_SIZE + 5,
+                0x0C,               // INC C
+                0xC3, 0x00, 0x40);  // JP 0x4000
+
+        for (int threshold : new int[] { 0, 1 }) {
+            initializeBank(1);
+            BasicBlockCache cache = createCache(threshold);
+
+            // The second run is compiled when the threshold is 1.
+            for (int run = 0; run < 2; run++) {
+                initializeBank(1);
+                Register8.C.set(_state, (byte)0);
+
+                Assert.assertEquals(8 + 16, executeAt(cache, (short)0x4000));
+                Assert.assertEquals((short)0x4005, (short)Register16.PC.get(_state));
+
+                cache.lookup((short)0x4005).execute(_state);
+                Assert.assertEquals(0, (byte)Register8.B.get(_state));
+                Assert.assertEquals(1, (byte)Register8.C.get(_state));
+            }
+        }
+    }
+
+    private void initializeBank(int bank) {
+        _state.memory.writeByte((short)0x2000, (byte)bank);
+    }
+}
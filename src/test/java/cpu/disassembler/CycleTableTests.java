@@ -0,0 +1,57 @@
+package cpu.disassembler;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import util.ByteScanner;
+
+/**
+ * Tests that the static minimum-cycle tables used by the decoders agree with
+ * what each InstructionFactory reports for every command byte, including all
+ * 256 0xCB-prefixed command bytes.
+ */
+public class CycleTableTests {
+    private final static byte MULTI_BYTE_PREFIX = (byte)0xCB;
+
+    // Whether the root decoder has a factory for the given command byte.
+    private static boolean isUsedCommandByte(InstructionDecoder decoder, byte b) {
+        try {
+            decoder.getFactoryMinimumCycles(new ByteScanner(new byte[] { b, 0, 0 }));
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private void testCommandBytes(byte[] bytes) {
+        InstructionDecoder decoder = new RootInstructionDecoder();
+        ByteScanner scanner = new ByteScanner(bytes);
+
+        int expected = decoder.getFactoryMinimumCycles(scanner);
+        Assert.assertEquals(0, scanner.getIndex());
+
+        Assert.assertEquals(expected, decoder.getMinimumCycles(scanner));
+        Assert.assertEquals(0, scanner.getIndex());
+
+        decoder.decodeNext(scanner);
+        Assert.assertEquals(expected, decoder.getLastMinimumCycles());
+    }
+
+    @Test
+    public void testRootTableMatchesFactories() {
+        InstructionDecoder decoder = new RootInstructionDecoder();
+
+        for (int i = 0; i < 256; i++) {
+            byte b = (byte)i;
+            if (b == MULTI_BYTE_PREFIX || !isUsedCommandByte(decoder, b))
+                continue;
+
+            testCommandBytes(new byte[] { b, 0, 0 });
+        }
+    }
+
+    @Test
+    public void testMultiByteTableMatchesFactories() {
+        for (int i = 0; i < 256; i++)
+            testCommandBytes(new byte[] { MULTI_BYTE_PREFIX, (byte)i });
+    }
+}
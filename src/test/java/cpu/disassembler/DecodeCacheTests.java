@@ -0,0 +1,80 @@
+package cpu.disassembler;
+
+import cpu.EmulatorState;
+import cpu.disassembler.instruction_args.Register8;
+import cpu.disassembler.instructions.ArithmeticInstructions;
+import cpu.disassembler.instructions.PCControlInstructions;
+import junit.framework.Assert;
+import memory.Memory;
+import memory.MemoryByteSource;
+import memory.components.memory_bank_controllers.MemoryBankController1;
+import org.junit.Before;
+import org.junit.Test;
+import util.ByteScanner;
+
+/**
+ * Tests that the DecodeCache returns the same decoded instruction for repeated
+ * lookups and keys its entries on the currently mapped ROM bank.
+ */
+public class DecodeCacheTests {
+    private final static int BANK_SIZE = 0x4000;
+    private final static int NUM_BANKS = 4;
+
+    private MemoryBankController1 _mbc;
+    private DecodeCache _cache;
+
+    @Before
+    public void initialize() {
+        byte[] rom = new byte[BANK_SIZE * NUM_BANKS];
+
+        // Bank 0: LD A, d8 at 0x0100
+        rom[0x100] = (byte)0x3E;
+        rom[0x101] = (byte)0x42;
+
+        // Bank 1 has a NOP at 0x4000; bank 2 has INC A there.
+        rom[BANK_SIZE] = (byte)0x00;
+        rom[2 * BANK_SIZE] = (byte)0x3C;
+
+        _mbc = new MemoryBankController1(rom, 0);
+        Memory memory = new Memory(new EmulatorState(), _mbc);
+        ByteScanner scanner = new ByteScanner(new MemoryByteSource(memory));
+
+        _cache = new DecodeCache(new RootInstructionDecoder(), scanner, _mbc);
+    }
+
+    private void selectRomBank(int bank) {
+        _mbc.write((short)0x2000, (byte)bank);
+    }
+
+    @Test
+    public void testLookupDecodesOnce() {
+        DecodedInstruction first = _cache.lookup((short)0x100);
+
+        Assert.assertEquals(2, first.length);
+        Assert.assertEquals(8, first.minimumCycles);
+        Assert.assertSame(first, _cache.lookup((short)0x100));
+    }
+
+    @Test
+    public void testLookupKeyedOnBank() {
+        selectRomBank(1);
+        DecodedInstruction nop = _cache.lookup((short)0x4000);
+        Assert.assertEquals(new PCControlInstructions.NopInstruction(), nop.instruction);
+
+        selectRomBank(2);
+        DecodedInstruction inc = _cache.lookup((short)0x4000);
+        Assert.assertEquals(new ArithmeticInstructions.Inc8Instruction(Register8.A),
+                inc.instruction);
+
+        selectRomBank(1);
+        Assert.assertSame(nop, _cache.lookup((short)0x4000));
+    }
+
+    @Test
+    public void testOnlyRomIsCacheable() {
+        Assert.assertTrue(_cache.isCacheable((short)0x0000));
+        Assert.assertTrue(_cache.isCacheable((short)0x7FFF));
+        Assert.assertFalse(_cache.isCacheable((short)0x8000));
+        Assert.assertFalse(_cache.isCacheable((short)0xC000));
+    }
+}
@@ -0,0 +1,139 @@
+package cpu.disassembler;
+
+import cpu.EmulatorState;
+import cpu.disassembler.instruction_args.Register16;
+import cpu.disassembler.instruction_args.Register8;
+import junit.framework.Assert;
+import memory.CartridgeHeader;
+import memory.components.memory_bank_controllers.NoMemoryBankController;
+import org.junit.Test;
+import util.ByteScanner;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests that executing instructions doesn't allocate once the emulator is
+ * warmed up, i.e., that no operand boxes its value.
+ */
+public class InstructionAllocationTests {
+    private final static int WARMUP_ITERATIONS = 20000;
+    private final static int MEASURED_ITERATIONS = 10000;
+
+    // What the JVM may allocate on its own while an instruction is measured.
+    private final static int MAX_JVM_ALLOCATED_BYTES = 1024;
+
+    // Every instruction here only touches registers, WRAM and HRAM given the
+    // register values set by resetRegisters().
+    private final static int[][] INSTRUCTIONS = {
+            // Arithmetic
+            { 0x3C }, { 0x04 }, { 0x05 }, { 0x80 }, { 0x88 }, { 0x90 },
+            { 0x98 }, { 0xB8 }, { 0xC6, 0x12 }, { 0x09 }, { 0x03 }, { 0x0B },
+            { 0x37 }, { 0x3F }, { 0x34 },
+
+            // Bitwise
+            { 0xA0 }, { 0xA8 }, { 0xB0 }, { 0x2F }, { 0x07 }, { 0x0F },
+            { 0x17 }, { 0x1F }, { 0xCB, 0x00 }, { 0xCB, 0x16 }, { 0xCB, 0x26 },
+            { 0xCB, 0x2E }, { 0xCB, 0x3E }, { 0xCB, 0x36 }, { 0xCB, 0x46 },
+            { 0xCB, 0x86 }, { 0xCB, 0xC6 },
+
+            // Memory
+            { 0x7E }, { 0x77 }, { 0x36, 0x12 }, { 0x22 }, { 0x2A }, { 0x32 },
+            { 0x3A }, { 0xE2 }, { 0xF2 }, { 0xE0, 0x90 }, { 0xF0, 0x90 },
+            { 0xEA, 0x00, 0xC2 }, { 0xFA, 0x00, 0xC2 }, { 0x01, 0x34, 0x12 },
+            { 0x08, 0x00, 0xC3 }, { 0xC5 }, { 0xC1 }, { 0xF9 }, { 0xF8, 0x02 },
+
+            // PC control
+            { 0x00 }, { 0xC3, 0x00, 0x01 }, { 0x18, 0x10 }, { 0x20, 0x10 },
+            { 0xCD, 0x00, 0x01 }, { 0xC9 }, { 0xC7 }, { 0xE9 },
+    };
+
+    private static EmulatorState createState() {
+        byte[] rom = new byte[0x8000];
+        return new EmulatorState(new CartridgeHeader("TEST", false, (byte)0,
+                false, false, new NoMemoryBankController(rom), 2, 0, false,
+                (byte)0, (byte)0, (byte)0, (short)0));
+    }
+
+    private static List<Instruction> decodeInstructions() {
+        InstructionDecoder decoder = new RootInstructionDecoder();
+        List<Instruction> instructions = new ArrayList<Instruction>();
+
+        for (int[] ints : INSTRUCTIONS) {
+            byte[] bytes = new byte[ints.length];
+            for (int i = 0; i < ints.length; i++)
+                bytes[i] = (byte)ints[i];
+
+            instructions.add(decoder.decodeNext(new ByteScanner(bytes)));
+        }
+
+        return instructions;
+    }
+
+    private static void resetRegisters(EmulatorState state) {
+        Register16.BC.setInt(state, 0x1280);  // C points into HRAM for (FF00+C)
+        Register16.HL.setInt(state, 0xC100);
+        Register16.SP.setInt(state, 0xD000);
+        Register16.PC.setInt(state, 0x0150);
+        Register8.A.setInt(state, 0x5A);
+    }
+
+    private static void executeAll(EmulatorState state, Instruction[] instructions,
+                                   int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            for (Instruction instr : instructions) {
+                resetRegisters(state);
+                instr.execute(state);
+            }
+        }
+    }
+
+    private static void execute(EmulatorState state, Instruction instr, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            resetRegisters(state);
+            instr.execute(state);
+        }
+    }
+
+    private static String formatOpcode(int[] ints) {
+        StringBuilder builder = new StringBuilder();
+        for (int value : ints)
+            builder.append(String.format("%02X ", value));
+        return builder.toString().trim();
+    }
+
+    @Test
+    public void testSteadyStateExecutionDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        EmulatorState state = createState();
+        Instruction[] instructions = decodeInstructions().toArray(new Instruction[0]);
+
+        executeAll(state, instructions, WARMUP_ITERATIONS);
+
+        // Reading the counter may itself allocate; measure that so it can be
+        // subtracted.
+        long start = threads.getThreadAllocatedBytes(threadId);
+        long overhead = threads.getThreadAllocatedBytes(threadId) - start;
+
+        // Each instruction is measured on its own, so one that allocates
+        // can't hide behind the others. The JVM itself occasionally
+        // allocates a few bytes on this thread (e.g., when compiled code is
+        // swapped in), which stays well under the bound, while anything
+        // allocated per execution would be at least 16 bytes times
+        // MEASURED_ITERATIONS.
+        for (int i = 0; i < instructions.length; i++) {
+            start = threads.getThreadAllocatedBytes(threadId);
+            execute(state, instructions[i], MEASURED_ITERATIONS);
+            long allocated = threads.getThreadAllocatedBytes(threadId) - start - overhead;
+
+            Assert.assertTrue(String.format("%s (%s) allocated %d bytes in %d executions",
+                            formatOpcode(INSTRUCTIONS[i]), instructions[i], allocated,
+                            MEASURED_ITERATIONS),
+                    allocated <= MAX_JVM_ALLOCATED_BYTES);
+        }
+    }
+}
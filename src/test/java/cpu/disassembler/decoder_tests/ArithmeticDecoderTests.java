@@ -106,7 +106,7 @@ public class ArithmeticDecoderTests extends DecoderTests {
     public void testCpDecoded() {
         for (int reg = 0; reg < 8; reg++) {
             byte command = (byte)(0xB8 + reg);
-            SettableValueContainer<Byte> arg = arg8s.get(reg);
+            SettableByteOperand arg = arg8s.get(reg);
 
             // reg == 6 -> (HL), which is a memory reference
             int cycles = reg == 6 ? 8 : 4;
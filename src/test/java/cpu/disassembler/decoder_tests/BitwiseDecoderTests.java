@@ -23,7 +23,7 @@ public class BitwiseDecoderTests extends DecoderTests {
     @Test
     public void testRlcDecoded() {
         for (int reg = 0; reg < 8; reg++) {
-            SettableValueContainer<Byte> arg = arg8s.get(reg);
+            SettableByteOperand arg = arg8s.get(reg);
 
             byte instr = (byte)reg;
             byte[] bytes = new byte[] { (byte)0xCB, instr };
@@ -38,7 +38,7 @@ public class BitwiseDecoderTests extends DecoderTests {
     @Test
     public void testRrcDecoded() {
         for (int reg = 0; reg < 8; reg++) {
-            SettableValueContainer<Byte> arg = arg8s.get(reg);
+            SettableByteOperand arg = arg8s.get(reg);
 
             byte instr = (byte)(0x08 + reg);
             byte[] bytes = new byte[] { (byte)0xCB, instr };
@@ -53,7 +53,7 @@ public class BitwiseDecoderTests extends DecoderTests {
     @Test
     public void testRlDecoded() {
         for (int reg = 0; reg < 8; reg++) {
-            SettableValueContainer<Byte> arg = arg8s.get(reg);
+            SettableByteOperand arg = arg8s.get(reg);
 
             byte instr = (byte)(0x10 + reg);
             byte[] bytes = new byte[] { (byte)0xCB, instr };
@@ -68,7 +68,7 @@ public class BitwiseDecoderTests extends DecoderTests {
     @Test
     public void testRrDecoded() {
         for (int reg = 0; reg < 8; reg++) {
-            SettableValueContainer<Byte> arg = arg8s.get(reg);
+            SettableByteOperand arg = arg8s.get(reg);
 
             byte instr = (byte)(0x18 + reg);
             byte[] bytes = new byte[] { (byte)0xCB, instr };
@@ -83,7 +83,7 @@ public class BitwiseDecoderTests extends DecoderTests {
     @Test
     public void testSlaDecoded() {
         for (int reg = 0; reg < 8; reg++) {
-            SettableValueContainer<Byte> arg = arg8s.get(reg);
+            SettableByteOperand arg = arg8s.get(reg);
 
             byte instr = (byte)(0x20 + reg);
             byte[] bytes = new byte[] { (byte)0xCB, instr };
@@ -98,7 +98,7 @@ public class BitwiseDecoderTests extends DecoderTests {
     @Test
     public void testSraDecoded() {
         for (int reg = 0; reg < 8; reg++) {
-            SettableValueContainer<Byte> arg = arg8s.get(reg);
+            SettableByteOperand arg = arg8s.get(reg);
 
             byte instr = (byte)(0x28 + reg);
             byte[] bytes = new byte[] { (byte)0xCB, instr };
@@ -113,7 +113,7 @@ public class BitwiseDecoderTests extends DecoderTests {
     @Test
     public void testSwapDecoded() {
         for (int reg = 0; reg < 8; reg++) {
-            SettableValueContainer<Byte> arg = arg8s.get(reg);
+            SettableByteOperand arg = arg8s.get(reg);
 
             byte instr = (byte)(0x30 + reg);
             byte[] bytes = new byte[] { (byte)0xCB, instr };
@@ -128,7 +128,7 @@ public class BitwiseDecoderTests extends DecoderTests {
     @Test
     public void testSrlDecoded() {
         for (int reg = 0; reg < 8; reg++) {
-            SettableValueContainer<Byte> arg = arg8s.get(reg);
+            SettableByteOperand arg = arg8s.get(reg);
 
             byte instr = (byte)(0x38 + reg);
             byte[] bytes = new byte[] { (byte)0xCB, instr };
@@ -144,7 +144,7 @@ public class BitwiseDecoderTests extends DecoderTests {
     public void testBitDecoded() {
         for (int bitIndex = 0; bitIndex < 8; bitIndex++) {
             for (int reg = 0; reg < 8; reg++) {
-                SettableValueContainer<Byte> arg = arg8s.get(reg);
+                SettableByteOperand arg = arg8s.get(reg);
 
                 byte instr = (byte)(0x40 + bitIndex * 8 + reg);
                 byte[] bytes = new byte[] { (byte)0xCB, instr };
@@ -161,7 +161,7 @@ public class BitwiseDecoderTests extends DecoderTests {
     public void testResDecoded() {
         for (int bitIndex = 0; bitIndex < 8; bitIndex++) {
             for (int reg = 0; reg < 8; reg++) {
-                SettableValueContainer<Byte> arg = arg8s.get(reg);
+                SettableByteOperand arg = arg8s.get(reg);
 
                 byte instr = (byte)(0x80 + bitIndex * 8 + reg);
                 byte[] bytes = new byte[] { (byte)0xCB, instr };
@@ -178,7 +178,7 @@ public class BitwiseDecoderTests extends DecoderTests {
     public void testSetDecoded() {
         for (int bitIndex = 0; bitIndex < 8; bitIndex++) {
             for (int reg = 0; reg < 8; reg++) {
-                SettableValueContainer<Byte> arg = arg8s.get(reg);
+                SettableByteOperand arg = arg8s.get(reg);
 
                 byte instr = (byte)(0xC0 + bitIndex * 8 + reg);
                 byte[] bytes = new byte[] { (byte)0xCB, instr };
@@ -6,7 +6,7 @@ import cpu.disassembler.RootInstructionDecoder;
 import cpu.disassembler.instruction_args.DereferencedRegisterByte;
 import cpu.disassembler.instruction_args.Register16;
 import cpu.disassembler.instruction_args.Register8;
-import cpu.disassembler.instruction_args.SettableValueContainer;
+import cpu.disassembler.instruction_args.SettableByteOperand;
 import junit.framework.Assert;
 import util.ByteScanner;
 
@@ -20,7 +20,7 @@ import java.util.List;
  * See http://www.pastraiser.com/cpu/gameboy/gameboy_opcodes.html
  */
 public class DecoderTests {
-    protected final static List<SettableValueContainer<Byte>> arg8s =
+    protected final static List<SettableByteOperand> arg8s =
             Arrays.asList(Register8.B, Register8.C, Register8.D, Register8.E,
                     Register8.H, Register8.L,
                     new DereferencedRegisterByte(Register16.HL), Register8.A
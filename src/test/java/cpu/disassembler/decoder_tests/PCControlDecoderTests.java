@@ -3,7 +3,7 @@ package cpu.disassembler.decoder_tests;
 import cpu.disassembler.instruction_args.DereferencedRegisterShort;
 import cpu.disassembler.instruction_args.Register16;
 import cpu.disassembler.instruction_args.ShortConst;
-import cpu.disassembler.instruction_args.ValueContainer;
+import cpu.disassembler.instruction_args.ShortOperand;
 import cpu.disassembler.instructions.PCControlInstructions;
 import org.junit.Test;
 
@@ -32,7 +32,7 @@ public class PCControlDecoderTests extends DecoderTests {
 
     @Test
     public void testJpDecoded() {
-        ValueContainer<Short> addr = new ShortConst((short)0x1234);
+        ShortOperand addr = new ShortConst((short)0x1234);
         testDecode(new byte[] { (byte)0xC3, (byte)0x34, (byte)0x12 }, new PCControlInstructions.JpInstruction(
                 PCControlInstructions.JumpFlag.None, false, addr), 16);
         testDecode(new byte[] { (byte)0xC2, (byte)0x34, (byte)0x12 }, new PCControlInstructions.JpInstruction(
@@ -51,7 +51,7 @@ public class PCControlDecoderTests extends DecoderTests {
 
     @Test
     public void testCallDecoded() {
-        ValueContainer<Short> addr = new ShortConst((short)0x1234);
+        ShortOperand addr = new ShortConst((short)0x1234);
         testDecode(new byte[] { (byte)0xCD, (byte)0x34, (byte)0x12 }, new PCControlInstructions.CallInstruction(
                 PCControlInstructions.JumpFlag.None, false, addr), 24);
         testDecode(new byte[] { (byte)0xC4, (byte)0x34, (byte)0x12 }, new PCControlInstructions.CallInstruction(
@@ -0,0 +1,153 @@
+package memory;
+
+import cpu.EmulatorState;
+import cpu.Scheduler;
+import junit.framework.Assert;
+import memory.components.HardwareRegistersMemoryComponent;
+import memory.components.hardware_registers.HardwareRegister;
+import memory.components.hardware_registers.UnmappedRegisterAccesses;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+/**
+ * Tests that accesses to FF00..FF7F reach the right hardware register.
+ */
+public class HardwareRegistersTests {
+    private Memory _memory;
+    private HardwareRegistersMemoryComponent _regs;
+
+    @Before
+    public void initialize() {
+        _memory = new EmulatorState().memory;
+        _regs = _memory.regs;
+    }
+
+    @Test
+    public void testRegistersAreResponsibleForTheirAddressOnly() {
+        Assert.assertTrue(_regs.scrollY.isResponsibleFor((short)0xFF42));
+        Assert.assertFalse(_regs.scrollY.isResponsibleFor((short)0xFF43));
+    }
+
+    @Test
+    public void testReadsAndWritesReachRegister() {
+        _memory.writeByte((short)0xFF42, (byte)0x12);
+        _memory.writeByte((short)0xFF43, (byte)0x34);
+
+        Assert.assertEquals((byte)0x12, _regs.scrollY.value);
+        Assert.assertEquals((byte)0x34, _regs.scrollX.value);
+
+        _regs.ly.value = (byte)0x56;
+        Assert.assertEquals((byte)0x56, _memory.readByte((short)0xFF44));
+
+        _memory.writeByte((short)0xFF4B, (byte)0x07);
+        Assert.assertEquals((byte)0x07, _regs.windowX.value);
+    }
+
+    @Test
+    public void testUnmappedRegister() {
+        // No register at NR10 (yet)
+        _memory.writeByte((short)0xFF10, (byte)0x80);
+        Assert.assertEquals(0, _memory.readByte((short)0xFF10));
+    }
+
+    @Test
+    public void testUnmappedAccessesAreCounted() {
+        UnmappedRegisterAccesses accesses = _regs.unmappedAccesses;
+
+        _memory.writeByte((short)0xFF10, (byte)0x80);
+        _memory.writeByte((short)0xFF10, (byte)0x81);
+        _memory.readByte((short)0xFF10);
+        _memory.readByte((short)0xFF42);
+
+        Assert.assertEquals(2, accesses.getWriteCount((short)0xFF10));
+        Assert.assertEquals(1, accesses.getReadCount((short)0xFF10));
+        Assert.assertEquals(0, accesses.getReadCount((short)0xFF42));
+        Assert.assertEquals("$FF10: 1 reads, 2 writes, last wrote $81\n", accesses.getSummary());
+
+        accesses.reset();
+        Assert.assertEquals("", accesses.getSummary());
+    }
+
+    @Test
+    public void testUnmappedAccessLogIsRateLimited() {
+        UnmappedRegisterAccesses accesses = _regs.unmappedAccesses;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // An interval long enough that only the first access is logged.
+        accesses.setLog(new PrintStream(output, true), Long.MAX_VALUE / 2);
+        for (int i = 0; i < 100; i++)
+            _memory.writeByte((short)0xFF26, (byte)i);
+
+        String[] lines = output.toString().split("\n");
+        Assert.assertEquals(1, lines.length);
+        Assert.assertTrue(lines[0].contains("$FF26"));
+        Assert.assertEquals(100, accesses.getWriteCount((short)0xFF26));
+
+        // With no interval, every access is logged.
+        output.reset();
+        accesses.setLog(new PrintStream(output, true), 0);
+        _memory.readByte((short)0xFF26);
+        _memory.readByte((short)0xFF26);
+        Assert.assertEquals(2, output.toString().split("\n").length);
+        Assert.assertTrue(output.toString().startsWith("Read from unmapped MMIO register $FF26"));
+    }
+
+    @Test
+    public void testWriteListener() {
+        final int[] writes = new int[1];
+
+        _regs.lyc.setWriteListener(new HardwareRegister.WriteListener() {
+            @Override
+            public void onWrite(HardwareRegister register) {
+                Assert.assertEquals((byte)0x90, register.value);
+                writes[0]++;
+            }
+        });
+
+        _memory.writeByte((short)0xFF45, (byte)0x90);
+        Assert.assertEquals(1, writes[0]);
+
+        // Neither writes to other registers nor writes by the emulator are
+        // reported.
+        _memory.writeByte((short)0xFF42, (byte)0x90);
+        _regs.lyc.value = 0;
+        Assert.assertEquals(1, writes[0]);
+    }
+
+    @Test
+    public void testLycWriteUpdatesCoincidenceFlag() {
+        // LY and LYC both start at 0.
+        Assert.assertTrue(_regs.statRegister.lyMatch.get());
+
+        _memory.writeByte((short)0xFF45, (byte)0x90);
+        Assert.assertFalse(_regs.statRegister.lyMatch.get());
+
+        _regs.ly.value = (byte)0x90;
+        _memory.writeByte((short)0xFF45, (byte)0x90);
+        Assert.assertTrue(_regs.statRegister.lyMatch.get());
+
+        // The CPU can't change the flag through STAT.
+        _memory.writeByte((short)0xFF41, (byte)0x00);
+        Assert.assertEquals(0x04, _memory.readByte((short)0xFF41) & 0x04);
+    }
+
+    @Test
+    public void testScanlineMatchingLycRequestsStatInterrupt() {
+        EmulatorState state = new EmulatorState();
+        Memory memory = state.memory;
+
+        memory.writeByte((short)0xFF45, (byte)0x02);
+        memory.regs.statRegister.lyMatchInterruptDesired.set(true);
+
+        state.onEvent(Scheduler.SCANLINE_END, EmulatorState.CYCLES_PER_SCANLINE);
+        Assert.assertFalse(memory.regs.statRegister.lyMatch.get());
+        Assert.assertEquals(0, memory.readByte((short)0xFF0F) & 0x02);
+
+        state.onEvent(Scheduler.SCANLINE_END, 2 * EmulatorState.CYCLES_PER_SCANLINE);
+        Assert.assertTrue(memory.regs.statRegister.lyMatch.get());
+        Assert.assertEquals(0x02, memory.readByte((short)0xFF0F) & 0x02);
+    }
+}
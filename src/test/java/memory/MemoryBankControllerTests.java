@@ -0,0 +1,88 @@
+package memory;
+
+import junit.framework.Assert;
+import memory.components.memory_bank_controllers.MemoryBankController1;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests ROM and RAM bank switching in MemoryBankController1.
+ */
+public class MemoryBankControllerTests {
+    private final static int ROM_BANK_SIZE = 0x4000;
+    private final static int NUM_ROM_BANKS = 64;
+    private final static int RAM_KB = 32;
+
+    private MemoryBankController1 _mbc;
+
+    @Before
+    public void initialize() {
+        // The first byte of each ROM bank is its bank number.
+        byte[] rom = new byte[NUM_ROM_BANKS * ROM_BANK_SIZE];
+        for (int bank = 0; bank < NUM_ROM_BANKS; bank++)
+            rom[bank * ROM_BANK_SIZE] = (byte)bank;
+
+        _mbc = new MemoryBankController1(rom, RAM_KB);
+    }
+
+    private void write(int address, int value) {
+        _mbc.write((short)address, (byte)value);
+    }
+
+    private int read(int address) {
+        return _mbc.read((short)address) & 0xFF;
+    }
+
+    @Test
+    public void testRomBanks() {
+        Assert.assertEquals(0, read(0x0000));
+
+        write(0x2000, 5);
+        Assert.assertEquals(5, read(0x4000));
+        Assert.assertEquals(0, read(0x0000));
+
+        // Bank 0 selects bank 1.
+        write(0x2000, 0);
+        Assert.assertEquals(1, read(0x4000));
+
+        // Upper bits in the 2MB ROM mode
+        write(0x2000, 3);
+        write(0x4000, 1);
+        Assert.assertEquals(0x23, read(0x4000));
+
+        // The upper bits select the RAM bank in the other mode instead.
+        write(0x6000, 1);
+        Assert.assertEquals(3, read(0x4000));
+        Assert.assertEquals(3, _mbc.getMappedRomBank((short)0x4000));
+    }
+
+    @Test
+    public void testRamBanks() {
+        write(0x0000, 0x0A);
+        write(0x6000, 1);
+
+        for (int bank = 0; bank < 4; bank++) {
+            write(0x4000, bank);
+            write(0xA000, 0x10 + bank);
+            write(0xBFFF, 0x20 + bank);
+        }
+
+        for (int bank = 0; bank < 4; bank++) {
+            write(0x4000, bank);
+            Assert.assertEquals(0x10 + bank, read(0xA000));
+            Assert.assertEquals(0x20 + bank, read(0xBFFF));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRamDisabled() {
+        read(0xA000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRamBeyondSize() {
+        MemoryBankController1 mbc = new MemoryBankController1(new byte[2 * ROM_BANK_SIZE], 2);
+        mbc.write((short)0x0000, (byte)0x0A);
+        mbc.read((short)0xA800);
+    }
+}
@@ -0,0 +1,107 @@
+package memory;
+
+import cpu.EmulatorState;
+import junit.framework.Assert;
+import memory.components.memory_bank_controllers.NoMemoryBankController;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that Memory's page table sends each address to the right component,
+ * including the pages that are shared between components.
+ */
+public class MemoryTests {
+    private Memory _memory;
+
+    @Before
+    public void initialize() {
+        byte[] rom = new byte[0x8000];
+        rom[0x0150] = (byte)0x12;
+        rom[0x4150] = (byte)0x34;
+
+        EmulatorState state = new EmulatorState(new CartridgeHeader("TEST", false,
+                (byte)0, false, false, new NoMemoryBankController(rom), 2, 0, false,
+                (byte)0, (byte)0, (byte)0, (short)0));
+        _memory = state.memory;
+    }
+
+    private void assertWriteReads(int address, int value) {
+        _memory.writeByte((short)address, (byte)value);
+        Assert.assertEquals((byte)value, _memory.readByte((short)address));
+    }
+
+    @Test
+    public void testRom() {
+        Assert.assertEquals((byte)0x12, _memory.readByte((short)0x0150));
+        Assert.assertEquals((byte)0x34, _memory.readByte((short)0x4150));
+    }
+
+    @Test
+    public void testReadShort() {
+        // Within a page and across pages
+        _memory.writeShort((short)0xC010, (short)0xBEEF);
+        Assert.assertEquals((short)0xBEEF, _memory.readShort((short)0xC010));
+
+        _memory.writeShort((short)0xC0FF, (short)0x1234);
+        Assert.assertEquals((short)0x1234, _memory.readShort((short)0xC0FF));
+
+        // From the end of WRAM into the echo of its start
+        _memory.writeShort((short)0xDFFF, (short)0x5678);
+        Assert.assertEquals((short)0x5678, _memory.readShort((short)0xDFFF));
+        Assert.assertEquals((byte)0x56, _memory.readByte((short)0xC000));
+    }
+
+    @Test
+    public void testReadPages() {
+        byte[] bank0 = _memory.getReadPage(0x01);
+        Assert.assertEquals((byte)0x12, bank0[_memory.getReadPageOffset(0x01) + 0x50]);
+
+        // The switchable bank and the hardware registers can't be read
+        // directly.
+        Assert.assertNull(_memory.getReadPage(0x41));
+        Assert.assertNull(_memory.getReadPage(0xFF));
+    }
+
+    @Test
+    public void testRam() {
+        assertWriteReads(0x8000, 0x01);  // VRAM
+        assertWriteReads(0x9FFF, 0x02);
+        assertWriteReads(0xC000, 0x03);  // WRAM
+        assertWriteReads(0xDFFF, 0x04);
+        assertWriteReads(0xFF80, 0x05);  // HRAM
+        assertWriteReads(0xFFFE, 0x06);
+    }
+
+    @Test
+    public void testEchoRam() {
+        _memory.writeByte((short)0xC123, (byte)0x56);
+        Assert.assertEquals((byte)0x56, _memory.readByte((short)0xE123));
+
+        _memory.writeByte((short)0xFDFF, (byte)0x78);
+        Assert.assertEquals((byte)0x78, _memory.readByte((short)0xDDFF));
+    }
+
+    @Test
+    public void testSplitPages() {
+        // OAM shares its page with the unusable region.
+        assertWriteReads(0xFE9C, 0x07);
+
+        // HRAM shares its page with the hardware registers and IE.
+        assertWriteReads(0xFF80, 0x08);
+        assertWriteReads(0xFFFF, 0x09);
+        Assert.assertEquals((byte)0x08, _memory.readByte((short)0xFF80));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnusableAddress() {
+        _memory.readByte((short)0xFEA0);
+    }
+
+    @Test
+    public void testRamWithoutCartridge() {
+        Memory memory = new EmulatorState().memory;
+
+        memory.writeByte((short)0xC000, (byte)0x42);
+        Assert.assertEquals((byte)0x42, memory.readByte((short)0xC000));
+    }
+}
@@ -0,0 +1,46 @@
+package tools;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class JsonParserTests {
+    @Test
+    public void testParsesObjectsByKey() {
+        Map<?, ?> object = (Map<?, ?>)JsonParser.parse(
+                "{\"b\": 1.5, \"a\": \"x\\\"y\\n\",\n \"c\": [true, false, null], \"d\": {}}");
+
+        Assert.assertEquals(1.5, object.get("b"));
+        Assert.assertEquals("x\"y\n", object.get("a"));
+        Assert.assertEquals(Arrays.asList(true, false, null), object.get("c"));
+        Assert.assertTrue(((Map<?, ?>)object.get("d")).isEmpty());
+    }
+
+    @Test
+    public void testParsesNumbers() {
+        List<?> array = (List<?>)JsonParser.parse("[0, -12, 3.25e2]");
+        Assert.assertEquals(Arrays.asList(0.0, -12.0, 325.0), array);
+    }
+
+    private static void assertMalformed(String text) {
+        try {
+            JsonParser.parse(text);
+            Assert.fail("Parsed malformed JSON: " + text);
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testRejectsMalformedInput() {
+        assertMalformed("{\"a\": 1");
+        assertMalformed("{\"a\" 1}");
+        assertMalformed("[1, 2] 3");
+        assertMalformed("\"unterminated");
+        assertMalformed("[1.2.3]");
+        assertMalformed("");
+    }
+}
@@ -17,6 +17,14 @@ public class ByteScannerTest {
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
+    @Test
+    public void testChecksAreEnabled() {
+        // The tests below (and others) rely on checks that release mode
+        // skips.
+        Assert.assertTrue("Tests must not be run with -D" + Checks.RELEASE_PROPERTY + "=true",
+                Checks.ENABLED);
+    }
+
     @Test
     public void testRead() {
         Assert.assertEquals(_scanner.readByte(), 1);